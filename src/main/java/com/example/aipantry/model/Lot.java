@@ -0,0 +1,10 @@
+package com.example.aipantry.model;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+
+/** One purchase of a pantry item: its own quantity and (nullable) expiry date. */
+public record Lot(double quantity, LocalDate expiresOn) {
+    /** First-expired-first-out order; undated lots last. */
+    public static final Comparator<Lot> FEFO = Comparator.comparing(Lot::expiresOn, Comparator.nullsLast(Comparator.naturalOrder()));
+}
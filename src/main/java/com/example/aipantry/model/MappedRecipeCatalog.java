@@ -0,0 +1,379 @@
+package com.example.aipantry.model;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * {@link RecipeColumns} backed by a read-only memory-mapped file, so the column data lives in the
+ * page cache instead of the Java heap and several processes can map the same file. Only the
+ * ingredient/unit/tag dictionaries are loaded on heap. Files are produced by {@link Writer}, which
+ * streams recipes to disk without holding the catalog in memory.
+ * <p>
+ * Layout (little-endian, sections 8-byte aligned): a fixed header, then recipe offsets (int n+1),
+ * ingredient ids (int m), amounts (double m), unit ids (int m), cook minutes (int n),
+ * tag bitsets (long n*tagWords), title offsets (int n+1), UTF-8 titles, and the dictionaries.
+ * Each section is mapped on its own and must stay under 2 GiB.
+ */
+public final class MappedRecipeCatalog implements RecipeColumns {
+    private static final int MAGIC = 0x52434154; // "RCAT"
+    private static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 128;
+    private static final int SECTIONS = 9; // offsets, ids, amounts, units, minutes, tags, titleOffsets, titles, dictionaries
+
+    private final int n, tagWords;
+    private final IntBuffer offsets, ingredientIds, unitIds, minutes, titleOffsets;
+    private final DoubleBuffer amounts;
+    private final LongBuffer tags;
+    private final ByteBuffer titles;
+    private final String[] ingredientNames, unitNames, tagNames;
+    private final Map<String, Integer> ingredientIndex = new HashMap<>(), unitIndex = new HashMap<>(), tagIndex = new HashMap<>();
+
+    private MappedRecipeCatalog(FileChannel ch) throws IOException {
+        ByteBuffer h = ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        if (h.getInt(0) != MAGIC || h.getInt(4) != FORMAT) throw new IOException("Not a recipe catalog file (bad header)");
+        n = h.getInt(8);
+        int m = h.getInt(12);
+        tagWords = h.getInt(16);
+        long[] pos = new long[SECTIONS + 1];
+        for (int i = 0; i <= SECTIONS; i++) pos[i] = h.getLong(24 + 8 * i);
+        // sections are padded to 8 bytes, so views are trimmed to their exact lengths
+        offsets = ints(section(ch, pos, 0), n + 1);
+        ingredientIds = ints(section(ch, pos, 1), m);
+        amounts = doubles(section(ch, pos, 2), m);
+        unitIds = ints(section(ch, pos, 3), m);
+        minutes = ints(section(ch, pos, 4), n);
+        tags = longs(section(ch, pos, 5), (long) n * tagWords);
+        titleOffsets = ints(section(ch, pos, 6), n + 1);
+        titles = section(ch, pos, 7);
+        ByteBuffer d = section(ch, pos, 8);
+        ingredientNames = readStrings(d, ingredientIndex);
+        unitNames = readStrings(d, unitIndex);
+        tagNames = readStrings(d, tagIndex);
+    }
+
+    public static MappedRecipeCatalog open(Path file) throws IOException {
+        // the mappings stay valid after the channel is closed
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new MappedRecipeCatalog(ch);
+        }
+    }
+
+    private static ByteBuffer section(FileChannel ch, long[] pos, int i) throws IOException {
+        long len = pos[i + 1] - pos[i];
+        if (pos[i] < HEADER_BYTES || len < 0 || pos[i + 1] > ch.size()) throw truncated();
+        if (len > Integer.MAX_VALUE) throw new IOException("Catalog section " + i + " exceeds 2 GiB");
+        return ch.map(FileChannel.MapMode.READ_ONLY, pos[i], len).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static IntBuffer ints(ByteBuffer b, long count) throws IOException {
+        IntBuffer v = b.asIntBuffer();
+        if (v.capacity() < count) throw truncated();
+        return v.limit((int) count);
+    }
+
+    private static DoubleBuffer doubles(ByteBuffer b, long count) throws IOException {
+        DoubleBuffer v = b.asDoubleBuffer();
+        if (v.capacity() < count) throw truncated();
+        return v.limit((int) count);
+    }
+
+    private static LongBuffer longs(ByteBuffer b, long count) throws IOException {
+        LongBuffer v = b.asLongBuffer();
+        if (v.capacity() < count) throw truncated();
+        return v.limit((int) count);
+    }
+
+    private static IOException truncated() { return new IOException("Recipe catalog file is truncated or inconsistent"); }
+
+    private static String[] readStrings(ByteBuffer d, Map<String, Integer> index) {
+        int count = d.getInt();
+        String[] out = new String[count];
+        for (int i = 0; i < count; i++) {
+            byte[] b = new byte[d.getInt()];
+            d.get(b);
+            out[i] = new String(b, StandardCharsets.UTF_8);
+            index.put(out[i], i);
+        }
+        return out;
+    }
+
+    @Override public int size() { return n; }
+    @Override public int start(int r) { return offsets.get(r); }
+    @Override public int end(int r) { return offsets.get(r + 1); }
+    @Override public int ingredientId(int k) { return ingredientIds.get(k); }
+    @Override public double amount(int k) { return amounts.get(k); }
+    @Override public int unitId(int k) { return unitIds.get(k); }
+    @Override public int cookMinutes(int r) { return minutes.get(r); }
+
+    @Override public String title(int r) {
+        int s = titleOffsets.get(r), e = titleOffsets.get(r + 1);
+        byte[] b = new byte[e - s];
+        titles.get(s, b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    @Override public int distinctIngredients() { return ingredientNames.length; }
+    @Override public String ingredientName(int id) { return ingredientNames[id]; }
+    @Override public String unitName(int id) { return id < 0 ? null : unitNames[id]; }
+
+    @Override public int ingredientId(String lowercasedName) {
+        Integer id = ingredientIndex.get(lowercasedName);
+        return id == null ? -1 : id;
+    }
+
+    @Override public int unitId(String lowercasedUnit) {
+        Integer id = unitIndex.get(lowercasedUnit);
+        return id == null ? -1 : id;
+    }
+
+    @Override public long[] tagMask(Collection<String> tagList) {
+        long[] mask = new long[tagWords];
+        if (tagList != null) for (String t : tagList) {
+            Integer id = tagIndex.get(t);
+            if (id == null) return null;
+            mask[id >>> 6] |= 1L << id;
+        }
+        return mask;
+    }
+
+    @Override public boolean hasAllTags(int r, long[] mask) {
+        int base = r * tagWords;
+        for (int i = 0; i < mask.length; i++) if ((mask[i] & ~tags.get(base + i)) != 0) return false;
+        return true;
+    }
+
+    @Override public Set<String> tags(int r) {
+        Set<String> out = new LinkedHashSet<>();
+        for (int i = 0; i < tagWords; i++) {
+            for (long w = tags.get(r * tagWords + i); w != 0; w &= w - 1) out.add(tagNames[i * 64 + Long.numberOfTrailingZeros(w)]);
+        }
+        return out;
+    }
+
+    // ---------- Writing ----------
+
+    /**
+     * Streams recipes into a catalog file. Columns are spilled to temporary files next to the target
+     * and stitched together by {@link #finish()}; only the dictionaries are kept in memory.
+     */
+    public static final class Writer implements Closeable {
+        private final Path target;
+        private final Column offsetsCol, idsCol, amountsCol, unitsCol, minutesCol, tagIdsCol, titleOffsetsCol, titlesCol;
+        private final List<Column> columns = new ArrayList<>();
+        private final Map<String, Integer> ingredients = new LinkedHashMap<>(), units = new LinkedHashMap<>(), tagIds = new LinkedHashMap<>();
+        private int n, rows, titleBytes;
+
+        public Writer(Path target) throws IOException {
+            this.target = target;
+            offsetsCol = column("offsets"); idsCol = column("ids"); amountsCol = column("amounts"); unitsCol = column("units");
+            minutesCol = column("minutes"); tagIdsCol = column("tagids"); titleOffsetsCol = column("titleoffs"); titlesCol = column("titles");
+            offsetsCol.putInt(0);
+            titleOffsetsCol.putInt(0);
+        }
+
+        private Column column(String name) throws IOException {
+            Column c = new Column(Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName() + "." + name, ".tmp"));
+            columns.add(c);
+            return c;
+        }
+
+        public Writer add(Recipe r) throws IOException {
+            List<Ingredient> ings = r.ingredients == null ? List.of() : r.ingredients;
+            for (Ingredient ing : ings) row(ing.name, ing.amount, ing.unit);
+            return end(r.title, r.cookMinutes, r.tags);
+        }
+
+        public Writer add(RecipeRecord r) throws IOException {
+            for (int i = 0; i < r.ingredientCount(); i++) row(r.name(i), r.amount(i), r.unit(i));
+            return end(r.title(), r.cookMinutes(), r.tags().toSet());
+        }
+
+        public int size() { return n; }
+
+        private void row(String name, double amount, String unit) throws IOException {
+            idsCol.putInt(id(ingredients, name == null ? "" : name.toLowerCase()));
+            amountsCol.putDouble(amount);
+            unitsCol.putInt(unit == null ? NO_UNIT : id(units, unit.toLowerCase()));
+            rows++;
+        }
+
+        private Writer end(String title, int cookMinutes, Collection<String> tags) throws IOException {
+            offsetsCol.putInt(rows);
+            minutesCol.putInt(cookMinutes);
+            Set<String> distinct = tags == null ? Set.of() : new LinkedHashSet<>(tags);
+            distinct.remove(null);
+            tagIdsCol.putInt(distinct.size());
+            for (String t : distinct) tagIdsCol.putInt(id(tagIds, t));
+            byte[] b = (title == null ? "" : title).getBytes(StandardCharsets.UTF_8);
+            titlesCol.put(b);
+            titleBytes += b.length;
+            titleOffsetsCol.putInt(titleBytes);
+            n++;
+            return this;
+        }
+
+        private static int id(Map<String, Integer> dict, String key) {
+            Integer id = dict.get(key);
+            if (id == null) { id = dict.size(); dict.put(key, id); }
+            return id;
+        }
+
+        /**
+         * Writes the catalog file (atomically replacing the target) and removes the spill files; on
+         * failure nothing is left behind. A file that is mapped, by this or another process, cannot be
+         * replaced on Windows: write the new catalog under a new name and have readers open that.
+         */
+        public Path finish() throws IOException {
+            int tagWords = Math.max(1, (tagIds.size() + 63) >>> 6);
+            Path tmp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".part");
+            try {
+                write(tmp, tagWords);
+                close();
+                return Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | RuntimeException ex) {
+                try { close(); } catch (IOException e) { ex.addSuppressed(e); }
+                try { Files.deleteIfExists(tmp); } catch (IOException e) { ex.addSuppressed(e); }
+                throw ex;
+            }
+        }
+
+        private void write(Path tmp, int tagWords) throws IOException {
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long[] pos = new long[SECTIONS + 1];
+                long p = HEADER_BYTES;
+                Column[] plain = { offsetsCol, idsCol, amountsCol, unitsCol, minutesCol };
+                for (int i = 0; i < plain.length; i++) { pos[i] = p; p = align(plain[i].copyTo(out, p)); }
+                pos[5] = p; p = align(writeTags(out, p, tagWords));
+                pos[6] = p; p = align(titleOffsetsCol.copyTo(out, p));
+                pos[7] = p; p = align(titlesCol.copyTo(out, p));
+                pos[8] = p; p = writeDictionaries(out, p);
+                pos[9] = p;
+
+                ByteBuffer h = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                h.putInt(MAGIC).putInt(FORMAT).putInt(n).putInt(rows).putInt(tagWords).putInt(0);
+                for (long x : pos) h.putLong(x);
+                h.clear();
+                while (h.hasRemaining()) out.write(h, h.position());
+                out.force(false);
+            }
+        }
+
+        /** Expands each recipe's tag ids into fixed-width bitsets. */
+        private long writeTags(FileChannel out, long p, int tagWords) throws IOException {
+            Column.Ints ids = tagIdsCol.readBack();
+            ByteBuffer buf = ByteBuffer.allocate(Math.max(1 << 16, tagWords * 8)).order(ByteOrder.LITTLE_ENDIAN);
+            long[] words = new long[tagWords];
+            for (int r = 0; r < n; r++) {
+                Arrays.fill(words, 0);
+                for (int c = ids.get(); c > 0; c--) { int id = ids.get(); words[id >>> 6] |= 1L << id; }
+                if (buf.remaining() < tagWords * 8) p = drain(out, buf, p);
+                for (long w : words) buf.putLong(w);
+            }
+            return drain(out, buf, p);
+        }
+
+        private long writeDictionaries(FileChannel out, long p) throws IOException {
+            ByteBuffer buf = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            for (Map<String, Integer> dict : List.of(ingredients, units, tagIds)) {
+                if (buf.remaining() < 4) p = drain(out, buf, p);
+                buf.putInt(dict.size());
+                for (String s : dict.keySet()) {
+                    byte[] b = s.getBytes(StandardCharsets.UTF_8);
+                    if (buf.remaining() < 4 + b.length) p = drain(out, buf, p);
+                    if (buf.capacity() < 4 + b.length) buf = ByteBuffer.allocate(4 + b.length).order(ByteOrder.LITTLE_ENDIAN);
+                    buf.putInt(b.length).put(b);
+                }
+            }
+            return drain(out, buf, p);
+        }
+
+        private static long drain(FileChannel out, ByteBuffer buf, long p) throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) p += out.write(buf, p);
+            buf.clear();
+            return p;
+        }
+
+        private static long align(long p) { return (p + 7) & ~7L; }
+
+        /** Deletes the spill files; a writer that was not finished leaves no catalog behind. */
+        @Override public void close() throws IOException {
+            for (Column c : columns) c.delete();
+        }
+    }
+
+    /** Append-only little-endian spill file. */
+    private static final class Column {
+        private final Path file;
+        private final FileChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        private long written;
+
+        Column(Path file) throws IOException {
+            this.file = file;
+            this.ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        void putInt(int v) throws IOException { room(4); buf.putInt(v); }
+        void putDouble(double v) throws IOException { room(8); buf.putDouble(v); }
+
+        void put(byte[] b) throws IOException {
+            for (int off = 0; off < b.length; ) {
+                room(1);
+                int len = Math.min(buf.remaining(), b.length - off);
+                buf.put(b, off, len);
+                off += len;
+            }
+        }
+
+        private void room(int bytes) throws IOException { if (buf.remaining() < bytes) flush(); }
+
+        private void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) written += ch.write(buf, written);
+            buf.clear();
+        }
+
+        /** Appends this column to {@code out} at {@code p}; returns the end position. */
+        long copyTo(FileChannel out, long p) throws IOException {
+            flush();
+            for (long done = 0; done < written; ) done += ch.transferTo(done, written - done, out.position(p + done));
+            return p + written;
+        }
+
+        /** Reads the ints back from the start through a heap buffer; not mapped, so the file stays deletable. */
+        Ints readBack() throws IOException {
+            flush();
+            return new Ints();
+        }
+
+        final class Ints {
+            private final ByteBuffer in = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN).limit(0);
+            private long pos;
+
+            int get() throws IOException {
+                if (in.remaining() < 4) {
+                    in.compact();
+                    while (in.position() < 4) {
+                        int r = ch.read(in, pos);
+                        if (r < 0) throw new EOFException(file.toString());
+                        pos += r;
+                    }
+                    in.flip();
+                }
+                return in.getInt();
+            }
+        }
+
+        void delete() throws IOException {
+            if (ch.isOpen()) ch.close();
+            Files.deleteIfExists(file);
+        }
+    }
+}
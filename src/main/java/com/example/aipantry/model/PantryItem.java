@@ -1,14 +1,89 @@
 package com.example.aipantry.model;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.time.LocalDate;
+import java.util.*;
 
 public class PantryItem {
     public String name;
     public double quantity;
     public String unit;
     public LocalDate expiresOn; // nullable
+    /** Lots in FEFO order when there is more than one; {@link #quantity} is their total and {@link #expiresOn} the earliest date. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public List<Lot> lots;
 
     public PantryItem() {}
     public PantryItem(String name, double quantity, String unit, LocalDate expiresOn) {
         this.name = name; this.quantity = quantity; this.unit = unit; this.expiresOn = expiresOn;
     }
+
+    /**
+     * JSON entry point: saved lots are authoritative, so hand-edited or older files get them sorted FEFO
+     * and {@link #quantity}/{@link #expiresOn} recomputed from them, like {@link #ofLots}.
+     */
+    @JsonCreator
+    static PantryItem fromJson(@JsonProperty("name") String name, @JsonProperty("quantity") double quantity,
+                               @JsonProperty("unit") String unit, @JsonProperty("expiresOn") LocalDate expiresOn,
+                               @JsonProperty("lots") List<Lot> lots) {
+        if (lots == null || lots.isEmpty()) return new PantryItem(name, quantity, unit, expiresOn);
+        return ofLots(name, unit, lots);
+    }
+
+    /** Builds an item from lots: empty lots are dropped and lots with the same date merged. */
+    public static PantryItem ofLots(String name, String unit, Collection<Lot> lots) {
+        TreeMap<LocalDate, Double> byDate = new TreeMap<>(Comparator.nullsLast(Comparator.naturalOrder()));
+        for (Lot l : lots) if (l != null && l.quantity() > 0) byDate.merge(l.expiresOn(), l.quantity(), Double::sum);
+        List<Lot> sorted = new ArrayList<>(byDate.size());
+        double total = 0;
+        for (var e : byDate.entrySet()) { sorted.add(new Lot(e.getValue(), e.getKey())); total += e.getValue(); }
+        PantryItem p = new PantryItem(name, total, unit, sorted.isEmpty() ? null : sorted.get(0).expiresOn());
+        if (sorted.size() > 1) p.lots = List.copyOf(sorted);
+        return p;
+    }
+
+    /** Lots soonest-expiring first; a plain item is a single lot. */
+    public List<Lot> lots() {
+        if (lots != null && !lots.isEmpty()) return lots;
+        return quantity > 0 ? List.of(new Lot(quantity, expiresOn)) : List.of();
+    }
+
+    public PantryItem withLot(Lot lot) {
+        List<Lot> all = new ArrayList<>(lots());
+        all.add(lot);
+        return ofLots(name, unit, all);
+    }
+
+    /** Takes {@code amount} first-expired-first-out; never goes below zero. */
+    public PantryItem consume(double amount) {
+        List<Lot> left = new ArrayList<>();
+        double need = Math.max(0, amount);
+        for (Lot l : lots()) {
+            double take = Math.min(need, l.quantity());
+            need -= take;
+            if (l.quantity() > take) left.add(new Lot(l.quantity() - take, l.expiresOn()));
+        }
+        return ofLots(name, unit, left);
+    }
+
+    /** Sets the total: a decrease is consumed FEFO, an increase goes to the latest lot. */
+    public PantryItem withQuantity(double total) {
+        if (total <= quantity) return consume(quantity - total);
+        List<Lot> all = new ArrayList<>(lots());
+        if (all.isEmpty()) return new PantryItem(name, total, unit, expiresOn);
+        Lot last = all.remove(all.size() - 1);
+        all.add(new Lot(last.quantity() + total - quantity, last.expiresOn()));
+        return ofLots(name, unit, all);
+    }
+
+    public PantryItem withName(String newName) { return copy(newName, unit); }
+    public PantryItem withUnit(String newUnit) { return copy(name, newUnit); }
+
+    private PantryItem copy(String n, String u) {
+        PantryItem p = new PantryItem(n, quantity, u, expiresOn);
+        p.lots = lots;
+        return p;
+    }
 }
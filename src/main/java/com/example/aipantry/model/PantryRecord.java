@@ -0,0 +1,21 @@
+package com.example.aipantry.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.LocalDate;
+
+/**
+ * Immutable pantry entry with interned name and unit; Jackson maps it from the same JSON as {@link PantryItem}.
+ * Lots are not kept: a record holds the total quantity and the earliest expiry.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record PantryRecord(String name, double quantity, String unit, LocalDate expiresOn) {
+    public PantryRecord {
+        name = Symbols.NAMES.intern(name);
+        unit = Symbols.UNITS.intern(unit);
+    }
+
+    public static PantryRecord from(PantryItem p) { return new PantryRecord(p.name, p.quantity, p.unit, p.expiresOn); }
+
+    public PantryItem toItem() { return new PantryItem(name, quantity, unit, expiresOn); }
+}
@@ -0,0 +1,280 @@
+package com.example.aipantry.model;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable hash array mapped trie. {@link #plus} and {@link #minus} return a new map that shares
+ * every untouched node with this one, so keeping many versions costs O(log32 n) nodes per edit.
+ * Keys and values must not be null (a null key marks a child slot). Iteration order is hash order, not insertion order.
+ */
+public final class PersistentMap<K, V> implements Iterable<Map.Entry<K, V>> {
+    /** Receives the entries that differ between two versions; see {@link #diff}. */
+    public interface Differ<K, V> {
+        void added(K key, V value);
+        void removed(K key, V value);
+        void changed(K key, V oldValue, V newValue);
+    }
+
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(Bitmap.EMPTY, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentMap(Node root, int size) { this.root = root; this.size = size; }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() { return (PersistentMap<K, V>) EMPTY; }
+
+    public static <K, V> PersistentMap<K, V> of(Map<? extends K, ? extends V> m) {
+        PersistentMap<K, V> out = empty();
+        for (var e : m.entrySet()) out = out.plus(e.getKey(), e.getValue());
+        return out;
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    public boolean containsKey(Object key) { return get(key) != null; }
+
+    @SuppressWarnings("unchecked")
+    public V get(Object key) { return (V) root.get(hash(key), key, 0); }
+
+    public PersistentMap<K, V> plus(K key, V value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        boolean[] added = new boolean[1];
+        Node r = root.put(hash(key), key, value, 0, added);
+        return r == root ? this : new PersistentMap<>(r, added[0] ? size + 1 : size);
+    }
+
+    public PersistentMap<K, V> minus(Object key) {
+        Node r = root.remove(hash(key), key, 0);
+        return r == root ? this : new PersistentMap<>(r, size - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        root.forEach((BiConsumer<Object, Object>) action);
+    }
+
+    @Override public Iterator<Map.Entry<K, V>> iterator() {
+        List<Map.Entry<K, V>> entries = new ArrayList<>(size);
+        forEach((k, v) -> entries.add(new AbstractMap.SimpleImmutableEntry<>(k, v)));
+        return entries.iterator();
+    }
+
+    /** Read-only {@link Map} over this version; lookups go straight to the trie. */
+    public Map<K, V> asMap() {
+        PersistentMap<K, V> self = this;
+        return new AbstractMap<>() {
+            @Override public int size() { return size; }
+            @Override public boolean containsKey(Object key) { return self.containsKey(key); }
+            @Override public V get(Object key) { return self.get(key); }
+            @Override public Set<Entry<K, V>> entrySet() {
+                return new AbstractSet<>() {
+                    @Override public Iterator<Entry<K, V>> iterator() { return self.iterator(); }
+                    @Override public int size() { return size; }
+                };
+            }
+        };
+    }
+
+    /**
+     * Reports how {@code to} differs from this map. Subtrees the two versions share are skipped
+     * by reference, so diffing neighbouring versions costs about the size of the edit.
+     */
+    @SuppressWarnings("unchecked")
+    public void diff(PersistentMap<K, V> to, Differ<K, V> out) {
+        diffNodes(root, to.root, (Differ<Object, Object>) out);
+    }
+
+    // ---------- Trie ----------
+
+    private static int hash(Object key) {
+        int h = Objects.hashCode(key);
+        return h ^ (h >>> 16);
+    }
+
+    private abstract static class Node {
+        abstract Object get(int hash, Object key, int shift);
+        abstract Node put(int hash, Object key, Object value, int shift, boolean[] added);
+        /** Returns this when the key is absent. */
+        abstract Node remove(int hash, Object key, int shift);
+        abstract void forEach(BiConsumer<Object, Object> action);
+        abstract int count();
+    }
+
+    /** Up to 32 slots selected by 5 hash bits; each slot holds key,value or null,child. */
+    private static final class Bitmap extends Node {
+        static final Bitmap EMPTY = new Bitmap(0, new Object[0]);
+        final int bitmap;
+        final Object[] a;
+
+        Bitmap(int bitmap, Object[] a) { this.bitmap = bitmap; this.a = a; }
+
+        static int bit(int hash, int shift) { return 1 << ((hash >>> shift) & 31); }
+        int index(int bit) { return 2 * Integer.bitCount(bitmap & (bit - 1)); }
+
+        @Override Object get(int hash, Object key, int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) return null;
+            int i = index(bit);
+            if (a[i] == null) return ((Node) a[i + 1]).get(hash, key, shift + 5);
+            return Objects.equals(key, a[i]) ? a[i + 1] : null;
+        }
+
+        @Override Node put(int hash, Object key, Object value, int shift, boolean[] added) {
+            int bit = bit(hash, shift);
+            int i = index(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] n = new Object[a.length + 2];
+                System.arraycopy(a, 0, n, 0, i);
+                n[i] = key; n[i + 1] = value;
+                System.arraycopy(a, i, n, i + 2, a.length - i);
+                added[0] = true;
+                return new Bitmap(bitmap | bit, n);
+            }
+            Object k0 = a[i], v0 = a[i + 1];
+            if (k0 == null) {
+                Node child = ((Node) v0).put(hash, key, value, shift + 5, added);
+                return child == v0 ? this : with(i + 1, child, null);
+            }
+            if (Objects.equals(key, k0)) return v0 == value ? this : with(i + 1, value, k0);
+            added[0] = true;
+            return with(i + 1, pair(shift + 5, k0, v0, hash, key, value), null);
+        }
+
+        @Override Node remove(int hash, Object key, int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) return this;
+            int i = index(bit);
+            Object k0 = a[i], v0 = a[i + 1];
+            if (k0 == null) {
+                Node child = ((Node) v0).remove(hash, key, shift + 5);
+                if (child == v0) return this;
+                if (child.count() == 0) return without(bit, i);
+                // a child left holding one entry is pulled up so equal maps keep the same shape
+                if (child instanceof Bitmap b && b.a.length == 2 && b.a[0] != null) return with(i + 1, b.a[1], b.a[0]);
+                if (child instanceof Collision c && c.kv.length == 2) return with(i + 1, c.kv[1], c.kv[0]);
+                return with(i + 1, child, null);
+            }
+            return Objects.equals(key, k0) ? without(bit, i) : this;
+        }
+
+        private Bitmap with(int valueSlot, Object value, Object key) {
+            Object[] n = a.clone();
+            n[valueSlot - 1] = key; n[valueSlot] = value;
+            return new Bitmap(bitmap, n);
+        }
+
+        private Bitmap without(int bit, int i) {
+            Object[] n = new Object[a.length - 2];
+            System.arraycopy(a, 0, n, 0, i);
+            System.arraycopy(a, i + 2, n, i, a.length - i - 2);
+            return new Bitmap(bitmap & ~bit, n);
+        }
+
+        @Override void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < a.length; i += 2) {
+                if (a[i] == null) ((Node) a[i + 1]).forEach(action);
+                else action.accept(a[i], a[i + 1]);
+            }
+        }
+
+        @Override int count() { return a.length / 2; }
+    }
+
+    /** Entries whose full 32-bit hashes collide. */
+    private static final class Collision extends Node {
+        final int hash;
+        final Object[] kv;
+
+        Collision(int hash, Object[] kv) { this.hash = hash; this.kv = kv; }
+
+        int find(Object key) {
+            for (int i = 0; i < kv.length; i += 2) if (Objects.equals(key, kv[i])) return i;
+            return -1;
+        }
+
+        @Override Object get(int hash, Object key, int shift) {
+            int i = hash == this.hash ? find(key) : -1;
+            return i < 0 ? null : kv[i + 1];
+        }
+
+        @Override Node put(int hash, Object key, Object value, int shift, boolean[] added) {
+            if (hash != this.hash) {
+                // split: re-home this bucket one level down next to the new key
+                Node n = new Bitmap(Bitmap.bit(this.hash, shift), new Object[] { null, this });
+                return n.put(hash, key, value, shift, added);
+            }
+            int i = find(key);
+            if (i >= 0) {
+                if (kv[i + 1] == value) return this;
+                Object[] n = kv.clone(); n[i + 1] = value;
+                return new Collision(hash, n);
+            }
+            Object[] n = Arrays.copyOf(kv, kv.length + 2);
+            n[kv.length] = key; n[kv.length + 1] = value;
+            added[0] = true;
+            return new Collision(hash, n);
+        }
+
+        @Override Node remove(int hash, Object key, int shift) {
+            int i = hash == this.hash ? find(key) : -1;
+            if (i < 0) return this;
+            Object[] n = new Object[kv.length - 2];
+            System.arraycopy(kv, 0, n, 0, i);
+            System.arraycopy(kv, i + 2, n, i, kv.length - i - 2);
+            return new Collision(hash, n);
+        }
+
+        @Override void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < kv.length; i += 2) action.accept(kv[i], kv[i + 1]);
+        }
+
+        @Override int count() { return kv.length / 2; }
+    }
+
+    private static Node pair(int shift, Object k1, Object v1, int h2, Object k2, Object v2) {
+        int h1 = hash(k1);
+        if (h1 == h2) return new Collision(h1, new Object[] { k1, v1, k2, v2 });
+        boolean[] ignore = new boolean[1];
+        return Bitmap.EMPTY.put(h1, k1, v1, shift, ignore).put(h2, k2, v2, shift, ignore);
+    }
+
+    // ---------- Diff ----------
+
+    private static void diffNodes(Node from, Node to, Differ<Object, Object> out) {
+        if (from == to) return;
+        if (!(from instanceof Bitmap a) || !(to instanceof Bitmap b)) { diffEntries(from, to, out); return; }
+        for (int bits = a.bitmap | b.bitmap; bits != 0; bits &= bits - 1) {
+            int bit = bits & -bits;
+            boolean inA = (a.bitmap & bit) != 0, inB = (b.bitmap & bit) != 0;
+            int i = inA ? a.index(bit) : -1, j = inB ? b.index(bit) : -1;
+            if (!inB) { slot(a, i).forEach(out::removed); continue; }
+            if (!inA) { slot(b, j).forEach(out::added); continue; }
+            Object ka = a.a[i], va = a.a[i + 1], kb = b.a[j], vb = b.a[j + 1];
+            if (ka == null && kb == null) diffNodes((Node) va, (Node) vb, out);
+            else if (ka != null && kb != null && Objects.equals(ka, kb)) { if (va != vb) out.changed(ka, va, vb); }
+            else diffEntries(slot(a, i), slot(b, j), out);
+        }
+    }
+
+    /** A slot as a node, wrapping an inline entry. */
+    private static Node slot(Bitmap n, int i) {
+        if (n.a[i] == null) return (Node) n.a[i + 1];
+        return new Collision(hash(n.a[i]), new Object[] { n.a[i], n.a[i + 1] });
+    }
+
+    /** Fallback for slots whose shapes differ: compare the (small) entry sets directly. */
+    private static void diffEntries(Node from, Node to, Differ<Object, Object> out) {
+        Map<Object, Object> before = new HashMap<>();
+        from.forEach(before::put);
+        to.forEach((k, v) -> {
+            Object old = before.remove(k);
+            if (old == null) out.added(k, v);
+            else if (old != v) out.changed(k, old, v);
+        });
+        before.forEach(out::removed);
+    }
+}
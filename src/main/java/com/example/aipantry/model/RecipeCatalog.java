@@ -0,0 +1,151 @@
+package com.example.aipantry.model;
+
+import java.util.*;
+
+/**
+ * Struct-of-arrays recipe store for whole-catalog scoring. Ingredients of recipe {@code r} live at
+ * {@code [offsets[r], offsets[r+1])} of the ingredient columns; names and units are ids into the
+ * catalog's own dictionaries (lowercased, so lookups match {@code RuleEngine}'s case rules).
+ * Immutable once built; recipe {@code i} corresponds to the i-th recipe given to the builder.
+ */
+public final class RecipeCatalog implements RecipeColumns {
+    final String[] titles;
+    final int[] cookMinutes;
+    final TagSet[] tags;
+    final int[] offsets;
+    final int[] ingredientIds;
+    final double[] amounts;
+    final int[] unitIds;
+    final String[] ingredientNames;  // by ingredient id, as first seen
+    final Map<String, Integer> ingredientIndex;
+    final Map<String, Integer> unitIndex;
+    final String[] unitNames;
+    final TagDictionary tagDictionary;
+
+    private RecipeCatalog(Builder b) {
+        int n = b.size;
+        titles = Arrays.copyOf(b.titles, n);
+        cookMinutes = Arrays.copyOf(b.cookMinutes, n);
+        tags = Arrays.copyOf(b.tags, n);
+        offsets = Arrays.copyOf(b.offsets, n + 1);
+        int m = offsets[n];
+        ingredientIds = Arrays.copyOf(b.ingredientIds, m);
+        amounts = Arrays.copyOf(b.amounts, m);
+        unitIds = Arrays.copyOf(b.unitIds, m);
+        ingredientNames = b.ingredientNames.toArray(new String[0]);
+        ingredientIndex = b.ingredientIndex;
+        unitNames = b.unitNames.toArray(new String[0]);
+        unitIndex = b.unitIndex;
+        tagDictionary = b.dict;
+    }
+
+    public static RecipeCatalog of(List<Recipe> recipes) {
+        Builder b = new Builder();
+        for (Recipe r : recipes) b.add(r);
+        return b.build();
+    }
+
+    @Override public int size() { return titles.length; }
+    public int ingredientCount() { return ingredientIds.length; }
+    @Override public int distinctIngredients() { return ingredientNames.length; }
+    @Override public String title(int r) { return titles[r]; }
+    @Override public int cookMinutes(int r) { return cookMinutes[r]; }
+    @Override public Set<String> tags(int r) { return tags[r].toSet(); }
+    public TagSet tagSet(int r) { return tags[r]; }
+    public TagDictionary tagDictionary() { return tagDictionary; }
+    @Override public int start(int r) { return offsets[r]; }
+    @Override public int end(int r) { return offsets[r + 1]; }
+    @Override public int ingredientId(int k) { return ingredientIds[k]; }
+    @Override public double amount(int k) { return amounts[k]; }
+    @Override public int unitId(int k) { return unitIds[k]; }
+    @Override public String ingredientName(int id) { return ingredientNames[id]; }
+    @Override public String unitName(int id) { return id < 0 ? null : unitNames[id]; }
+
+    @Override public int ingredientId(String lowercasedName) {
+        Integer id = ingredientIndex.get(lowercasedName);
+        return id == null ? -1 : id;
+    }
+
+    @Override public int unitId(String lowercasedUnit) {
+        Integer id = unitIndex.get(lowercasedUnit);
+        return id == null ? -1 : id;
+    }
+
+    @Override public long[] tagMask(Collection<String> tagNames) {
+        TagSet t = tagDictionary.lookup(tagNames);
+        return t == null ? null : t.words.clone();
+    }
+
+    @Override public boolean hasAllTags(int r, long[] mask) { return tags[r].containsAll(mask); }
+
+    /** Accumulates recipes into growable columns. Not thread-safe. */
+    public static final class Builder {
+        private final TagDictionary dict;
+        private String[] titles = new String[64];
+        private int[] cookMinutes = new int[64];
+        private TagSet[] tags = new TagSet[64];
+        private int[] offsets = new int[65];
+        private int[] ingredientIds = new int[256];
+        private double[] amounts = new double[256];
+        private int[] unitIds = new int[256];
+        private int size;
+        private final List<String> ingredientNames = new ArrayList<>();
+        private final Map<String, Integer> ingredientIndex = new HashMap<>();
+        private final List<String> unitNames = new ArrayList<>();
+        private final Map<String, Integer> unitIndex = new HashMap<>();
+
+        public Builder() { this(new TagDictionary()); }
+        public Builder(TagDictionary dict) { this.dict = dict; }
+
+        public Builder add(Recipe r) {
+            List<Ingredient> ings = r.ingredients == null ? List.of() : r.ingredients;
+            begin(r.title, r.cookMinutes, r.tags);
+            for (Ingredient ing : ings) ingredient(ing.name, ing.amount, ing.unit);
+            return this;
+        }
+
+        public Builder add(RecipeRecord r) {
+            begin(r.title(), r.cookMinutes(), r.tags().toSet());
+            for (int i = 0; i < r.ingredientCount(); i++) ingredient(r.name(i), r.amount(i), r.unit(i));
+            return this;
+        }
+
+        public RecipeCatalog build() { return new RecipeCatalog(this); }
+
+        private void begin(String title, int minutes, Collection<String> tagNames) {
+            if (size == titles.length) {
+                int cap = size * 2;
+                titles = Arrays.copyOf(titles, cap);
+                cookMinutes = Arrays.copyOf(cookMinutes, cap);
+                tags = Arrays.copyOf(tags, cap);
+                offsets = Arrays.copyOf(offsets, cap + 1);
+            }
+            titles[size] = title;
+            cookMinutes[size] = minutes;
+            tags[size] = dict.of(tagNames);
+            offsets[size + 1] = offsets[size];
+            size++;
+        }
+
+        private void ingredient(String name, double amount, String unit) {
+            int k = offsets[size];
+            if (k == ingredientIds.length) {
+                ingredientIds = Arrays.copyOf(ingredientIds, k * 2);
+                amounts = Arrays.copyOf(amounts, k * 2);
+                unitIds = Arrays.copyOf(unitIds, k * 2);
+            }
+            ingredientIds[k] = id(name == null ? "" : name.toLowerCase(), ingredientNames, ingredientIndex);
+            amounts[k] = amount;
+            unitIds[k] = unit == null ? NO_UNIT : id(unit.toLowerCase(), unitNames, unitIndex);
+            offsets[size] = k + 1;
+        }
+
+        private static int id(String key, List<String> names, Map<String, Integer> index) {
+            Integer id = index.get(key);
+            if (id != null) return id;
+            index.put(key, names.size());
+            names.add(key);
+            return names.size() - 1;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.aipantry.model;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Read-only columnar view of a recipe catalog, shared by the on-heap {@link RecipeCatalog} and the
+ * memory-mapped {@link MappedRecipeCatalog}. Ingredients of recipe {@code r} are rows
+ * {@code [start(r), end(r))}; ingredient and unit ids index the catalog's lowercased dictionaries.
+ */
+public interface RecipeColumns {
+    /** Unit id of an ingredient or pantry item without a unit; matches every unit. */
+    int NO_UNIT = -1;
+    /** Unit id of a pantry unit no recipe uses; matches only {@link #NO_UNIT}. */
+    int OTHER_UNIT = -2;
+
+    int size();
+    int start(int r);
+    int end(int r);
+    int ingredientId(int k);
+    double amount(int k);
+    int unitId(int k);
+    int cookMinutes(int r);
+    String title(int r);
+
+    int distinctIngredients();
+    String ingredientName(int id);
+    /** Ingredient id for a lowercased name, or -1. */
+    int ingredientId(String lowercasedName);
+    String unitName(int id);
+    /** Unit id for a lowercased unit, or -1 when unknown. */
+    int unitId(String lowercasedUnit);
+
+    /** Bit mask of the tags in this catalog's dictionary, or null if any tag is unknown (so no recipe has them all). */
+    long[] tagMask(Collection<String> tags);
+    boolean hasAllTags(int r, long[] mask);
+    Set<String> tags(int r);
+
+    /** Materializes one recipe as a POJO; names are lowercased. */
+    default Recipe recipe(int r) {
+        List<Ingredient> ings = new ArrayList<>(end(r) - start(r));
+        for (int k = start(r); k < end(r); k++) ings.add(new Ingredient(ingredientName(ingredientId(k)), amount(k), unitName(unitId(k))));
+        return new Recipe(title(r), ings, cookMinutes(r), tags(r));
+    }
+
+    /**
+     * Projects a pantry onto this catalog's ingredient ids so scoring is array lookups only.
+     * Items are found by pantry key (as {@code pantry.get(name.toLowerCase())} would); perishables
+     * (expiring within 3 days of {@code today}) by item name.
+     */
+    default Stock bind(Map<String, PantryItem> pantry, LocalDate today) {
+        Stock s = new Stock(distinctIngredients());
+        LocalDate soon = today.plusDays(3);
+        for (var e : pantry.entrySet()) {
+            PantryItem item = e.getValue();
+            if (item == null) continue;
+            int id = e.getKey() == null ? -1 : ingredientId(e.getKey());
+            if (id >= 0) {
+                s.quantity[id] = item.quantity;
+                int u = item.unit == null ? NO_UNIT : unitId(item.unit.toLowerCase());
+                s.unit[id] = item.unit == null ? NO_UNIT : u < 0 ? OTHER_UNIT : u;
+            }
+            if (item.expiresOn != null && item.expiresOn.isBefore(soon) && item.name != null) {
+                int pid = ingredientId(item.name.toLowerCase());
+                if (pid >= 0) s.perishable[pid] = true;
+            }
+        }
+        return s;
+    }
+
+    /** Pantry state per ingredient id; quantity is NaN where the pantry has no such item. */
+    final class Stock {
+        public final double[] quantity;
+        public final int[] unit;
+        public final boolean[] perishable;
+        /** Pantry items that can stand in for an ingredient, or null when there are none. */
+        public Substitutes substitutes;
+
+        public Stock(int n) {
+            quantity = new double[n];
+            Arrays.fill(quantity, Double.NaN);
+            unit = new int[n];
+            perishable = new boolean[n];
+        }
+    }
+
+    /**
+     * Stand-ins per ingredient id, best first: rows {@code [start[id], start[id+1])}. Quantity and unit
+     * id are the pantry item's; it covers {@code amount} when it holds {@code amount * ratio}, and earns
+     * {@code credit} (0..1) of a real match.
+     */
+    final class Substitutes {
+        public final int[] start;
+        public final double[] quantity;
+        public final int[] unit;
+        public final double[] ratio;
+        public final double[] credit;
+
+        public Substitutes(int[] start, double[] quantity, int[] unit, double[] ratio, double[] credit) {
+            this.start = start; this.quantity = quantity; this.unit = unit; this.ratio = ratio; this.credit = credit;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.aipantry.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.*;
+
+/**
+ * Compact immutable recipe for large catalogs. Ingredients are flat parallel arrays,
+ * names and units are interned through {@link Symbols}, and tags are a shared {@link TagSet}.
+ * Reads and writes the same JSON as {@link Recipe}; {@link #toRecipe()} gives the UI its POJO.
+ */
+public final class RecipeRecord {
+    private final String title;
+    private final int cookMinutes;
+    private final TagSet tags;
+    private final String[] names;
+    private final double[] amounts;
+    private final String[] units;
+
+    public RecipeRecord(String title, int cookMinutes, TagSet tags, String[] names, double[] amounts, String[] units) {
+        if (names.length != amounts.length || names.length != units.length) throw new IllegalArgumentException("Ingredient arrays differ in length");
+        this.title = title; this.cookMinutes = cookMinutes; this.tags = tags;
+        this.names = names.clone(); this.amounts = amounts.clone(); this.units = units.clone();
+        for (int i = 0; i < this.names.length; i++) {
+            this.names[i] = Symbols.NAMES.intern(this.names[i]);
+            this.units[i] = Symbols.UNITS.intern(this.units[i]);
+        }
+    }
+
+    @JsonCreator
+    static RecipeRecord fromJson(@JsonProperty("title") String title,
+                                 @JsonProperty("cookMinutes") int cookMinutes,
+                                 @JsonProperty("tags") Collection<String> tags,
+                                 @JsonProperty("ingredients") List<Ingredient> ingredients) {
+        return of(title, cookMinutes, tags, ingredients, TagDictionary.shared());
+    }
+
+    public static RecipeRecord of(String title, int cookMinutes, Collection<String> tags, List<Ingredient> ingredients, TagDictionary dict) {
+        int n = ingredients == null ? 0 : ingredients.size();
+        String[] names = new String[n]; double[] amounts = new double[n]; String[] units = new String[n];
+        for (int i = 0; i < n; i++) {
+            Ingredient ing = ingredients.get(i);
+            names[i] = ing.name; amounts[i] = ing.amount; units[i] = ing.unit;
+        }
+        return new RecipeRecord(title, cookMinutes, dict.of(tags), names, amounts, units);
+    }
+
+    public static RecipeRecord from(Recipe r) { return of(r.title, r.cookMinutes, r.tags, r.ingredients, TagDictionary.shared()); }
+
+    /** Mutable copy for the UI and the existing services. */
+    public Recipe toRecipe() {
+        return new Recipe(title, new ArrayList<>(getIngredients()), cookMinutes, tags.toSet());
+    }
+
+    @JsonProperty("title") public String title() { return title; }
+    @JsonProperty("cookMinutes") public int cookMinutes() { return cookMinutes; }
+    @JsonIgnore public TagSet tags() { return tags; }
+    @JsonIgnore public int ingredientCount() { return names.length; }
+    public String name(int i) { return names[i]; }
+    public double amount(int i) { return amounts[i]; }
+    public String unit(int i) { return units[i]; }
+
+    @JsonProperty("tags") Set<String> getTags() { return tags.toSet(); }
+
+    @JsonProperty("ingredients") List<Ingredient> getIngredients() {
+        List<Ingredient> out = new ArrayList<>(names.length);
+        for (int i = 0; i < names.length; i++) out.add(new Ingredient(names[i], amounts[i], units[i]));
+        return out;
+    }
+
+    @Override public String toString() { return title + " (" + cookMinutes + "m)"; }
+}
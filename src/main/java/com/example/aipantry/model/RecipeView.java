@@ -0,0 +1,30 @@
+package com.example.aipantry.model;
+
+/**
+ * Reusable cursor over one recipe of a {@link RecipeColumns}. Reads the columns in place, so walking
+ * a large (e.g. mapped) catalog allocates nothing until {@link #toRecipe()} is called for the few
+ * recipes actually shown.
+ */
+public final class RecipeView {
+    private final RecipeColumns catalog;
+    private int r;
+
+    public RecipeView(RecipeColumns catalog) { this.catalog = catalog; }
+
+    public RecipeView at(int recipe) {
+        if (recipe < 0 || recipe >= catalog.size()) throw new IndexOutOfBoundsException("recipe " + recipe);
+        this.r = recipe;
+        return this;
+    }
+
+    public int index() { return r; }
+    public String title() { return catalog.title(r); }
+    public int cookMinutes() { return catalog.cookMinutes(r); }
+    public int ingredientCount() { return catalog.end(r) - catalog.start(r); }
+    public String ingredientName(int i) { return catalog.ingredientName(catalog.ingredientId(catalog.start(r) + i)); }
+    public double amount(int i) { return catalog.amount(catalog.start(r) + i); }
+    public String unit(int i) { return catalog.unitName(catalog.unitId(catalog.start(r) + i)); }
+    public boolean hasAllTags(long[] mask) { return mask != null && catalog.hasAllTags(r, mask); }
+
+    public Recipe toRecipe() { return catalog.recipe(r); }
+}
@@ -0,0 +1,13 @@
+package com.example.aipantry.model;
+
+/**
+ * One edge of the substitution graph: an ingredient can be replaced by {@code with}, using
+ * {@code ratio} of it per unit of the original and losing {@code penalty} (0..1) of the credit
+ * a real match would earn. A missing ratio means 1.
+ */
+public record Substitution(String with, double ratio, double penalty) {
+    public Substitution {
+        if (!(ratio > 0)) ratio = 1;
+        penalty = Math.max(0, Math.min(1, penalty));
+    }
+}
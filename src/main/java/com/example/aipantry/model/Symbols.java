@@ -0,0 +1,19 @@
+package com.example.aipantry.model;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Shared intern table so each distinct name or unit is held by one String instance. Thread-safe. */
+public final class Symbols {
+    public static final Symbols NAMES = new Symbols();
+    public static final Symbols UNITS = new Symbols();
+
+    private final ConcurrentHashMap<String, String> table = new ConcurrentHashMap<>();
+
+    public String intern(String s) {
+        if (s == null) return null;
+        String prev = table.putIfAbsent(s, s);
+        return prev == null ? s : prev;
+    }
+
+    public int size() { return table.size(); }
+}
@@ -0,0 +1,73 @@
+package com.example.aipantry.model;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns each distinct tag a bit and hands out {@link TagSet}s over those bits.
+ * Equal tag sets are interned, so recipes with the same tags share one instance. Thread-safe.
+ */
+public final class TagDictionary {
+    private static final TagDictionary SHARED = new TagDictionary();
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] tags = new String[0];
+    private final Map<TagSet, TagSet> sets = new ConcurrentHashMap<>();
+
+    /** Dictionary used by the compact records when none is given (e.g. Jackson). */
+    public static TagDictionary shared() { return SHARED; }
+
+    public int size() { return tags.length; }
+
+    /** Bit for the tag, or -1 if it was never seen. */
+    public int find(String tag) {
+        Integer id = tag == null ? null : ids.get(tag);
+        return id == null ? -1 : id;
+    }
+
+    /** Bit for the tag, assigning the next one on first sight. */
+    public int id(String tag) {
+        Integer id = ids.get(tag);
+        if (id != null) return id;
+        synchronized (this) {
+            id = ids.get(tag);
+            if (id != null) return id;
+            int next = tags.length;
+            String[] t = Arrays.copyOf(tags, next + 1);
+            t[next] = Symbols.NAMES.intern(tag);
+            tags = t; // publish the name before the id becomes visible
+            ids.put(t[next], next);
+            return next;
+        }
+    }
+
+    public String tag(int id) { return tags[id]; }
+
+    public TagSet of(Collection<String> tagNames) {
+        long[] words = new long[1];
+        if (tagNames != null) for (String t : tagNames) {
+            if (t == null) continue;
+            int id = id(t);
+            if ((id >>> 6) >= words.length) words = Arrays.copyOf(words, (id >>> 6) + 1);
+            words[id >>> 6] |= 1L << id;
+        }
+        return intern(new TagSet(this, words));
+    }
+
+    /** Set of already-known tags without adding any; null if a tag was never seen (so no set contains it). */
+    public TagSet lookup(Collection<String> tagNames) {
+        long[] words = new long[Math.max(1, (tags.length + 63) >>> 6)];
+        if (tagNames != null) for (String t : tagNames) {
+            int id = find(t);
+            if (id < 0) return null;
+            if ((id >>> 6) >= words.length) words = Arrays.copyOf(words, (id >>> 6) + 1);
+            words[id >>> 6] |= 1L << id;
+        }
+        return new TagSet(this, words);
+    }
+
+    TagSet intern(TagSet s) {
+        TagSet prev = sets.putIfAbsent(s, s);
+        return prev == null ? s : prev;
+    }
+}
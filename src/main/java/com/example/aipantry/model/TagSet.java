@@ -0,0 +1,72 @@
+package com.example.aipantry.model;
+
+import java.util.*;
+
+/** Immutable set of tags stored as bits of a {@link TagDictionary}. Obtain through {@link TagDictionary#of}. */
+public final class TagSet {
+    private final TagDictionary dict;
+    final long[] words;
+
+    TagSet(TagDictionary dict, long[] words) {
+        int n = words.length;
+        while (n > 1 && words[n - 1] == 0) n--;
+        this.dict = dict;
+        this.words = n == words.length ? words : Arrays.copyOf(words, n);
+    }
+
+    public TagDictionary dictionary() { return dict; }
+
+    public boolean contains(String tag) {
+        int id = dict.find(tag);
+        return id >= 0 && (id >>> 6) < words.length && (words[id >>> 6] & (1L << id)) != 0;
+    }
+
+    public boolean containsAll(Collection<String> tags) {
+        if (tags != null) for (String t : tags) if (!contains(t)) return false;
+        return true;
+    }
+
+    /** Subset test between sets of the same dictionary, one word at a time. */
+    public boolean containsAll(TagSet other) {
+        if (other.dict != dict) return containsAll(other.toSet());
+        if (other.words.length > words.length) {
+            for (int i = words.length; i < other.words.length; i++) if (other.words[i] != 0) return false;
+        }
+        for (int i = 0; i < Math.min(words.length, other.words.length); i++) {
+            if ((other.words[i] & ~words[i]) != 0) return false;
+        }
+        return true;
+    }
+
+    /** Subset test against a raw mask over the same dictionary. */
+    boolean containsAll(long[] mask) {
+        for (int i = 0; i < mask.length; i++) {
+            long w = i < words.length ? words[i] : 0;
+            if ((mask[i] & ~w) != 0) return false;
+        }
+        return true;
+    }
+
+    public int size() {
+        int n = 0;
+        for (long w : words) n += Long.bitCount(w);
+        return n;
+    }
+
+    /** Tag names in dictionary order. */
+    public Set<String> toSet() {
+        Set<String> out = new LinkedHashSet<>();
+        for (int i = 0; i < words.length; i++) {
+            for (long w = words[i]; w != 0; w &= w - 1) out.add(dict.tag(i * 64 + Long.numberOfTrailingZeros(w)));
+        }
+        return out;
+    }
+
+    @Override public boolean equals(Object o) {
+        return o instanceof TagSet t && t.dict == dict && Arrays.equals(t.words, words);
+    }
+
+    @Override public int hashCode() { return Arrays.hashCode(words); }
+
+    @Override public String toString() { return toSet().toString(); }
+}
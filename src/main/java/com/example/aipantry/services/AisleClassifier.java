@@ -0,0 +1,101 @@
+package com.example.aipantry.services;
+
+import java.util.*;
+
+/**
+ * Assigns shopping items to store aisles by the longest known word suffix of their name, so
+ * "baby spinach" and "red onions" file under the aisle of "spinach" and "onion". Aisle names are
+ * kept in a trie keyed by words, last word first; a lookup walks the item's words from the end and
+ * keeps the deepest aisle seen ("chicken breast" beats "breast"). Names are canonicalized through the
+ * {@link AliasResolver} first, whole and word by word. Immutable once built.
+ */
+public class AisleClassifier {
+    public static final String OTHER = "Other";
+
+    private final String[] aisles;      // by aisle id; rank = id
+    private final int other;
+    private final Node root = new Node();
+    private final AliasResolver aliases;
+
+    private static final class Node {
+        final Map<String, Node> next = new HashMap<>(4);
+        int aisle = -1;
+    }
+
+    /**
+     * {@code order}: aisles in walking order; {@code map}: item name -> aisle. Aisles only named in
+     * the map go after the listed ones, and {@link #OTHER} is last unless listed.
+     */
+    public AisleClassifier(List<String> order, Map<String, String> map, AliasResolver aliases) {
+        this.aliases = aliases;
+        Map<String, Integer> ids = new LinkedHashMap<>();
+        if (order != null) for (String a : order) if (a != null) ids.putIfAbsent(a, ids.size());
+        if (map != null) for (String a : map.values()) if (a != null && !a.equals(OTHER)) ids.putIfAbsent(a, ids.size());
+        ids.putIfAbsent(OTHER, ids.size());
+        aisles = ids.keySet().toArray(new String[0]);
+        other = ids.get(OTHER);
+        if (map != null) for (var e : map.entrySet()) {
+            if (e.getKey() == null || e.getValue() == null) continue;
+            List<String> words = words(e.getKey());
+            Node n = root;
+            for (int i = words.size() - 1; i >= 0; i--) n = n.next.computeIfAbsent(words.get(i), w -> new Node());
+            if (n != root) n.aisle = ids.get(e.getValue());
+        }
+    }
+
+    /** Aisles in walking order, {@link #OTHER} included. */
+    public List<String> aisles() { return List.of(aisles); }
+
+    public String aisleOf(String name) { return aisles[aisleId(name)]; }
+
+    /** Position of the item's aisle in walking order. */
+    public int rankOf(String name) { return aisleId(name); }
+
+    private int aisleId(String name) {
+        if (name == null) return other;
+        List<String> words = words(name);
+        Node n = root;
+        int best = other;
+        for (int i = words.size() - 1; i >= 0; i--) {
+            n = step(n, words.get(i));
+            if (n == null) break;
+            if (n.aisle >= 0) best = n.aisle;
+        }
+        return best;
+    }
+
+    /** The word as is, else its alias, else without a plural "s"/"es". */
+    private Node step(Node n, String word) {
+        Node next = n.next.get(word);
+        if (next == null && aliases != null) next = n.next.get(aliases.canonical(word));
+        if (next == null && word.length() > 3 && word.endsWith("es")) next = n.next.get(word.substring(0, word.length() - 2));
+        if (next == null && word.length() > 2 && word.endsWith("s")) next = n.next.get(word.substring(0, word.length() - 1));
+        return next;
+    }
+
+    private List<String> words(String name) {
+        String canonical = aliases != null ? aliases.canonical(name) : name.toLowerCase();
+        List<String> out = new ArrayList<>();
+        for (String w : canonical.toLowerCase().split("[^\\p{L}\\p{N}]+")) if (!w.isEmpty()) out.add(w);
+        return out;
+    }
+
+    /**
+     * The lines tagged with their aisle and grouped in walking order, by name within an aisle;
+     * a bucket per aisle, so no aisle lookups happen inside comparisons.
+     */
+    public List<ShoppingListService.Line> arrange(List<ShoppingListService.Line> lines) {
+        List<List<ShoppingListService.Line>> buckets = new ArrayList<>(aisles.length);
+        for (int i = 0; i < aisles.length; i++) buckets.add(new ArrayList<>());
+        for (var l : lines) {
+            int a = aisleId(l.name);
+            buckets.get(a).add(new ShoppingListService.Line(l.name, l.amount, l.unit, aisles[a]));
+        }
+        List<ShoppingListService.Line> out = new ArrayList<>(lines.size());
+        for (var b : buckets) {
+            b.sort((x, y) -> x.name.compareToIgnoreCase(y.name));
+            out.addAll(b);
+        }
+        return out;
+    }
+}
@@ -5,8 +5,8 @@ import com.example.aipantry.model.PantryItem;
 import com.example.aipantry.model.Recipe;
 
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -113,17 +113,36 @@ public class AutoRecipeGenerator {
         }
 
         // Sort by soon-to-expire hits, then shorter cook time
-    out.sort(Comparator.comparingInt((Recipe r) -> -soonHits(r, p, 3))
+    Set<String> soon = soonKeys(p, 3);
+    out.sort(Comparator.comparingInt((Recipe r) -> -soonHits(r, soon))
         .thenComparingInt(r -> r.cookMinutes));
     return unlimited ? out : out.stream().limit(cap).toList();
     }
 
     /** Returns synthesized recipes with step-by-step directions and image URL. */
     public List<Generated> generateDetailed(Map<String, PantryItem> pantry, int servings, int limit){
+        List<Generated> out = new ArrayList<>();
+        forEachDetailed(pantry, servings, out::add);
+        out.sort(ranking(pantry));
+        return limit <= 0 ? out : out.stream().limit(limit).toList();
+    }
+
+    /** Order used by generateDetailed: most soon-to-expire pantry hits first, then shorter cook time. */
+    public Comparator<Generated> ranking(Map<String, PantryItem> pantry){
+        Map<String, PantryItem> p = new LinkedHashMap<>();
+        if (pantry != null) for (var e: pantry.entrySet()) p.put(e.getKey().toLowerCase(), e.getValue());
+        Set<String> soon = soonKeys(p, 3);
+        return Comparator.comparingInt((Generated g) -> -soonHits(g.recipe, soon))
+                .thenComparingInt(g -> g.recipe.cookMinutes);
+    }
+
+    /**
+     * Streams every variant to the sink in generation order (unsorted, unlimited).
+     * Generation stops as soon as the sink returns false.
+     */
+    public void forEachDetailed(Map<String, PantryItem> pantry, int servings, Predicate<Generated> sink){
         if (pantry == null) pantry = Map.of();
         int sv = Math.max(1, servings);
-        boolean unlimited = limit <= 0;
-        int cap = unlimited ? Integer.MAX_VALUE : limit;
 
         Map<String, PantryItem> p = new LinkedHashMap<>();
         for (var e: pantry.entrySet()) p.put(e.getKey().toLowerCase(), e.getValue());
@@ -133,7 +152,6 @@ public class AutoRecipeGenerator {
         List<PantryItem> fats = filterBy(p, FATS);
         List<PantryItem> cheeses = filterBy(p, CHEESE);
 
-        List<Generated> out = new ArrayList<>();
         // Cross-product variant generation
         // 1) Stir-fry: protein × veg × starch
         List<String> stirStarches = presentNames(p, List.of("rice","noodles","spaghetti","pasta"));
@@ -155,7 +173,7 @@ public class AutoRecipeGenerator {
                                 "Heat oil in a large skillet; sear "+prot.name+".",
                                 "Add vegetables and aromatics; stir-fry until crisp-tender.",
                                 "Toss with sauce (soy, etc.) and serve over "+carbName+".");
-                        out.add(new Generated(r, steps, imageFor(r)));
+                        if (!sink.test(new Generated(r, steps, imageFor(r)))) return;
                     }
                 }
             }
@@ -176,7 +194,7 @@ public class AutoRecipeGenerator {
                         "Cook "+prot.name+" until browned.",
                         "Add veg and season; cook until tender.",
                         "Assemble tacos and top with cheese.");
-                out.add(new Generated(r, steps, imageFor(r)));
+                if (!sink.test(new Generated(r, steps, imageFor(r)))) return;
             }
         }
 
@@ -204,7 +222,7 @@ public class AutoRecipeGenerator {
                             (prot==null?"Skip protein step":"Brown "+prot.name+" in skillet."),
                             (tomato==null?"Add sauce of choice":"Add tomatoes and simmer."),
                 "Toss with cooked "+pastaName+", finish with cheese.");
-                    out.add(new Generated(r, steps, imageFor(r)));
+                    if (!sink.test(new Generated(r, steps, imageFor(r)))) return;
                 }
             }
         }
@@ -231,7 +249,7 @@ public class AutoRecipeGenerator {
                             (prot==null?"Skip protein step":"Stir-fry "+prot.name+"."),
                             "Add veg and cook until tender.",
                             "Add rice, soy sauce, and eggs; stir-fry to combine.");
-                    out.add(new Generated(r, steps, imageFor(r)));
+                    if (!sink.test(new Generated(r, steps, imageFor(r)))) return;
                 }
             }
         }
@@ -262,15 +280,11 @@ public class AutoRecipeGenerator {
                                 (starch==null?"Simmer until veg is tender":"Add "+starch+" and cook until tender."),
                                 (prot==null?"Optionally add protein":"Add "+prot.name+" in final 10 minutes to cook through."),
                                 "Season to taste.");
-                        out.add(new Generated(r, steps, imageFor(r)));
+                        if (!sink.test(new Generated(r, steps, imageFor(r)))) return;
                     }
                 }
             }
         }
-
-        out.sort(Comparator.comparingInt((Generated g) -> -soonHits(g.recipe, p, 3))
-                .thenComparingInt(g -> g.recipe.cookMinutes));
-        return unlimited ? out : out.stream().limit(cap).toList();
     }
 
     /** Overload: accept a List of PantryItem (convenience). */
@@ -360,14 +374,14 @@ public class AutoRecipeGenerator {
     private static boolean isPiece(PantryItem p){ return p.unit!=null && p.unit.equalsIgnoreCase("pc"); }
     private static String unitFor(PantryItem p){ return isPiece(p)? "pc" : "g"; }
 
-    private static int soonHits(Recipe r, Map<String, PantryItem> pantry, int days){
+    /** Pantry keys expiring within {@code days} days (or already expired), from one range query over the expiry index. */
+    private static Set<String> soonKeys(Map<String, PantryItem> pantry, int days){
+        return new HashSet<>(new ExpiryIndex(pantry).expiringWithin(LocalDate.now(), days));
+    }
+
+    private static int soonHits(Recipe r, Set<String> soon){
         int hits = 0;
-        for (var ing : r.ingredients){
-            PantryItem pi = pantry.get(ing.name.toLowerCase());
-            if (pi == null || pi.expiresOn == null) continue;
-            long d = ChronoUnit.DAYS.between(LocalDate.now(), pi.expiresOn);
-            if (d <= days) hits++;
-        }
+        for (var ing : r.ingredients) if (soon.contains(ing.name.toLowerCase())) hits++;
         return hits;
     }
 }
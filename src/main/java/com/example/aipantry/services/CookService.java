@@ -0,0 +1,115 @@
+package com.example.aipantry.services;
+
+import com.example.aipantry.model.Ingredient;
+import com.example.aipantry.model.PantryItem;
+import com.example.aipantry.model.Recipe;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Cooks recipes against a shared {@link PantryStore}: converts each ingredient into the pantry item's
+ * unit, checks that everything is there, and deducts it all (soonest-expiring lots first) or nothing.
+ * <p>
+ * A cook locks the stripes of the items it touches, in stripe order, so cooks sharing an item queue
+ * up instead of failing each other's commit. The deduction is committed with
+ * {@link PantryStore#compareAndSet}, which catches edits made outside this service (e.g. the pantry
+ * table) and retries against fresh values. Commits are serialized on the store, so cooks on unrelated
+ * items still take turns there, and the store's listeners run on the cooking thread: call this from
+ * the thread that owns the store (the FX thread for the app's store). Several threads may cook only
+ * against a store whose listeners are thread-safe, such as one with none.
+ */
+public class CookService {
+    private static final int STRIPES = 64; // power of two
+    private static final int MAX_ATTEMPTS = 16;
+    private static final double EPS = 1e-9;
+
+    /** Outcome of one cook. {@code shortfalls} names what was missing when nothing was deducted. */
+    public static final class Result {
+        public final boolean cooked;
+        public final List<String> shortfalls;
+        public final Map<String, Double> deducted; // pantry key -> amount, in the item's unit
+        Result(boolean cooked, List<String> shortfalls, Map<String, Double> deducted) {
+            this.cooked = cooked; this.shortfalls = shortfalls; this.deducted = deducted;
+        }
+    }
+
+    private final PantryStore store;
+    private final Supplier<Units> units;
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    public CookService(PantryStore store, Units units) { this(store, () -> units); }
+
+    /** Reads the unit table on every cook, for callers that reload it. */
+    public CookService(PantryStore store, Supplier<Units> units) {
+        this.store = store;
+        this.units = units;
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new ReentrantLock();
+    }
+
+    /**
+     * Deducts {@code servings} times the recipe's amounts in one pantry version, or nothing if anything
+     * is short. Also nothing, with a shortfall saying so, if outside edits keep winning the race.
+     */
+    public Result cook(Recipe recipe, int servings) {
+        Map<String, List<Ingredient>> byKey = new LinkedHashMap<>();
+        if (recipe.ingredients != null) for (Ingredient ing : recipe.ingredients) {
+            if (ing != null && ing.name != null) byKey.computeIfAbsent(PantryStore.keyOf(ing.name), k -> new ArrayList<>()).add(ing);
+        }
+        int[] order = byKey.keySet().stream().mapToInt(CookService::stripe).distinct().sorted().toArray();
+        for (int s : order) stripes[s].lock();
+        try {
+            for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+                PantryStore.Snapshot snap = store.snapshot();
+                Map<String, PantryItem> expected = new HashMap<>(), updates = new LinkedHashMap<>();
+                Map<String, Double> deducted = new LinkedHashMap<>();
+                List<String> shortfalls = new ArrayList<>();
+                for (var e : byKey.entrySet()) {
+                    PantryItem item = snap.items.get(e.getKey());
+                    expected.put(e.getKey(), item);
+                    double need = need(e.getValue(), item, servings, shortfalls);
+                    if (need < 0) continue;
+                    if (item.quantity + EPS < need) {
+                        shortfalls.add(item.name + " (need " + round2(need) + " " + item.unit + ", have " + round2(item.quantity) + ")");
+                        continue;
+                    }
+                    updates.put(e.getKey(), item.consume(need));
+                    deducted.put(e.getKey(), need);
+                }
+                if (!shortfalls.isEmpty()) return new Result(false, shortfalls, Map.of());
+                if (updates.isEmpty() || store.compareAndSet(expected, updates)) return new Result(true, List.of(), deducted);
+            }
+            return new Result(false, List.of("pantry changed concurrently, try again"), Map.of());
+        } finally {
+            for (int i = order.length - 1; i >= 0; i--) stripes[order[i]].unlock();
+        }
+    }
+
+    /** Total amount of one pantry item the ingredients need, in the item's unit; -1 (with a shortfall) if it cannot be had. */
+    private double need(List<Ingredient> ings, PantryItem item, int servings, List<String> shortfalls) {
+        if (item == null) {
+            shortfalls.add(ings.get(0).name + " (not in pantry)");
+            return -1;
+        }
+        Units u = units.get();
+        double total = 0;
+        for (Ingredient ing : ings) {
+            double amount = ing.amount * servings;
+            if (item.unit == null || ing.unit == null) { total += amount; continue; }
+            if (u == null ? !item.unit.equalsIgnoreCase(ing.unit) : !u.canConvert(ing.unit, item.unit)) {
+                shortfalls.add(ing.name + " (" + ing.unit + " vs pantry " + item.unit + ")");
+                return -1;
+            }
+            total += u == null ? amount : u.convert(amount, ing.unit, item.unit);
+        }
+        return total;
+    }
+
+    private static int stripe(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    private static double round2(double v) { return Math.round(v * 100.0) / 100.0; }
+}
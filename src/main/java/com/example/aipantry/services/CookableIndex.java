@@ -0,0 +1,237 @@
+package com.example.aipantry.services;
+
+import com.example.aipantry.model.RecipeColumns;
+
+import java.util.*;
+
+/**
+ * Answers "which recipes can I cook right now" without scoring every recipe. Each recipe's distinct
+ * ingredient ids are kept rarest first, and recipes are bucketed under their rarest ingredient, so a
+ * query only visits buckets of ingredients the pantry has and usually rejects a candidate on its
+ * first id. The pantry side is a "have" bitset over the catalog's ingredient ids; an optional
+ * quantity pass (same row rule as {@link RuleEngine}, substitutes included) runs only on the
+ * candidates that survive.
+ * <p>
+ * For "missing at most k" queries it also keeps an ingredient-to-rows inverted index: the pantry's
+ * postings are walked once, counting satisfied rows per recipe, so the cost follows the postings
+ * touched (plus the recipes that small) rather than the catalog size.
+ * Immutable once built; safe to query from any thread.
+ */
+public class CookableIndex {
+    private final RecipeColumns catalog;
+    private final int[] reqStart;    // recipe -> start in req, size n+1
+    private final int[] req;         // distinct ingredient ids per recipe, rarest first
+    private final int[] bucketStart; // ingredient id -> start in bucket, size ids+1
+    private final int[] bucket;      // recipes grouped by their rarest ingredient
+    private final int[] noIngredients;
+    private final int[] postStart;   // ingredient id -> start in postRows, size ids+1
+    private final int[] postRows;    // ingredient rows using each id
+    private final int[] rowRecipe;   // row -> recipe
+    private final int[] sizeStart;   // ingredient row count -> start in bySize
+    private final int[] bySize;      // recipes ordered by ingredient row count
+
+    /** A recipe that needs {@code missing.size()} more ingredients, listed like {@link RuleExplanation#missing} (lowercased). */
+    public static final class Near {
+        public final int recipe;
+        public final List<String> missing;
+        Near(int recipe, List<String> missing) { this.recipe = recipe; this.missing = missing; }
+    }
+
+    /** Per-thread counters, reset through the touched list so a query never clears all n slots. */
+    private static final ThreadLocal<int[][]> SCRATCH = ThreadLocal.withInitial(() -> new int[][] { new int[0], new int[0] });
+
+    private CookableIndex(RecipeColumns catalog) {
+        this.catalog = catalog;
+        int n = catalog.size(), ids = catalog.distinctIngredients();
+        // pass 1: distinct ids per recipe, and how many recipes use each id
+        reqStart = new int[n + 1];
+        int[] seenIn = new int[ids];
+        Arrays.fill(seenIn, -1);
+        int[] freq = new int[ids];
+        int[] tmp = new int[16];
+        int total = 0;
+        for (int r = 0; r < n; r++) {
+            for (int k = catalog.start(r); k < catalog.end(r); k++) {
+                int id = catalog.ingredientId(k);
+                if (seenIn[id] != r) { seenIn[id] = r; freq[id]++; total++; }
+            }
+            reqStart[r + 1] = total;
+        }
+        // pass 2: fill and sort each recipe's ids by (frequency, id)
+        req = new int[total];
+        Arrays.fill(seenIn, -1);
+        int empty = 0;
+        for (int r = 0; r < n; r++) {
+            int len = 0;
+            for (int k = catalog.start(r); k < catalog.end(r); k++) {
+                int id = catalog.ingredientId(k);
+                if (seenIn[id] == r) continue;
+                seenIn[id] = r;
+                if (len == tmp.length) tmp = Arrays.copyOf(tmp, len * 2);
+                tmp[len++] = id;
+            }
+            if (len == 0) { empty++; continue; }
+            sortByRarity(tmp, len, freq);
+            System.arraycopy(tmp, 0, req, reqStart[r], len);
+        }
+        // buckets: counting sort of recipes by rarest id
+        bucketStart = new int[ids + 1];
+        for (int r = 0; r < n; r++) if (reqStart[r + 1] > reqStart[r]) bucketStart[req[reqStart[r]] + 1]++;
+        for (int i = 0; i < ids; i++) bucketStart[i + 1] += bucketStart[i];
+        bucket = new int[n - empty];
+        noIngredients = new int[empty];
+        int[] fill = Arrays.copyOf(bucketStart, ids);
+        for (int r = 0, e = 0; r < n; r++) {
+            if (reqStart[r + 1] > reqStart[r]) bucket[fill[req[reqStart[r]]]++] = r;
+            else noIngredients[e++] = r;
+        }
+        // inverted index over rows, and recipes by row count
+        int m = n == 0 ? 0 : catalog.end(n - 1);
+        postStart = new int[ids + 1];
+        rowRecipe = new int[m];
+        int maxRows = 0;
+        for (int r = 0; r < n; r++) {
+            maxRows = Math.max(maxRows, catalog.end(r) - catalog.start(r));
+            for (int k = catalog.start(r); k < catalog.end(r); k++) { postStart[catalog.ingredientId(k) + 1]++; rowRecipe[k] = r; }
+        }
+        for (int i = 0; i < ids; i++) postStart[i + 1] += postStart[i];
+        postRows = new int[m];
+        fill = Arrays.copyOf(postStart, ids);
+        for (int k = 0; k < m; k++) postRows[fill[catalog.ingredientId(k)]++] = k;
+        sizeStart = new int[maxRows + 2];
+        for (int r = 0; r < n; r++) sizeStart[catalog.end(r) - catalog.start(r) + 1]++;
+        for (int i = 0; i <= maxRows; i++) sizeStart[i + 1] += sizeStart[i];
+        bySize = new int[n];
+        fill = Arrays.copyOf(sizeStart, maxRows + 1);
+        for (int r = 0; r < n; r++) bySize[fill[catalog.end(r) - catalog.start(r)]++] = r;
+    }
+
+    public static CookableIndex of(RecipeColumns catalog) { return new CookableIndex(catalog); }
+
+    public RecipeColumns catalog() { return catalog; }
+
+    /** Bitset of the catalog ingredient ids the pantry holds a positive quantity of, or a substitute for. */
+    public long[] have(RecipeColumns.Stock stock) { return bits(stock, false); }
+
+    private long[] bits(RecipeColumns.Stock stock, boolean anyQuantity) {
+        long[] bits = new long[(catalog.distinctIngredients() + 63) >>> 6];
+        double[] q = stock.quantity;
+        for (int id = 0; id < q.length; id++) if (present(id, stock, anyQuantity)) bits[id >>> 6] |= 1L << id;
+        return bits;
+    }
+
+    private static boolean present(int id, RecipeColumns.Stock stock, boolean anyQuantity) {
+        double q = stock.quantity[id];
+        RecipeColumns.Substitutes subs = stock.substitutes;
+        return q > 0 || (anyQuantity && q == q) || (subs != null && subs.start[id] < subs.start[id + 1]);
+    }
+
+    /**
+     * Recipes whose every ingredient is in stock, ascending. With {@code checkQuantities} they must also
+     * be there in sufficient amount, i.e. exactly the recipes {@link RuleEngine#explain} lists nothing
+     * missing for. Substitutes bound into the stock ({@link RuleEngine#bind}) count as the ingredient.
+     */
+    public int[] cookable(RecipeColumns.Stock stock, boolean checkQuantities) {
+        // amounts decide when quantities are checked, so an item at zero still counts as present then (a 0 g ingredient is covered)
+        long[] have = bits(stock, checkQuantities);
+        int[] out = new int[16];
+        int size = 0;
+        for (int r : noIngredients) { if (size == out.length) out = Arrays.copyOf(out, size * 2); out[size++] = r; }
+        for (int w = 0; w < have.length; w++) {
+            for (long bits = have[w]; bits != 0; bits &= bits - 1) {
+                int id = (w << 6) + Long.numberOfTrailingZeros(bits);
+                for (int b = bucketStart[id]; b < bucketStart[id + 1]; b++) {
+                    int r = bucket[b];
+                    if (!covered(r, have) || (checkQuantities && !enough(r, stock))) continue;
+                    if (size == out.length) out = Arrays.copyOf(out, size * 2);
+                    out[size++] = r;
+                }
+            }
+        }
+        int[] result = Arrays.copyOf(out, size);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Recipes missing at most {@code k} ingredients, fewest missing first (then catalog order), with what
+     * is missing. Counts ingredient rows like {@link RuleEngine#explain}, so with {@code checkQuantities}
+     * the missing lists equal its {@code missing}; without it an ingredient counts if the pantry has any.
+     */
+    public List<Near> missingAtMost(RecipeColumns.Stock stock, int k, boolean checkQuantities) {
+        int n = catalog.size();
+        int[][] scratch = SCRATCH.get();
+        if (scratch[0].length < n) { scratch[0] = new int[n]; scratch[1] = new int[n]; }
+        int[] have = scratch[0], touched = scratch[1];
+        int touchedCount = 0;
+        List<Near> out = new ArrayList<>();
+        try {
+            double[] q = stock.quantity;
+            for (int id = 0; id < q.length; id++) {
+                if (!present(id, stock, checkQuantities)) continue;
+                for (int p = postStart[id]; p < postStart[id + 1]; p++) {
+                    int row = postRows[p];
+                    if (checkQuantities && !rowOk(row, stock)) continue;
+                    int r = rowRecipe[row];
+                    if (have[r]++ == 0) touched[touchedCount++] = r;
+                }
+            }
+            for (int i = 0; i < touchedCount; i++) {
+                int r = touched[i];
+                if (catalog.end(r) - catalog.start(r) - have[r] <= k) out.add(near(r, stock, checkQuantities));
+            }
+            // recipes small enough to qualify with nothing in the pantry
+            for (int size = 0; size <= Math.min(k, sizeStart.length - 2); size++) {
+                for (int b = sizeStart[size]; b < sizeStart[size + 1]; b++) if (have[bySize[b]] == 0) out.add(near(bySize[b], stock, checkQuantities));
+            }
+        } finally {
+            for (int i = 0; i < touchedCount; i++) have[touched[i]] = 0;
+        }
+        out.sort(Comparator.comparingInt((Near x) -> x.missing.size()).thenComparingInt(x -> x.recipe));
+        return out;
+    }
+
+    private Near near(int r, RecipeColumns.Stock stock, boolean checkQuantities) {
+        List<String> missing = new ArrayList<>();
+        for (int k = catalog.start(r); k < catalog.end(r); k++) {
+            int id = catalog.ingredientId(k);
+            boolean ok = checkQuantities ? rowOk(k, stock) : present(id, stock, false);
+            if (!ok) missing.add(catalog.ingredientName(id) + " (" + catalog.amount(k) + " " + catalog.unitName(catalog.unitId(k)) + ")");
+        }
+        return new Near(r, missing);
+    }
+
+    /** Postings of ingredient {@code id} are {@code [postingStart(id), postingEnd(id))}; each is an ingredient row. */
+    int postingStart(int id) { return postStart[id]; }
+    int postingEnd(int id) { return postStart[id + 1]; }
+    int postingRow(int p) { return postRows[p]; }
+    int rowRecipe(int row) { return rowRecipe[row]; }
+
+    /** RuleEngine's rule for one ingredient row: it, or a substitute, is present in a compatible unit and enough of it. */
+    boolean rowOk(int k, RecipeColumns.Stock stock) {
+        return RuleEngine.rowCredit(catalog, k, stock) > 0;
+    }
+
+    /** AND-NOT over the recipe's ids; the rarest (first) one is known to be present. */
+    private boolean covered(int r, long[] have) {
+        for (int i = reqStart[r] + 1; i < reqStart[r + 1]; i++) {
+            int id = req[i];
+            if ((have[id >>> 6] & (1L << id)) == 0) return false;
+        }
+        return true;
+    }
+
+    private boolean enough(int r, RecipeColumns.Stock stock) {
+        for (int k = catalog.start(r); k < catalog.end(r); k++) if (!rowOk(k, stock)) return false;
+        return true;
+    }
+
+    /** Insertion sort; recipes have a handful of ingredients. */
+    private static void sortByRarity(int[] a, int len, int[] freq) {
+        for (int i = 1; i < len; i++) {
+            int x = a[i], j = i - 1;
+            while (j >= 0 && (freq[a[j]] > freq[x] || (freq[a[j]] == freq[x] && a[j] > x))) { a[j + 1] = a[j]; j--; }
+            a[j + 1] = x;
+        }
+    }
+}
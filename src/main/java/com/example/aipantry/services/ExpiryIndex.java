@@ -0,0 +1,70 @@
+package com.example.aipantry.services;
+
+import com.example.aipantry.model.PantryItem;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Pantry keys ordered by their earliest expiry, so "what expires within N days" is a range query
+ * (O(log n + k)) instead of a pantry scan. Register it as a {@link PantryStore} listener over the
+ * store's {@link PantryStore#asMap()} to keep it in step; like that view, use it from the writing thread.
+ */
+public class ExpiryIndex implements PantryStore.Listener {
+    private final Map<String, PantryItem> source;
+    private final TreeMap<LocalDate, Set<String>> byDate = new TreeMap<>();
+    private final Map<String, LocalDate> dates = new HashMap<>();
+
+    /** Indexes {@code pantry} (keyed by lowercased name); a RESET re-reads it. */
+    public ExpiryIndex(Map<String, PantryItem> pantry) {
+        this.source = pantry;
+        rebuild();
+    }
+
+    @Override public void onChange(PantryStore.Change c) {
+        if (c.kind == PantryStore.Kind.RESET) { rebuild(); return; }
+        if (c.oldItem != null) unindex(c.previousKey());
+        if (c.newItem != null) index(c.key, c.newItem);
+    }
+
+    public int size() { return dates.size(); }
+
+    /** Earliest expiry of the item under {@code key}, or null if it has none. */
+    public LocalDate earliest(String key) { return dates.get(key); }
+
+    /** True if the item under {@code key} has a lot expiring on or before {@code date}. */
+    public boolean expiresBy(String key, LocalDate date) {
+        LocalDate d = dates.get(key);
+        return d != null && !d.isAfter(date);
+    }
+
+    /** Keys with a lot expiring on or before {@code date} (already expired included), soonest first. */
+    public List<String> expiringBy(LocalDate date) {
+        List<String> out = new ArrayList<>();
+        for (Set<String> keys : byDate.headMap(date, true).values()) out.addAll(keys);
+        return out;
+    }
+
+    /** Keys expiring within {@code days} days of {@code today}, soonest first. */
+    public List<String> expiringWithin(LocalDate today, int days) { return expiringBy(today.plusDays(days)); }
+
+    private void rebuild() {
+        byDate.clear();
+        dates.clear();
+        for (var e : source.entrySet()) if (e.getValue() != null) index(e.getKey(), e.getValue());
+    }
+
+    private void index(String key, PantryItem item) {
+        if (key == null || item.expiresOn == null) return;
+        dates.put(key, item.expiresOn);
+        byDate.computeIfAbsent(item.expiresOn, d -> new LinkedHashSet<>()).add(key);
+    }
+
+    private void unindex(String key) {
+        LocalDate d = dates.remove(key);
+        if (d == null) return;
+        Set<String> keys = byDate.get(d);
+        keys.remove(key);
+        if (keys.isEmpty()) byDate.remove(d);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.aipantry.services;
+
+import com.example.aipantry.model.RecipeColumns;
+
+import java.util.*;
+
+/**
+ * Secondary indexes over a catalog's tags and cook times, so hard filters are applied before any
+ * scoring. Each tag keeps its recipes either as a sorted id array or, once it covers more than 1/32
+ * of the catalog, as a bitset (whichever is smaller); cook times keep recipe ids sorted by minutes.
+ * A query starts from the most selective condition and checks the rest per candidate.
+ * Immutable once built; safe to query from any thread.
+ */
+public class FacetIndex {
+    private static final int[] NONE = new int[0];
+
+    private final RecipeColumns catalog;
+    private final Map<String, Posting> byTag = new HashMap<>();
+    private final int[] byMinutes;  // recipe ids ordered by cook minutes, then id
+    private final int[] minutes;    // cook minutes in that order
+
+    private FacetIndex(RecipeColumns catalog) {
+        this.catalog = catalog;
+        int n = catalog.size();
+        Map<String, int[]> lists = new HashMap<>();
+        Map<String, Integer> sizes = new HashMap<>();
+        long[] keyed = new long[n];
+        for (int r = 0; r < n; r++) {
+            for (String t : catalog.tags(r)) {
+                int[] ids = lists.computeIfAbsent(t, k -> new int[8]);
+                int size = sizes.getOrDefault(t, 0);
+                if (size == ids.length) lists.put(t, ids = Arrays.copyOf(ids, size * 2));
+                ids[size] = r;
+                sizes.put(t, size + 1);
+            }
+            // minutes in the high half, id in the low half: one primitive sort orders by (minutes, id)
+            keyed[r] = ((long) catalog.cookMinutes(r) << 32) | r;
+        }
+        for (var e : lists.entrySet()) byTag.put(e.getKey(), Posting.of(e.getValue(), sizes.get(e.getKey()), n));
+        Arrays.sort(keyed);
+        byMinutes = new int[n];
+        minutes = new int[n];
+        for (int i = 0; i < n; i++) { byMinutes[i] = (int) keyed[i]; minutes[i] = (int) (keyed[i] >> 32); }
+    }
+
+    public static FacetIndex of(RecipeColumns catalog) { return new FacetIndex(catalog); }
+
+    public RecipeColumns catalog() { return catalog; }
+
+    /** Number of recipes carrying {@code tag}. */
+    public int count(String tag) {
+        Posting p = byTag.get(tag);
+        return p == null ? 0 : p.size;
+    }
+
+    /** Number of recipes cooking within {@code maxMinutes}. */
+    public int countWithin(int maxMinutes) { return upperBound(maxMinutes); }
+
+    /**
+     * Recipes with every tag in {@code tags} (null or empty: no tag condition) that cook within
+     * {@code maxMinutes} (negative: no time condition), in ascending order.
+     */
+    public int[] candidates(Collection<String> tags, int maxMinutes) {
+        List<Posting> required = new ArrayList<>();
+        if (tags != null) for (String t : new HashSet<>(tags)) {
+            Posting p = byTag.get(t);
+            if (p == null) return NONE;
+            required.add(p);
+        }
+        required.sort(Comparator.comparingInt(p -> p.size));
+        int timed = maxMinutes < 0 ? catalog.size() : upperBound(maxMinutes);
+        if (required.isEmpty() || timed < required.get(0).size) {
+            // time is the most selective: walk that prefix, check the tags per recipe
+            int[] ids = Arrays.copyOf(byMinutes, timed);
+            Arrays.sort(ids);
+            return filter(ids, ids.length, required, 0, -1);
+        }
+        Posting first = required.get(0);
+        int[] ids = first.toArray();
+        return filter(ids, ids.length, required, 1, maxMinutes);
+    }
+
+    private int[] filter(int[] ids, int len, List<Posting> required, int from, int maxMinutes) {
+        int out = 0;
+        next:
+        for (int i = 0; i < len; i++) {
+            int r = ids[i];
+            if (maxMinutes >= 0 && catalog.cookMinutes(r) > maxMinutes) continue;
+            for (int j = from; j < required.size(); j++) if (!required.get(j).contains(r)) continue next;
+            ids[out++] = r;
+        }
+        return out == ids.length ? ids : Arrays.copyOf(ids, out);
+    }
+
+    /** Count of sorted minutes <= max. */
+    private int upperBound(int max) {
+        int lo = 0, hi = minutes.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (minutes[mid] <= max) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    /** One tag's recipes: a sorted id array when sparse, a bitset when dense. */
+    private static final class Posting {
+        final int size;
+        final int[] ids;   // null when dense
+        final long[] bits; // null when sparse
+
+        private Posting(int size, int[] ids, long[] bits) { this.size = size; this.ids = ids; this.bits = bits; }
+
+        static Posting of(int[] ids, int size, int n) {
+            if ((long) size * 32 <= n) return new Posting(size, Arrays.copyOf(ids, size), null);
+            long[] bits = new long[(n + 63) >>> 6];
+            for (int i = 0; i < size; i++) bits[ids[i] >>> 6] |= 1L << ids[i];
+            return new Posting(size, null, bits);
+        }
+
+        boolean contains(int r) {
+            return bits != null ? (bits[r >>> 6] & (1L << r)) != 0 : Arrays.binarySearch(ids, r) >= 0;
+        }
+
+        int[] toArray() {
+            if (ids != null) return ids.clone();
+            int[] out = new int[size];
+            int k = 0;
+            for (int w = 0; w < bits.length; w++) {
+                for (long b = bits[w]; b != 0; b &= b - 1) out[k++] = (w << 6) + Long.numberOfTrailingZeros(b);
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.aipantry.services;
+
+import com.example.aipantry.model.*;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Assigns recipes to the days of a horizon so that as little food as possible expires unused.
+ * Each pantry lot is simulated day by day: meals take from it first-expired-first-out, and whatever
+ * is left when its date passes counts as waste. Anything a meal needs but the pantry cannot supply
+ * that day counts as a shortfall. The search is simulated annealing over an {@link Evaluator}, which
+ * re-simulates only the items a move touches.
+ */
+public class HorizonPlanner {
+    /** Grams assumed per unit that converts to neither grams nor millilitres (pieces, cans...). */
+    public static final double PIECE_GRAMS = 100;
+
+    private final Units units;
+
+    public HorizonPlanner(Units units) { this.units = units; }
+
+    /** Meals per day from {@code start}; a day holds fewer meals when candidates run out. Grams wasted and short over the horizon. */
+    public static final class Schedule {
+        public final LocalDate start;
+        public final List<List<Recipe>> days;
+        public final double wastedGrams;
+        public final double shortGrams;
+
+        Schedule(LocalDate start, List<List<Recipe>> days, double wastedGrams, double shortGrams) {
+            this.start = start; this.days = days; this.wastedGrams = wastedGrams; this.shortGrams = shortGrams;
+        }
+    }
+
+    /**
+     * Picks {@code days * mealsPerDay} distinct recipes from {@code candidates} (e.g. the best of
+     * {@link Planner#plan}) and the day each is cooked, minimizing wasted plus short grams.
+     * Deterministic for a given input; {@code iterations} bounds the search.
+     */
+    public Schedule plan(List<Recipe> candidates, Map<String, PantryItem> pantry, LocalDate start,
+                         int days, int mealsPerDay, int servings, int iterations) {
+        Evaluator ev = new Evaluator(candidates, pantry, units, start, days, mealsPerDay, servings);
+        int slots = ev.slots(), n = candidates.size(), perDay = Math.max(1, mealsPerDay);
+        for (int s = 0; s < Math.min(slots, n); s++) ev.assign(s, s);
+        int[] unused = new int[Math.max(0, n - slots)];
+        int free = unused.length;
+        for (int i = 0; i < free; i++) unused[i] = slots + i;
+        if (slots == 0 || n == 0) return ev.schedule();
+
+        Random rnd = new Random(46);
+        int[] best = ev.assignment();
+        double bestCost = ev.cost();
+        // start hot enough to accept a typical uphill move about half the time
+        double t0 = 0;
+        for (int i = 0; i < 64; i++) {
+            double before = ev.cost();
+            int a = rnd.nextInt(slots), b = rnd.nextInt(slots), ra = ev.recipeAt(a), rb = ev.recipeAt(b);
+            ev.assign(a, rb); ev.assign(b, ra);
+            t0 += Math.abs(ev.cost() - before);
+            ev.assign(b, rb); ev.assign(a, ra);
+        }
+        t0 = Math.max(t0 / 64 / Math.log(2), 1e-9);
+
+        for (int it = 0; it < iterations; it++) {
+            double temp = t0 * Math.pow(1e-4, (double) it / iterations);
+            double before = ev.cost();
+            int a = rnd.nextInt(slots);
+            int ra = ev.recipeAt(a);
+            if (free > 0 && rnd.nextBoolean()) {
+                // replace a slot's recipe with one not yet planned
+                int u = rnd.nextInt(free);
+                ev.assign(a, unused[u]);
+                if (!accept(ev.cost() - before, temp, rnd)) ev.assign(a, ra);
+                else if (ra >= 0) unused[u] = ra;
+                else unused[u] = unused[--free];
+            } else {
+                int b = rnd.nextInt(slots);
+                if (a / perDay == b / perDay) continue; // same day: nothing changes
+                int rb = ev.recipeAt(b);
+                ev.assign(a, rb); ev.assign(b, ra);
+                if (!accept(ev.cost() - before, temp, rnd)) { ev.assign(b, rb); ev.assign(a, ra); }
+            }
+            if (ev.cost() < bestCost - 1e-9) { bestCost = ev.cost(); best = ev.assignment(); }
+        }
+        for (int s = 0; s < slots; s++) ev.assign(s, best[s]);
+        return ev.schedule();
+    }
+
+    private static boolean accept(double delta, double temp, Random rnd) {
+        return delta <= 0 || rnd.nextDouble() < Math.exp(-delta / temp);
+    }
+
+    /** Grams in one {@code unit}: by conversion to g, or to ml at about 1 g/ml, else {@link #PIECE_GRAMS}. */
+    static double gramsPer(Units units, String unit) {
+        if (unit == null) return PIECE_GRAMS;
+        if (units != null) {
+            if (units.canConvert(unit, "g")) return units.convert(1, unit, "g");
+            if (units.canConvert(unit, "ml")) return units.convert(1, unit, "ml");
+        }
+        return switch (unit.toLowerCase()) {
+            case "g", "ml" -> 1;
+            case "kg", "l" -> 1000;
+            default -> PIECE_GRAMS;
+        };
+    }
+
+    /**
+     * Incremental cost of a schedule. Slot {@code s} is a meal on day {@code s / mealsPerDay}; assigning
+     * a recipe (a candidate index, or -1 for none) updates per-day demand on the pantry items it uses
+     * and re-simulates just those items, so a move costs O(ingredients × (days + lots)). Pantry items
+     * are independent of each other, which is what makes this exact. Not thread-safe.
+     */
+    public static final class Evaluator {
+        private final List<Recipe> candidates;
+        private final LocalDate start;
+        private final int days, mealsPerDay;
+        private final int[] slot;
+        // pantry items: lots in FEFO order, as expiry day (relative to start) and quantity in the item's unit
+        private final int[][] lotDay;
+        private final double[][] lotQty;
+        private final double[] grams;       // grams per item unit
+        private final double[][] demand;    // [item][day], in the item's unit
+        private final double[] itemWaste, itemShort;
+        // recipes: pantry items and amounts per serving set, plus grams the pantry can never supply
+        private final int[][] uses;
+        private final double[][] useQty;
+        private final double[] fixedShort;
+        private double waste, shortfall;
+        private double[] scratch = new double[4];
+
+        public Evaluator(List<Recipe> candidates, Map<String, PantryItem> pantry, Units units, LocalDate start,
+                         int days, int mealsPerDay, int servings) {
+            this.candidates = candidates;
+            this.start = start;
+            this.days = Math.max(0, days);
+            this.mealsPerDay = Math.max(1, mealsPerDay);
+            slot = new int[this.days * this.mealsPerDay];
+            Arrays.fill(slot, -1);
+
+            // every item, so waste counts what no candidate uses too
+            Map<String, Integer> itemIndex = new HashMap<>();
+            List<PantryItem> items = new ArrayList<>();
+            for (var e : pantry.entrySet()) {
+                if (e.getValue() == null || e.getKey() == null) continue;
+                itemIndex.put(e.getKey(), items.size());
+                items.add(e.getValue());
+            }
+            uses = new int[candidates.size()][];
+            useQty = new double[candidates.size()][];
+            fixedShort = new double[candidates.size()];
+            for (int r = 0; r < candidates.size(); r++) {
+                Map<Integer, Double> need = new LinkedHashMap<>();
+                Recipe recipe = candidates.get(r);
+                if (recipe.ingredients != null) for (Ingredient ing : recipe.ingredients) {
+                    if (ing == null || ing.name == null) continue;
+                    double amount = ing.amount * Math.max(1, servings);
+                    Integer k = itemIndex.get(PantryStore.keyOf(ing.name));
+                    PantryItem item = k == null ? null : items.get(k);
+                    boolean convertible = item != null && (item.unit == null || ing.unit == null
+                            || (units == null ? item.unit.equalsIgnoreCase(ing.unit) : units.canConvert(ing.unit, item.unit)));
+                    if (!convertible) { fixedShort[r] += amount * gramsPer(units, ing.unit); continue; }
+                    double inItemUnit = item.unit == null || ing.unit == null || units == null ? amount : units.convert(amount, ing.unit, item.unit);
+                    need.merge(k, inItemUnit, Double::sum);
+                }
+                uses[r] = need.keySet().stream().mapToInt(Integer::intValue).toArray();
+                useQty[r] = need.values().stream().mapToDouble(Double::doubleValue).toArray();
+            }
+
+            int m = items.size();
+            lotDay = new int[m][];
+            lotQty = new double[m][];
+            grams = new double[m];
+            demand = new double[m][this.days];
+            itemWaste = new double[m];
+            itemShort = new double[m];
+            for (int k = 0; k < m; k++) {
+                PantryItem item = items.get(k);
+                grams[k] = gramsPer(units, item.unit);
+                List<Lot> usable = new ArrayList<>();
+                for (Lot l : item.lots()) if (l.expiresOn() == null || !l.expiresOn().isBefore(start)) usable.add(l); // already expired: sunk
+                lotDay[k] = new int[usable.size()];
+                lotQty[k] = new double[usable.size()];
+                for (int i = 0; i < usable.size(); i++) {
+                    LocalDate d = usable.get(i).expiresOn();
+                    lotDay[k][i] = d == null ? Integer.MAX_VALUE : (int) Math.min(Integer.MAX_VALUE, ChronoUnit.DAYS.between(start, d));
+                    lotQty[k][i] = usable.get(i).quantity();
+                }
+                simulate(k);
+                waste += itemWaste[k];
+            }
+        }
+
+        public int slots() { return slot.length; }
+        public int recipeAt(int s) { return slot[s]; }
+        public int[] assignment() { return slot.clone(); }
+        public double wastedGrams() { return waste; }
+        public double shortGrams() { return shortfall; }
+        /** What the search minimizes: grams wasted plus grams short. */
+        public double cost() { return waste + shortfall; }
+
+        public void assign(int s, int recipe) {
+            int old = slot[s];
+            if (old == recipe) return;
+            int day = s / mealsPerDay;
+            if (old >= 0) apply(old, day, -1);
+            slot[s] = recipe;
+            if (recipe >= 0) apply(recipe, day, 1);
+        }
+
+        private void apply(int r, int day, int sign) {
+            shortfall += sign * fixedShort[r];
+            int[] ks = uses[r];
+            for (int i = 0; i < ks.length; i++) {
+                int k = ks[i];
+                demand[k][day] += sign * useQty[r][i];
+                if (sign < 0 && demand[k][day] < 1e-9) demand[k][day] = 0; // no drift once a day is empty again
+                waste -= itemWaste[k];
+                shortfall -= itemShort[k];
+                simulate(k);
+                waste += itemWaste[k];
+                shortfall += itemShort[k];
+            }
+        }
+
+        /** Runs item {@code k} through the horizon: FEFO consumption, then expiry at the end of each lot's day. */
+        private void simulate(int k) {
+            int[] day = lotDay[k];
+            double[] qty = lotQty[k];
+            int n = day.length;
+            if (scratch.length < n) scratch = new double[Math.max(n, scratch.length * 2)];
+            double[] left = scratch;
+            System.arraycopy(qty, 0, left, 0, n);
+            double wasted = 0, missing = 0;
+            int first = 0; // lots before this are used up or expired
+            double[] need = demand[k];
+            for (int d = 0; d < days; d++) {
+                while (first < n && day[first] < d) wasted += left[first++];
+                double want = need[d];
+                for (int i = first; want > 0 && i < n; i++) {
+                    double take = Math.min(left[i], want);
+                    left[i] -= take;
+                    want -= take;
+                    if (left[i] <= 0 && i == first) first++;
+                }
+                if (want > 1e-9) missing += want;
+            }
+            for (int i = first; i < n; i++) if (day[i] < days) wasted += left[i];
+            itemWaste[k] = wasted * grams[k];
+            itemShort[k] = missing * grams[k];
+        }
+
+        /** The current assignment as recipes per day, slot order within a day; totals are summed afresh, free of drift. */
+        public Schedule schedule() {
+            List<List<Recipe>> out = new ArrayList<>();
+            double wasted = 0, missing = 0;
+            for (int k = 0; k < itemWaste.length; k++) { wasted += itemWaste[k]; missing += itemShort[k]; }
+            for (int d = 0; d < days; d++) {
+                List<Recipe> meals = new ArrayList<>();
+                for (int s = d * mealsPerDay; s < (d + 1) * mealsPerDay; s++) {
+                    if (slot[s] < 0) continue;
+                    meals.add(candidates.get(slot[s]));
+                    missing += fixedShort[slot[s]];
+                }
+                out.add(meals);
+            }
+            return new Schedule(start, out, wasted, missing);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.aipantry.services;
+
+import com.example.aipantry.model.Lot;
+import com.example.aipantry.model.PantryItem;
+import com.example.aipantry.model.PersistentMap;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pantry keyed by lowercased item name that reports every add, update and remove
+ * to its listeners, so views can apply the delta instead of rebuilding.
+ * Items are treated as values: replace an item with {@link #put} rather than mutating it.
+ * Listeners run synchronously on the writing thread.
+ * <p>
+ * Writers are serialized on the store. Each edit, or each {@link #batch} of edits, becomes one new
+ * {@link PersistentMap} version that shares structure with the previous one and is published
+ * through an atomic reference together with a version number. Background readers take a
+ * {@link #snapshot()} and plan against it without locks; caches can key on {@link Snapshot#version}.
+ * The same versions back unlimited undo/redo. {@link #asMap()} is for the writing (FX) thread only.
+ */
+public class PantryStore {
+    public enum Kind { ADDED, UPDATED, REMOVED, RESET }
+
+    /** One pantry change. For UPDATED, a different old name means the item was renamed. */
+    public static final class Change {
+        public final Kind kind;
+        public final String key;          // key after the change (before it for REMOVED)
+        public final PantryItem oldItem;  // null for ADDED / RESET
+        public final PantryItem newItem;  // null for REMOVED / RESET
+        public Change(Kind kind, String key, PantryItem oldItem, PantryItem newItem) {
+            this.kind = kind; this.key = key; this.oldItem = oldItem; this.newItem = newItem;
+        }
+        /** Key the item had before this change. */
+        public String previousKey() { return oldItem == null ? key : keyOf(oldItem.name); }
+    }
+
+    /** A published, immutable version of the pantry; safe to read from any thread. */
+    public static final class Snapshot {
+        public final long version;
+        public final PersistentMap<String, PantryItem> items;
+        Snapshot(long version, PersistentMap<String, PantryItem> items) { this.version = version; this.items = items; }
+        public PantryItem get(String name) { return items.get(keyOf(name)); }
+        public int size() { return items.size(); }
+        public Map<String, PantryItem> asMap() { return items.asMap(); }
+    }
+
+    public interface Listener { void onChange(Change c); }
+
+    private final Map<String, PantryItem> items = new LinkedHashMap<>();
+    private final Map<String, PantryItem> view = Collections.unmodifiableMap(items);
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicReference<Snapshot> published = new AtomicReference<>(new Snapshot(0, PersistentMap.empty()));
+    // writer state, guarded by this
+    private PersistentMap<String, PantryItem> working = PersistentMap.empty();
+    private PersistentMap<String, PantryItem> batchBase;
+    private int batchDepth;
+    private final Deque<PersistentMap<String, PantryItem>> undo = new ArrayDeque<>();
+    private final Deque<PersistentMap<String, PantryItem>> redo = new ArrayDeque<>();
+
+    public static String keyOf(String name) { return name == null ? null : name.toLowerCase(); }
+
+    public void addListener(Listener l) { listeners.add(l); }
+    public void removeListener(Listener l) { listeners.remove(l); }
+
+    /** Live read-only view in insertion order. */
+    public Map<String, PantryItem> asMap() { return view; }
+    public PantryItem get(String name) { return items.get(keyOf(name)); }
+    public int size() { return items.size(); }
+
+    /** The latest published version; lock-free. */
+    public Snapshot snapshot() { return published.get(); }
+    public long version() { return published.get().version; }
+
+    /**
+     * Runs several edits as one version and one undo step. Listeners still see each change as it
+     * happens; readers only see the result. Batches may nest.
+     */
+    public synchronized void batch(Runnable edits) {
+        if (batchDepth++ == 0) batchBase = working;
+        try {
+            edits.run();
+        } finally {
+            if (--batchDepth == 0) {
+                PersistentMap<String, PantryItem> before = batchBase;
+                batchBase = null;
+                if (before != working) {
+                    undo.push(before);
+                    redo.clear();
+                    publish();
+                }
+            }
+        }
+    }
+
+    /** Adds the item or replaces the one with the same name; the name must not be null. */
+    public void put(PantryItem item) { batch(() -> putItem(item)); }
+
+    public PantryItem remove(String name) {
+        PantryItem[] prev = new PantryItem[1];
+        batch(() -> prev[0] = removeItem(keyOf(name)));
+        return prev[0];
+    }
+
+    /**
+     * Adds {@code item} as another lot of the stored item with the same name and unit, so purchases with
+     * different dates stay apart; otherwise stores it as is.
+     */
+    public void addLot(PantryItem item) {
+        batch(() -> {
+            PantryItem prev = items.get(keyOf(item.name));
+            boolean sameUnit = prev != null && (prev.unit == null ? item.unit == null : prev.unit.equalsIgnoreCase(item.unit));
+            if (!sameUnit) { putItem(item); return; }
+            PantryItem merged = prev;
+            for (Lot l : item.lots()) merged = merged.withLot(l);
+            putItem(merged);
+        });
+    }
+
+    /** Takes {@code amount} of the named item, soonest-expiring lots first; returns the amount actually taken. */
+    public double consume(String name, double amount) {
+        double[] taken = new double[1];
+        batch(() -> {
+            PantryItem prev = items.get(keyOf(name));
+            if (prev == null || amount <= 0) return;
+            PantryItem left = prev.consume(amount);
+            taken[0] = prev.quantity - left.quantity;
+            putItem(left);
+        });
+        return taken[0];
+    }
+
+    /**
+     * Applies {@code updates} (key to new item, null to remove) as one version and one undo step, but only
+     * if every key in {@code expected} still holds exactly that item (null: absent). Items are immutable
+     * values, so identity tells whether anyone wrote the key since it was read. Returns false, changing
+     * nothing, on a conflict.
+     */
+    public synchronized boolean compareAndSet(Map<String, PantryItem> expected, Map<String, PantryItem> updates) {
+        for (var e : expected.entrySet()) if (working.get(e.getKey()) != e.getValue()) return false;
+        batch(() -> {
+            for (var e : updates.entrySet()) {
+                if (e.getValue() == null) removeItem(e.getKey()); else putItem(e.getValue());
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Replaces the item stored under {@code oldName} with {@code renamed} as a single UPDATED change,
+     * so views can keep its row. An existing item under the new name is removed first.
+     */
+    public void rename(String oldName, PantryItem renamed) {
+        batch(() -> {
+            String oldKey = keyOf(oldName), newKey = keyOf(renamed.name);
+            PantryItem prev = items.get(oldKey);
+            if (prev == null || oldKey.equals(newKey)) { putItem(renamed); return; }
+            removeItem(newKey);
+            items.remove(oldKey);
+            items.put(newKey, renamed);
+            working = working.minus(oldKey).plus(newKey, renamed);
+            fire(new Change(Kind.UPDATED, newKey, prev, renamed));
+        });
+    }
+
+    /** Swaps in a whole new pantry (load / import); listeners get a single RESET. Undoable like any edit. */
+    public void replaceAll(Map<String, PantryItem> pantry) {
+        batch(() -> {
+            items.clear();
+            if (pantry != null) for (PantryItem p : pantry.values()) if (p != null && p.name != null) items.put(keyOf(p.name), p);
+            working = PersistentMap.of(items);
+            fire(new Change(Kind.RESET, null, null, null));
+        });
+    }
+
+    // ---------- Undo / redo ----------
+
+    public synchronized boolean canUndo() { return !undo.isEmpty(); }
+    public synchronized boolean canRedo() { return !redo.isEmpty(); }
+
+    /** Steps back one edit; listeners see the per-item changes between the two versions. */
+    public synchronized boolean undo() {
+        if (undo.isEmpty() || batchDepth > 0) return false;
+        redo.push(working);
+        restore(undo.pop());
+        return true;
+    }
+
+    public synchronized boolean redo() {
+        if (redo.isEmpty() || batchDepth > 0) return false;
+        undo.push(working);
+        restore(redo.pop());
+        return true;
+    }
+
+    private void publish() { published.set(new Snapshot(published.get().version + 1, working)); }
+
+    /** Moves to another version, emitting only what differs; large jumps (e.g. undoing a load) emit one RESET. */
+    private void restore(PersistentMap<String, PantryItem> target) {
+        List<Change> changes = new ArrayList<>();
+        working.diff(target, new PersistentMap.Differ<>() {
+            @Override public void added(String key, PantryItem v) { changes.add(new Change(Kind.ADDED, key, null, v)); }
+            @Override public void removed(String key, PantryItem v) { changes.add(new Change(Kind.REMOVED, key, v, null)); }
+            @Override public void changed(String key, PantryItem o, PantryItem n) { changes.add(new Change(Kind.UPDATED, key, o, n)); }
+        });
+        working = target;
+        publish();
+        // one item out and one in is a rename: report it as an UPDATED so views keep the row
+        if (changes.size() == 2 && changes.get(0).kind != changes.get(1).kind
+                && changes.get(0).kind != Kind.UPDATED && changes.get(1).kind != Kind.UPDATED) {
+            Change out = changes.get(0).kind == Kind.REMOVED ? changes.get(0) : changes.get(1);
+            Change in = out == changes.get(0) ? changes.get(1) : changes.get(0);
+            items.remove(out.key);
+            items.put(in.key, in.newItem);
+            fire(new Change(Kind.UPDATED, in.key, out.oldItem, in.newItem));
+            return;
+        }
+        boolean reset = changes.size() > 16 && changes.size() > items.size() / 4;
+        // removals first so a rename undone as remove+add never briefly holds both keys
+        changes.sort(Comparator.comparing(c -> c.kind != Kind.REMOVED));
+        for (Change c : changes) {
+            if (c.kind == Kind.REMOVED) items.remove(c.key); else items.put(c.key, c.newItem);
+            if (!reset) fire(c);
+        }
+        if (reset) fire(new Change(Kind.RESET, null, null, null));
+    }
+
+    private void putItem(PantryItem item) {
+        if (item.name == null) throw new IllegalArgumentException("Pantry item has no name");
+        String key = keyOf(item.name);
+        PantryItem prev = items.put(key, item);
+        working = working.plus(key, item);
+        fire(new Change(prev == null ? Kind.ADDED : Kind.UPDATED, key, prev, item));
+    }
+
+    private PantryItem removeItem(String key) {
+        PantryItem prev = items.remove(key);
+        if (prev == null) return null;
+        working = working.minus(key);
+        fire(new Change(Kind.REMOVED, key, prev, null));
+        return prev;
+    }
+
+    private void fire(Change c) { for (Listener l : listeners) l.onChange(c); }
+}
@@ -1,11 +1,17 @@
 package com.example.aipantry.services;
 
 import com.example.aipantry.model.*;
+import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.Collectors;
 
 public class Planner {
-    private final RuleEngine engine = new RuleEngine();
+    private final RuleEngine engine;
+
+    public Planner() { this(new RuleEngine()); }
+    /** Plans with {@code engine}'s rules, including its substitutions. */
+    public Planner(RuleEngine engine) { this.engine = engine; }
+
     public List<Recipe> plan(List<Recipe> recipes, Map<String, PantryItem> pantry, int meals, Set<String> requiredTags, int maxCookMinutes) {
         return recipes.stream()
             .sorted((a,b) -> Double.compare(
@@ -14,4 +20,122 @@ public class Planner {
             .limit(meals)
             .collect(Collectors.toList());
     }
+
+    /**
+     * Catalog counterpart of {@link #plan}: scores every recipe over the columns and returns the indices
+     * of the best {@code meals}, best first. Ties keep catalog order, as the stable sort above does.
+     * Only the top {@code meals} are kept while scoring, so memory does not grow with the catalog.
+     */
+    public int[] plan(RecipeColumns catalog, Map<String, PantryItem> pantry, int meals, Set<String> requiredTags, int maxCookMinutes) {
+        TopK top = new TopK(Math.max(0, Math.min(meals, catalog.size())));
+        engine.scoreEach(catalog, engine.bind(catalog, pantry, LocalDate.now()), requiredTags, maxCookMinutes, top::offer);
+        return top.result();
+    }
+
+    /**
+     * Like {@link #plan(RecipeColumns, Map, int, Set, int)}, but with the tags and/or the time limit as
+     * hard filters: only recipes passing them (found through {@code facets}) are scored at all.
+     */
+    public int[] plan(RecipeColumns catalog, FacetIndex facets, Map<String, PantryItem> pantry, int meals,
+                      Set<String> requiredTags, int maxCookMinutes, boolean requireTags, boolean requireTime) {
+        if (!requireTags && !requireTime) return plan(catalog, pantry, meals, requiredTags, maxCookMinutes);
+        int[] candidates = facets.candidates(requireTags ? requiredTags : null, requireTime ? maxCookMinutes : -1);
+        TopK top = new TopK(Math.max(0, Math.min(meals, candidates.length)));
+        if (candidates.length > 0) engine.scoreEach(catalog, engine.bind(catalog, pantry, LocalDate.now()), candidates, requiredTags, maxCookMinutes, top::offer);
+        return top.result();
+    }
+
+    /**
+     * Plans like the filtering {@code plan} above, then re-ranks for variety with maximal marginal
+     * relevance: from a pool of the best-scoring recipes, each pick maximizes
+     * {@code lambda * score/100 - (1 - lambda) * (highest ingredient similarity to a recipe already picked)}.
+     * {@code lambda = 1} is the plain plan; lower values trade score for variety. Only the pool is
+     * compared, never the whole catalog. {@code facets} may be null when no hard filter is set.
+     */
+    public int[] planDiverse(RecipeColumns catalog, FacetIndex facets, SimilarityIndex similarity, Map<String, PantryItem> pantry, int meals,
+                             Set<String> requiredTags, int maxCookMinutes, boolean requireTags, boolean requireTime, double lambda) {
+        int poolSize = Math.max(meals * 8, 32);
+        int[] pool = requireTags || requireTime
+                ? plan(catalog, facets, pantry, poolSize, requiredTags, maxCookMinutes, requireTags, requireTime)
+                : plan(catalog, pantry, poolSize, requiredTags, maxCookMinutes);
+        if (pool.length <= 1 || lambda >= 1) return Arrays.copyOf(pool, Math.min(meals, pool.length));
+        // relevance of the pool members, rescored in catalog order
+        int[] sorted = pool.clone();
+        Arrays.sort(sorted);
+        Map<Integer, Double> score = new HashMap<>();
+        engine.scoreEach(catalog, engine.bind(catalog, pantry, LocalDate.now()), sorted, requiredTags, maxCookMinutes, score::put);
+
+        int[] out = new int[Math.min(meals, pool.length)];
+        double[] nearest = new double[pool.length]; // highest similarity to any pick so far
+        boolean[] used = new boolean[pool.length];
+        for (int n = 0; n < out.length; n++) {
+            int best = -1;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < pool.length; i++) {
+                if (used[i]) continue;
+                double v = lambda * score.get(pool[i]) / 100.0 - (1 - lambda) * nearest[i];
+                if (v > bestValue) { bestValue = v; best = i; } // ties keep plan order
+            }
+            used[best] = true;
+            out[n] = pool[best];
+            for (int i = 0; i < pool.length; i++) if (!used[i]) nearest[i] = Math.max(nearest[i], similarity.similarity(pool[i], pool[best]));
+        }
+        return out;
+    }
+
+    /** Like {@link #plan(RecipeColumns, Map, int, Set, int)} but materializes just the chosen recipes. */
+    public List<Recipe> planRecipes(RecipeColumns catalog, Map<String, PantryItem> pantry, int meals, Set<String> requiredTags, int maxCookMinutes) {
+        List<Recipe> out = new ArrayList<>();
+        for (int r : plan(catalog, pantry, meals, requiredTags, maxCookMinutes)) out.add(catalog.recipe(r));
+        return out;
+    }
+
+    /**
+     * Bounded min-heap of (score, index) fed in index order. The root is the current worst; since
+     * indices arrive ascending, a later recipe only displaces it with a strictly higher score.
+     */
+    static final class TopK {
+        private final double[] scores;
+        private final int[] ids;
+        private int size;
+
+        TopK(int k) { scores = new double[k]; ids = new int[k]; }
+
+        void offer(int id, double score) {
+            if (scores.length == 0) return;
+            if (size < scores.length) {
+                int i = size++;
+                scores[i] = score; ids[i] = id;
+                while (i > 0 && worse(i, (i - 1) / 2)) { swap(i, (i - 1) / 2); i = (i - 1) / 2; }
+            } else if (score > scores[0]) {
+                scores[0] = score; ids[0] = id;
+                for (int i = 0; ; ) {
+                    int l = 2 * i + 1, r = l + 1, w = i;
+                    if (l < size && worse(l, w)) w = l;
+                    if (r < size && worse(r, w)) w = r;
+                    if (w == i) break;
+                    swap(i, w); i = w;
+                }
+            }
+        }
+
+        /** Indices best first: higher score, then lower index. */
+        int[] result() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> worse(a, b) ? 1 : worse(b, a) ? -1 : 0);
+            int[] out = new int[size];
+            for (int i = 0; i < size; i++) out[i] = ids[order[i]];
+            return out;
+        }
+
+        private boolean worse(int a, int b) {
+            return scores[a] < scores[b] || (scores[a] == scores[b] && ids[a] > ids[b]);
+        }
+
+        private void swap(int a, int b) {
+            double s = scores[a]; scores[a] = scores[b]; scores[b] = s;
+            int t = ids[a]; ids[a] = ids[b]; ids[b] = t;
+        }
+    }
 }
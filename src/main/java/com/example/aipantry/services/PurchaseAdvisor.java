@@ -0,0 +1,162 @@
+package com.example.aipantry.services;
+
+import com.example.aipantry.model.RecipeColumns;
+
+import java.util.*;
+
+/**
+ * "What should I buy next": ranks missing ingredients by marginal gain over a whole catalog using the
+ * inverted index of a {@link CookableIndex}. Buying an ingredient is taken to satisfy every recipe row
+ * that uses it; rows a substitute already covers are not missing, and gain only the credit the
+ * substitute's penalty withholds. Give it the stock from {@link RuleEngine#bind} of the engine that plans. Nothing here re-runs the planner per candidate: unlock counts are kept incrementally
+ * from per-recipe missing counts, and plan gains come from one scoring pass plus each candidate's postings.
+ */
+public class PurchaseAdvisor {
+    /** One suggested purchase. {@code unlocked} and {@code closer} are marginal to earlier suggestions. */
+    public static final class Suggestion {
+        public final String ingredient;
+        public final int unlocked;      // recipes it makes fully covered
+        public final int closer;        // recipes it removes a missing ingredient from
+        public final double planGain;   // rise of the summed plan score (raisePlanScore only)
+        Suggestion(String ingredient, int unlocked, int closer, double planGain) {
+            this.ingredient = ingredient; this.unlocked = unlocked; this.closer = closer; this.planGain = planGain;
+        }
+        @Override public String toString() { return ingredient + " (+" + unlocked + " recipes)"; }
+    }
+
+    private final CookableIndex index;
+    private final RecipeColumns catalog;
+    private final RuleEngine engine;
+
+    public PurchaseAdvisor(CookableIndex index) { this(index, new RuleEngine()); }
+
+    public PurchaseAdvisor(CookableIndex index, RuleEngine engine) {
+        this.index = index;
+        this.catalog = index.catalog();
+        this.engine = engine;
+    }
+
+    /**
+     * Up to {@code n} ingredients chosen greedily: each unlocks the most recipes given the ones before
+     * it (ties: the most recipes brought closer). Rows are judged with quantities, like {@code explain}.
+     */
+    public List<Suggestion> unlockMost(RecipeColumns.Stock stock, int n) {
+        int recipes = catalog.size(), ids = catalog.distinctIngredients();
+        int[] missing = new int[recipes];   // distinct missing ingredients per recipe
+        int[] gain = new int[ids];          // recipes whose only missing ingredient is this one
+        int[] closer = new int[ids];        // recipes missing this one
+        int[] stamp = new int[ids];
+        Arrays.fill(stamp, -1);
+        for (int r = 0; r < recipes; r++) {
+            for (int k = catalog.start(r); k < catalog.end(r); k++) {
+                int id = catalog.ingredientId(k);
+                if (stamp[id] == r || index.rowOk(k, stock)) continue;
+                stamp[id] = r;
+                missing[r]++;
+                closer[id]++;
+            }
+        }
+        boolean[] bought = new boolean[ids];
+        for (int r = 0; r < recipes; r++) if (missing[r] == 1) gain[onlyMissing(r, stock, bought)]++;
+
+        List<Suggestion> out = new ArrayList<>();
+        int[] seen = new int[recipes];
+        for (int step = 1; step <= n; step++) {
+            int best = -1;
+            for (int id = 0; id < ids; id++) {
+                if (bought[id] || closer[id] == 0) continue;
+                if (best < 0 || gain[id] > gain[best] || (gain[id] == gain[best] && closer[id] > closer[best])) best = id;
+            }
+            if (best < 0) break;
+            out.add(new Suggestion(catalog.ingredientName(best), gain[best], closer[best], 0));
+            bought[best] = true;
+            // only recipes on the bought ingredient's postings change
+            for (int p = index.postingStart(best); p < index.postingEnd(best); p++) {
+                int row = index.postingRow(p), r = index.rowRecipe(row);
+                if (seen[r] == step || index.rowOk(row, stock)) continue;
+                seen[r] = step;
+                // two short -> one short: the other ingredient now unlocks it (closer counts of others stay as they are)
+                if (--missing[r] == 1) gain[onlyMissing(r, stock, bought)]++;
+            }
+            gain[best] = 0;
+            closer[best] = 0;
+        }
+        return out;
+    }
+
+    /**
+     * Single ingredients ranked by how much buying each raises the plan score, i.e. the sum of the best
+     * {@code meals} scores under {@link RuleEngine} rules, best first; at most {@code limit} are returned.
+     */
+    public List<Suggestion> raisePlanScore(RecipeColumns.Stock stock, Set<String> requiredTags, int maxCookMinutes, int meals, int limit) {
+        int recipes = catalog.size(), ids = catalog.distinctIngredients();
+        int k = Math.min(meals, recipes);
+        if (k <= 0) return List.of();
+        double[] scores = engine.scoreAll(catalog, stock, requiredTags, maxCookMinutes);
+        // a candidate displaces at most as many ranked recipes as it touches, so only that much of the ranking is needed
+        int widest = 0;
+        for (int id = 0; id < ids; id++) widest = Math.max(widest, index.postingEnd(id) - index.postingStart(id));
+        Planner.TopK ranking = new Planner.TopK(Math.min(recipes, k + widest));
+        for (int r = 0; r < recipes; r++) ranking.offer(r, scores[r]);
+        int[] order = ranking.result();
+        double baseline = 0;
+        for (int i = 0; i < k; i++) baseline += scores[order[i]];
+
+        int[] stamp = new int[recipes];
+        Arrays.fill(stamp, -1);
+        double[] raised = new double[recipes];
+        int[] affected = new int[16];
+        double[] top = new double[k];
+        List<Suggestion> out = new ArrayList<>();
+        for (int id = 0; id < ids; id++) {
+            // new scores of the recipes this purchase touches
+            int count = 0;
+            for (int p = index.postingStart(id); p < index.postingEnd(id); p++) {
+                int row = index.postingRow(p), r = index.rowRecipe(row);
+                double gain = RuleEngine.rowGain(catalog, r, row, stock);
+                if (gain <= 0) continue;
+                if (stamp[r] != id) {
+                    stamp[r] = id;
+                    raised[r] = scores[r];
+                    if (count == affected.length) affected = Arrays.copyOf(affected, count * 2);
+                    affected[count++] = r;
+                }
+                raised[r] += gain;
+            }
+            if (count == 0) continue;
+            // best k raised scores, descending (k is a handful of meals)
+            int ups = 0;
+            for (int i = 0; i < count; i++) {
+                double v = RuleEngine.cap(raised[affected[i]]);
+                if (ups == k && v <= top[k - 1]) continue;
+                int j = ups < k ? ups++ : k - 1;
+                while (j > 0 && top[j - 1] < v) { top[j] = top[j - 1]; j--; }
+                top[j] = v;
+            }
+            // merge them with the untouched ranking, skipping touched recipes
+            double sum = 0;
+            int taken = 0, u = 0, o = 0;
+            while (taken < k) {
+                while (o < order.length && stamp[order[o]] == id) o++;
+                double fromOrder = o < order.length ? scores[order[o]] : Double.NEGATIVE_INFINITY;
+                double fromUp = u < ups ? top[u] : Double.NEGATIVE_INFINITY;
+                if (fromUp == Double.NEGATIVE_INFINITY && fromOrder == Double.NEGATIVE_INFINITY) break;
+                if (fromUp > fromOrder) { sum += fromUp; u++; } else { sum += fromOrder; o++; }
+                taken++;
+            }
+            double g = sum - baseline;
+            if (g > 1e-9) out.add(new Suggestion(catalog.ingredientName(id), 0, count, g));
+        }
+        out.sort(Comparator.comparingDouble((Suggestion s) -> -s.planGain).thenComparing(s -> s.ingredient));
+        return out.size() > limit ? new ArrayList<>(out.subList(0, limit)) : out;
+    }
+
+    /** The one ingredient recipe {@code r} still misses. */
+    private int onlyMissing(int r, RecipeColumns.Stock stock, boolean[] bought) {
+        for (int k = catalog.start(r); k < catalog.end(r); k++) {
+            int id = catalog.ingredientId(k);
+            if (!bought[id] && !index.rowOk(k, stock)) return id;
+        }
+        throw new IllegalStateException("recipe " + r + " misses nothing");
+    }
+}
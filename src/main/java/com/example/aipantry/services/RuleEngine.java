@@ -6,12 +6,107 @@ import java.util.Map;
 import java.util.Set;
 
 public class RuleEngine {
+    /** Score points for full pantry coverage; each ingredient row is worth an equal share. */
+    public static final double COVERAGE_POINTS = 70.0;
+    public static final double MAX_SCORE = 100.0;
+
+    private volatile SubstitutionGraph substitutions;
+
+    public RuleEngine() { this(SubstitutionGraph.EMPTY); }
+    public RuleEngine(SubstitutionGraph substitutions) {
+        this.substitutions = substitutions == null ? SubstitutionGraph.EMPTY : substitutions;
+    }
+
+    /** Substitutes count toward coverage, less their penalty, for ingredients the pantry lacks. */
+    public void setSubstitutions(SubstitutionGraph substitutions) {
+        this.substitutions = substitutions == null ? SubstitutionGraph.EMPTY : substitutions;
+    }
+
+    public SubstitutionGraph substitutions() { return substitutions; }
+
+    /** {@link RecipeColumns#bind} plus the pantry's substitutes, as {@link #scoreEach} needs them to match {@link #explain}. */
+    public RecipeColumns.Stock bind(RecipeColumns catalog, Map<String, PantryItem> pantry, LocalDate today) {
+        RecipeColumns.Stock stock = catalog.bind(pantry, today);
+        substitutions.bind(catalog, pantry, stock);
+        return stock;
+    }
 
     /** Backwards-compatible: returns only the final score. */
     public double score(Recipe recipe, Map<String, PantryItem> pantry, Set<String> requiredTags, int maxCookMinutes) {
         return explain(recipe, pantry, requiredTags, maxCookMinutes).totalScore;
     }
 
+    /** Receives one score per recipe from {@link #scoreEach}. */
+    public interface ScoreSink { void accept(int recipe, double score); }
+
+    /** Scores every recipe of the catalog; same rules and result as {@link #score} for each recipe. */
+    public double[] scoreAll(RecipeColumns catalog, RecipeColumns.Stock stock, Set<String> requiredTags, int maxCookMinutes) {
+        double[] out = new double[catalog.size()];
+        scoreEach(catalog, stock, requiredTags, maxCookMinutes, (r, s) -> out[r] = s);
+        return out;
+    }
+
+    /**
+     * Scores recipes in catalog order in one pass over the columns, without allocating per recipe,
+     * so callers can keep just what they need (e.g. a top-K) however large the catalog is.
+     */
+    public void scoreEach(RecipeColumns catalog, RecipeColumns.Stock stock, Set<String> requiredTags, int maxCookMinutes, ScoreSink sink) {
+        scoreEach(catalog, stock, null, requiredTags, maxCookMinutes, sink);
+    }
+
+    /** Scores only {@code recipes} (ascending catalog indices, e.g. from {@link FacetIndex}); null scores them all. */
+    public void scoreEach(RecipeColumns catalog, RecipeColumns.Stock stock, int[] recipes, Set<String> requiredTags, int maxCookMinutes, ScoreSink sink) {
+        int n = recipes == null ? catalog.size() : recipes.length;
+        long[] required = requiredTags == null ? null : catalog.tagMask(requiredTags);
+        boolean anyTags = requiredTags == null || required != null;
+        double[] qty = stock.quantity;
+        boolean[] perishable = stock.perishable;
+        for (int i = 0; i < n; i++) {
+            int r = recipes == null ? i : recipes[i];
+            int start = catalog.start(r), end = catalog.end(r);
+            double have = 0;
+            boolean usesPerishable = false;
+            for (int k = start; k < end; k++) {
+                int id = catalog.ingredientId(k);
+                usesPerishable |= qty[id] == qty[id] && perishable[id]; // NaN: not in pantry
+                have += rowCredit(catalog, k, stock);
+            }
+            int total = end - start;
+            double score = COVERAGE_POINTS * (total == 0 ? 1.0 : have / total);
+            if (usesPerishable) score += 15.0;
+            if (catalog.cookMinutes(r) <= maxCookMinutes) score += 10.0;
+            if (requiredTags == null || (anyTags && catalog.hasAllTags(r, required))) score += 5.0;
+            sink.accept(r, cap(score));
+        }
+    }
+
+    /** How much of ingredient row {@code k} counts as covered: 1 in stock, a substitute's credit, else 0. */
+    public static double rowCredit(RecipeColumns catalog, int k, RecipeColumns.Stock stock) {
+        int id = catalog.ingredientId(k), iu = catalog.unitId(k);
+        double q = stock.quantity[id];
+        if (q == q) {
+            int pu = stock.unit[id];
+            if ((pu == RecipeColumns.NO_UNIT || iu == RecipeColumns.NO_UNIT || pu == iu) && q >= catalog.amount(k)) return 1;
+        }
+        RecipeColumns.Substitutes subs = stock.substitutes;
+        if (subs != null) for (int j = subs.start[id]; j < subs.start[id + 1]; j++) {
+            int su = subs.unit[j];
+            if ((su == RecipeColumns.NO_UNIT || iu == RecipeColumns.NO_UNIT || su == iu) && subs.quantity[j] >= catalog.amount(k) * subs.ratio[j]) return subs.credit[j];
+        }
+        return 0;
+    }
+
+    /**
+     * Rise of recipe {@code r}'s score, before {@link #cap}, if its row {@code k} became fully covered
+     * (e.g. by buying the ingredient): the row's share of {@link #COVERAGE_POINTS} not yet credited.
+     */
+    public static double rowGain(RecipeColumns catalog, int r, int k, RecipeColumns.Stock stock) {
+        return COVERAGE_POINTS / (catalog.end(r) - catalog.start(r)) * (1 - rowCredit(catalog, k, stock));
+    }
+
+    /** The final clamp every score goes through. */
+    public static double cap(double score) { return Math.min(MAX_SCORE, score); }
+
     /** Returns a transparent breakdown for UI display. */
     public RuleExplanation explain(Recipe recipe, Map<String, PantryItem> pantry, Set<String> requiredTags, int maxCookMinutes) {
         RuleExplanation ex = new RuleExplanation();
@@ -27,21 +122,26 @@ public class RuleEngine {
                     ok = item.quantity >= ing.amount;
                 }
             }
-            if (ok) ex.haveCount++;
-            else    ex.missing.add(ing.name + " (" + ing.amount + " " + ing.unit + ")");
+            if (ok) { ex.haveCount++; continue; }
+            SubstitutionGraph.Substitute sub = substitutions.find(ing.name, ing.amount, ing.unit, pantry);
+            if (sub != null) {
+                ex.substitutionCredit += sub.credit();
+                ex.substitutes.add(ing.name.toLowerCase() + " → " + sub);
+            } else {
+                ex.missing.add(ing.name + " (" + ing.amount + " " + ing.unit + ")");
+            }
         }
-        ex.coverage = ex.totalIngredients == 0 ? 1.0 : (double) ex.haveCount / ex.totalIngredients;
-        ex.baseFromCoverage = 70.0 * ex.coverage;
-
-        // 2) Perishables bonus (ingredient used that expires in <= 3 days)
-        for (PantryItem item : pantry.values()) {
-            if (item.expiresOn != null && item.expiresOn.isBefore(LocalDate.now().plusDays(3))) {
-                boolean used = recipe.ingredients.stream().anyMatch(i -> i.name.equalsIgnoreCase(item.name));
-                if (used) {
-                    ex.perishablesBonus = 15.0;
-                    ex.perishablesUsed.add(item.name + " exp " + item.expiresOn);
-                    break;
-                }
+        ex.coverage = ex.totalIngredients == 0 ? 1.0 : (ex.haveCount + ex.substitutionCredit) / ex.totalIngredients;
+        ex.baseFromCoverage = COVERAGE_POINTS * ex.coverage;
+
+        // 2) Perishables bonus (ingredient used that expires in <= 3 days); items carry their earliest lot date
+        LocalDate soon = LocalDate.now().plusDays(3);
+        for (Ingredient ing : recipe.ingredients) {
+            PantryItem item = pantry.get(ing.name.toLowerCase());
+            if (item != null && item.expiresOn != null && item.expiresOn.isBefore(soon)) {
+                ex.perishablesBonus = 15.0;
+                ex.perishablesUsed.add(item.name + " exp " + item.expiresOn);
+                break;
             }
         }
 
@@ -52,7 +152,7 @@ public class RuleEngine {
         if (requiredTags == null || recipe.tags.containsAll(requiredTags)) ex.tagBonus = 5.0;
 
         // 5) Final
-        ex.totalScore = Math.min(100.0, ex.baseFromCoverage + ex.perishablesBonus + ex.timeBonus + ex.tagBonus);
+        ex.totalScore = cap(ex.baseFromCoverage + ex.perishablesBonus + ex.timeBonus + ex.tagBonus);
         return ex;
     }
 }
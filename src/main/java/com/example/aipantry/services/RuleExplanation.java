@@ -8,8 +8,10 @@ public class RuleExplanation {
     // ingredients
     public int haveCount;
     public int totalIngredients;
-    public double coverage;           // 0..1
+    public double coverage;           // 0..1, (haveCount + substitutionCredit) / totalIngredients
     public List<String> missing = new ArrayList<>();
+    public List<String> substitutes = new ArrayList<>(); // "cheddar → mozzarella ×1 (−20%)", in recipe order
+    public double substitutionCredit;  // coverage earned by substitutes, sum of (1 - penalty)
 
     // bonuses
     public double perishablesBonus;   // usually 0 or 15
@@ -0,0 +1,118 @@
+package com.example.aipantry.services;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * In-memory search over the words of each item's text (recipe title/tags/ingredients, pantry name).
+ * Tokens live in a sorted map, so a query word matches every token it prefixes with one range scan;
+ * each token maps to the ids of the items containing it. A query matches items containing all of
+ * its words. Items are tracked by identity; re-add an item after replacing it.
+ * Not thread-safe: use from the thread that owns the view (the FX thread).
+ */
+public class SearchIndex<T> {
+    private final Function<T, String> text;
+    private final Map<T, Integer> ids = new IdentityHashMap<>();
+    private final List<String[]> tokensById = new ArrayList<>();
+    private final ArrayDeque<Integer> freeIds = new ArrayDeque<>();
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+
+    public SearchIndex(Function<T, String> text) { this.text = text; }
+
+    public int size() { return ids.size(); }
+
+    public void addAll(Collection<? extends T> items) { for (T t : items) add(t); }
+
+    public void add(T item) {
+        if (item == null || ids.containsKey(item)) return;
+        int id = freeIds.isEmpty() ? tokensById.size() : freeIds.pop();
+        String[] tokens = new LinkedHashSet<>(tokenize(text.apply(item))).toArray(new String[0]);
+        if (id == tokensById.size()) tokensById.add(tokens); else tokensById.set(id, tokens);
+        ids.put(item, id);
+        for (String tok : tokens) postings.computeIfAbsent(tok, k -> new Postings()).add(id);
+    }
+
+    public void remove(T item) {
+        Integer id = item == null ? null : ids.remove(item);
+        if (id == null) return;
+        for (String tok : tokensById.get(id)) {
+            Postings p = postings.get(tok);
+            if (p != null && p.remove(id) && p.size == 0) postings.remove(tok);
+        }
+        tokensById.set(id, null);
+        freeIds.push(id);
+    }
+
+    public void clear() { ids.clear(); tokensById.clear(); freeIds.clear(); postings.clear(); }
+
+    /** Ids of items matching the query, or null when the query has no words (everything matches). */
+    public BitSet match(String query) {
+        BitSet result = null;
+        for (String word : tokenize(query)) {
+            BitSet hits = new BitSet(tokensById.size());
+            for (Postings p : postings.subMap(word, true, word + Character.MAX_VALUE, false).values()) {
+                for (int i = 0; i < p.size; i++) hits.set(p.ids[i]);
+            }
+            if (result == null) result = hits; else result.and(hits);
+            if (result.isEmpty()) break;
+        }
+        return result;
+    }
+
+    /** Filter for a FilteredList; the query is evaluated once, then each row is a bit test. */
+    public Predicate<T> predicate(String query) {
+        BitSet hits = match(query);
+        if (hits == null) return t -> true;
+        return t -> { Integer id = ids.get(t); return id != null && hits.get(id); };
+    }
+
+    /** Whether one item matches the query, from its own words; no posting lists are scanned. */
+    public boolean matches(T item, String query) {
+        Integer id = item == null ? null : ids.get(item);
+        List<String> tokens = id != null ? Arrays.asList(tokensById.get(id)) : tokenize(item == null ? null : text.apply(item));
+        for (String word : tokenize(query)) {
+            boolean hit = false;
+            for (String tok : tokens) if (tok.startsWith(word)) { hit = true; break; }
+            if (!hit) return false;
+        }
+        return true;
+    }
+
+    /** Matching items in no particular order. */
+    public List<T> search(String query) {
+        Predicate<T> p = predicate(query);
+        List<T> out = new ArrayList<>();
+        for (T t : ids.keySet()) if (p.test(t)) out.add(t);
+        return out;
+    }
+
+    /** Lowercased runs of letters and digits. */
+    public static List<String> tokenize(String s) {
+        List<String> out = new ArrayList<>();
+        if (s == null) return out;
+        int start = -1;
+        for (int i = 0; i <= s.length(); i++) {
+            boolean word = i < s.length() && Character.isLetterOrDigit(s.charAt(i));
+            if (word && start < 0) start = i;
+            else if (!word && start >= 0) { out.add(s.substring(start, i).toLowerCase(Locale.ROOT)); start = -1; }
+        }
+        return out;
+    }
+
+    /** Unordered growable set of ids; removal swaps in the last element. */
+    private static final class Postings {
+        int[] ids = new int[2];
+        int size;
+
+        void add(int id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+
+        boolean remove(int id) {
+            for (int i = 0; i < size; i++) if (ids[i] == id) { ids[i] = ids[--size]; return true; }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.aipantry.services;
+
+import com.example.aipantry.model.*;
+import java.util.*;
+
+/**
+ * Running shopping-list totals for a plan that changes a recipe at a time. Each canonical item keeps
+ * what the plan requires and what the pantry holds, in the (display) unit of its first use, in a mutable
+ * accumulator: adding or removing a recipe costs O(its ingredients), a pantry change O(1). Lines
+ * are only produced when read, through {@link #view}. Same results as
+ * {@link ShoppingListService#compute}, which is built on this.
+ * <p>
+ * Register it as a {@link PantryStore} listener over the map it was given (the store's
+ * {@link PantryStore#asMap()}) to follow pantry edits; like that view, use it from the writing thread.
+ */
+public class ShoppingAggregator implements PantryStore.Listener {
+    private static final class Total {
+        final String key, unit;
+        double required, stocked; // in unit
+        int uses;                 // ingredient rows of planned recipes, so a total leaves when its last use does
+        Total(String key, String unit) { this.key = key; this.unit = unit; }
+    }
+
+    private final Map<String, PantryItem> pantry;
+    private final Units units;
+    private final AliasResolver aliases;
+    private final SubstitutionGraph substitutes;
+    private final Map<String, Total> totals = new LinkedHashMap<>();
+    private final Map<Recipe, Integer> planned = new IdentityHashMap<>();
+    private long version;
+
+    /** {@code units}, {@code aliases} and {@code substitutes} may be null. */
+    public ShoppingAggregator(Map<String, PantryItem> pantry, Units units, AliasResolver aliases, SubstitutionGraph substitutes) {
+        this.pantry = pantry;
+        this.units = units;
+        this.aliases = aliases;
+        this.substitutes = substitutes == null || substitutes.isEmpty() ? null : substitutes;
+    }
+
+    /** Bumped whenever the lines may have changed. */
+    public long version() { return version; }
+
+    /** Canonical names of the items the plan uses. */
+    public Set<String> keys() { return Collections.unmodifiableSet(totals.keySet()); }
+
+    public void add(Recipe r) {
+        planned.merge(r, 1, Integer::sum);
+        apply(r, 1);
+    }
+
+    public void remove(Recipe r) {
+        Integer n = planned.get(r);
+        if (n == null) return;
+        if (n == 1) planned.remove(r); else planned.put(r, n - 1);
+        apply(r, -1);
+    }
+
+    /** Makes the plan {@code recipes} (by identity, repeats counted) by adding and removing only the difference. */
+    public void setPlan(List<Recipe> recipes) {
+        Map<Recipe, Integer> want = new IdentityHashMap<>();
+        if (recipes != null) for (Recipe r : recipes) want.merge(r, 1, Integer::sum);
+        for (var e : new ArrayList<>(planned.entrySet())) {
+            for (int i = want.getOrDefault(e.getKey(), 0); i < e.getValue(); i++) remove(e.getKey());
+        }
+        for (var e : want.entrySet()) {
+            for (int i = planned.getOrDefault(e.getKey(), 0); i < e.getValue(); i++) add(e.getKey());
+        }
+    }
+
+    private void apply(Recipe r, int sign) {
+        if (r.ingredients == null) return;
+        for (Ingredient ing : r.ingredients) {
+            if (ing == null || ing.name == null) continue;
+            String key = aliases != null ? aliases.canonical(ing.name) : ing.name.toLowerCase();
+            String baseUnit = units != null ? units.preferredDisplayUnit(ing.unit) : ing.unit;
+            double amt = (units != null && baseUnit != null) ? units.convert(ing.amount, ing.unit, baseUnit) : ing.amount;
+            Total t = totals.get(key);
+            if (t == null) {
+                if (sign < 0) continue;
+                t = new Total(key, baseUnit);
+                restock(t);
+                totals.put(key, t);
+            }
+            t.required += sign * (units != null ? units.convert(amt, baseUnit, t.unit) : amt);
+            t.uses += sign;
+            if (t.uses <= 0) totals.remove(key);
+        }
+        version++;
+    }
+
+    @Override public void onChange(PantryStore.Change c) {
+        if (c.kind == PantryStore.Kind.RESET) {
+            for (Total t : totals.values()) restock(t);
+            version++;
+            return;
+        }
+        boolean hit = restock(c.key) | restock(c.previousKey());
+        if (hit || substitutes != null) version++; // any item may be someone's substitute
+    }
+
+    private boolean restock(String key) {
+        Total t = key == null ? null : totals.get(key);
+        if (t != null) restock(t);
+        return t != null;
+    }
+
+    private void restock(Total t) {
+        PantryItem stock = pantry.get(t.key);
+        t.stocked = stock == null ? 0 : units != null ? units.convert(stock.quantity, stock.unit, t.unit) : stock.quantity;
+    }
+
+    /**
+     * Live, read-only list of what to buy for {@code multiplier} times the plan (the pantry counted
+     * once), first-used item first. It reflects later changes; lines are rebuilt from the totals
+     * only when read after one.
+     */
+    public List<ShoppingListService.Line> view(int multiplier) {
+        int m = Math.max(1, multiplier);
+        return new AbstractList<>() {
+            private long builtAt = -1;
+            private List<ShoppingListService.Line> lines = List.of();
+
+            private List<ShoppingListService.Line> lines() {
+                if (builtAt != version) { lines = build(m); builtAt = version; }
+                return lines;
+            }
+
+            @Override public ShoppingListService.Line get(int i) { return lines().get(i); }
+            @Override public int size() { return lines().size(); }
+        };
+    }
+
+    private List<ShoppingListService.Line> build(int m) {
+        int n = totals.size();
+        double[] remaining = new double[n];
+        Total[] ts = totals.values().toArray(new Total[0]);
+        // pantry left over after direct use, in each item's own unit: what substitutes can draw on
+        Map<String, Double> spare = substitutes == null ? null : new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            Total t = ts[i];
+            double required = t.required * m;
+            remaining[i] = Math.max(0, required - t.stocked);
+            PantryItem stock = spare == null ? null : pantry.get(t.key);
+            if (stock != null) spare.put(t.key, Math.max(0, stock.quantity - (units != null ? units.convert(required, t.unit, stock.unit) : required)));
+        }
+        List<ShoppingListService.Line> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Total t = ts[i];
+            if (spare != null && remaining[i] > 0.0001) remaining[i] = substitute(t, remaining[i], spare);
+            if (remaining[i] > 0.0001) out.add(new ShoppingListService.Line(t.key, Math.round(remaining[i] * 100.0) / 100.0, t.unit));
+        }
+        return out;
+    }
+
+    /** Covers what it can of {@code remaining} from substitutes, best first, at their ratio; returns what is left. */
+    private double substitute(Total t, double remaining, Map<String, Double> spare) {
+        for (var sub : substitutes.candidates(t.key)) {
+            PantryItem stock = pantry.get(sub.name);
+            if (stock == null || !compatible(stock.unit, t.unit)) continue;
+            double left = spare.computeIfAbsent(sub.name, k -> stock.quantity);
+            double available = (units != null ? units.convert(left, stock.unit, t.unit) : left) / sub.ratio;
+            double use = Math.min(remaining, available);
+            if (use <= 0) continue;
+            remaining -= use;
+            spare.put(sub.name, Math.max(0, left - (units != null ? units.convert(use * sub.ratio, t.unit, stock.unit) : use * sub.ratio)));
+            if (remaining <= 0.0001) break;
+        }
+        return remaining;
+    }
+
+    private boolean compatible(String a, String b) {
+        if (a == null || b == null) return true;
+        return units != null ? units.canConvert(a, b) : a.equalsIgnoreCase(b);
+    }
+}
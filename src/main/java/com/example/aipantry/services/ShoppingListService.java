@@ -1,51 +1,158 @@
 package com.example.aipantry.services;
 
 import com.example.aipantry.model.*;
+import java.io.Serial;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class ShoppingListService {
     public static class Line {
         public final String name; public final double amount; public final String unit;
-        public Line(String name,double amount,String unit){ this.name=name; this.amount=amount; this.unit=unit; }
+        public final String aisle; // set by AisleClassifier.arrange, else null
+        public Line(String name,double amount,String unit){ this(name, amount, unit, null); }
+        public Line(String name,double amount,String unit,String aisle){ this.name=name; this.amount=amount; this.unit=unit; this.aisle=aisle; }
         @Override public String toString(){ return name + "," + amount + "," + unit; }
     }
 
     public List<Line> compute(List<Recipe> recipes, Map<String,PantryItem> pantry, Units units, AliasResolver aliases){
-        Map<String, Line> need = new LinkedHashMap<>();
+        return compute(recipes, pantry, units, aliases, null);
+    }
+
+    /**
+     * Like {@link #compute(List, Map, Units, AliasResolver)}, but what the pantry lacks is first taken
+     * from substitutes it holds (best first, at their ratio), out of what the plan leaves of them.
+     */
+    public List<Line> compute(List<Recipe> recipes, Map<String,PantryItem> pantry, Units units, AliasResolver aliases, SubstitutionGraph substitutes){
+        ShoppingAggregator totals = new ShoppingAggregator(pantry, units, aliases, substitutes);
+        for (Recipe r: recipes) totals.add(r);
+        return new ArrayList<>(totals.view(1));
+    }
+
+    /** One household's plan and pantry (keyed like {@link #compute}'s) for {@link #computeAll}. */
+    public static final class Household {
+        public final List<Recipe> plan;
+        public final Map<String,PantryItem> pantry;
+        public Household(List<Recipe> plan, Map<String,PantryItem> pantry){ this.plan = plan; this.pantry = pantry; }
+    }
+
+    /** {@link #computeAll(List, Units, AliasResolver, ForkJoinPool)} on the common pool. */
+    public List<List<Line>> computeAll(List<Household> households, Units units, AliasResolver aliases){
+        return computeAll(households, units, aliases, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * {@link #compute(List, Map, Units, AliasResolver)} for many households at once; results in input
+     * order. Each distinct recipe (by identity) is canonicalized and converted to display units once for
+     * the whole batch, with ingredient names interned to ids; households are then split across
+     * {@code pool}, each leaf task summing into arrays indexed by those ids that it reuses for all of its
+     * households, so a household allocates little beyond its own lines.
+     */
+    public List<List<Line>> computeAll(List<Household> households, Units units, AliasResolver aliases, ForkJoinPool pool){
+        Map<String,Integer> ids = new HashMap<>();
+        List<String> keys = new ArrayList<>();
+        Map<Recipe,Prepared> prepared = new IdentityHashMap<>();
+        for (Household h: households) if (h.plan != null) for (Recipe r: h.plan) prepared.computeIfAbsent(r, x -> prepare(x, units, aliases, ids, keys));
+        String[] names = keys.toArray(new String[0]);
+        List<List<Line>> out = new ArrayList<>(Collections.nCopies(households.size(), null));
+        pool.invoke(new Batch(0, households.size(), (sums, i) -> {
+            Household h = households.get(i);
+            out.set(i, sums.lines(h.plan == null ? List.of() : h.plan, prepared, h.pantry, names, units));
+        }, names.length));
+        return out;
+    }
 
-        for (Recipe r: recipes) for (Ingredient ing: r.ingredients){
+    /** A recipe's ingredient rows as interned item ids, amounts in display units and those units. */
+    private record Prepared(int[] ids, double[] amounts, String[] units) {}
+
+    private static Prepared prepare(Recipe r, Units units, AliasResolver aliases, Map<String,Integer> ids, List<String> keys){
+        List<Ingredient> ings = r.ingredients == null ? List.of() : r.ingredients;
+        int[] id = new int[ings.size()];
+        double[] amount = new double[ings.size()];
+        String[] unit = new String[ings.size()];
+        int n = 0;
+        for (Ingredient ing: ings){
+            if (ing == null || ing.name == null) continue;
             String key = aliases!=null ? aliases.canonical(ing.name) : ing.name.toLowerCase();
             String baseUnit = units!=null ? units.preferredDisplayUnit(ing.unit) : ing.unit;
-            double amt = (units!=null && baseUnit!=null) ? units.convert(ing.amount, ing.unit, baseUnit) : ing.amount;
-            Line line = need.get(key);
-            if (line==null) need.put(key, new Line(key, amt, baseUnit));
-            else need.put(key, new Line(key, line.amount + (units!=null? units.convert(amt, baseUnit, line.unit): amt), line.unit));
+            id[n] = ids.computeIfAbsent(key, k -> { keys.add(k); return keys.size() - 1; });
+            amount[n] = (units!=null && baseUnit!=null) ? units.convert(ing.amount, ing.unit, baseUnit) : ing.amount;
+            unit[n++] = baseUnit;
         }
+        return new Prepared(Arrays.copyOf(id, n), Arrays.copyOf(amount, n), Arrays.copyOf(unit, n));
+    }
 
-        List<Line> out = new ArrayList<>();
-        for (var e: need.entrySet()){
-            String k = e.getKey(); Line l = e.getValue();
-            PantryItem stock = pantry.get(k);
-            double remaining = l.amount;
-            if (stock != null){
-                double stockInUnit = units!=null? units.convert(stock.quantity, stock.unit, l.unit) : stock.quantity;
-                remaining = Math.max(0, l.amount - stockInUnit);
+    /** Accumulators over interned ids; {@code mark} tells which ids the current household touched. */
+    private static final class Sums {
+        final double[] required;
+        final String[] unit;
+        final int[] mark, order;
+        int stamp;
+
+        Sums(int n){ required = new double[n]; unit = new String[n]; mark = new int[n]; order = new int[n]; }
+
+        List<Line> lines(List<Recipe> plan, Map<Recipe,Prepared> prepared, Map<String,PantryItem> pantry, String[] names, Units units){
+            int stamp = ++this.stamp, count = 0;
+            for (Recipe r: plan){
+                Prepared p = prepared.get(r);
+                for (int k = 0; k < p.ids.length; k++){
+                    int id = p.ids[k];
+                    double amt = p.amounts[k];
+                    if (mark[id] != stamp){
+                        mark[id] = stamp;
+                        order[count++] = id;
+                        unit[id] = p.units[k];
+                        required[id] = amt;
+                    } else {
+                        required[id] += Objects.equals(p.units[k], unit[id]) || units==null ? amt : units.convert(amt, p.units[k], unit[id]);
+                    }
+                }
+            }
+            List<Line> out = new ArrayList<>();
+            for (int i = 0; i < count; i++){
+                int id = order[i];
+                PantryItem stock = pantry == null ? null : pantry.get(names[id]);
+                double remaining = required[id];
+                if (stock != null) remaining = Math.max(0, remaining - (units!=null? units.convert(stock.quantity, stock.unit, unit[id]) : stock.quantity));
+                if (remaining > 0.0001) out.add(new Line(names[id], Math.round(remaining*100.0)/100.0, unit[id]));
             }
-            if (remaining > 0.0001) out.add(new Line(k, Math.round(remaining*100.0)/100.0, l.unit));
+            return out;
+        }
+    }
+
+    private interface Work { void run(Sums sums, int household); }
+
+    /** Splits a range of households in halves down to a few per task; each leaf gets its own {@link Sums}. */
+    private static final class Batch extends RecursiveAction {
+        @Serial private static final long serialVersionUID = 1L;
+        private static final int LEAF = 8;
+        private final int from, to, ids;
+        private final transient Work work;
+
+        Batch(int from, int to, Work work, int ids){ this.from = from; this.to = to; this.work = work; this.ids = ids; }
+
+        @Override protected void compute(){
+            if (to - from <= LEAF) {
+                Sums sums = new Sums(ids);
+                for (int i = from; i < to; i++) work.run(sums, i);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Batch(from, mid, work, ids), new Batch(mid, to, work, ids));
         }
-        return out;
     }
 
     /**
      * Returns a new list with amounts multiplied by the given multiplier, rounded to 2 decimals.
-     * If multiplier <= 1, returns the original list.
+     * If multiplier <= 1, returns the original list. This scales shortfalls; {@link ShoppingAggregator#view}
+     * scales the requirements and counts the pantry once.
      */
     public List<Line> scale(List<Line> lines, int multiplier) {
         if (lines == null || multiplier <= 1) return lines;
         List<Line> out = new ArrayList<>();
         for (Line l : lines) {
             double amt = Math.round(l.amount * multiplier * 100.0) / 100.0;
-            out.add(new Line(l.name, amt, l.unit));
+            out.add(new Line(l.name, amt, l.unit, l.aisle));
         }
         return out;
     }
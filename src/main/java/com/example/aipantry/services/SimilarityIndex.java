@@ -0,0 +1,137 @@
+package com.example.aipantry.services;
+
+import com.example.aipantry.model.RecipeColumns;
+
+import java.util.*;
+
+/**
+ * Near-duplicate lookup over recipes' ingredient sets. Each recipe gets a MinHash signature of its
+ * distinct catalog ingredient ids ({@value #HASHES} hashes), split into {@value #BANDS} bands that are
+ * bucketed by locality-sensitive hashing, so "more like this" only examines recipes sharing a band
+ * (pairs with Jaccard similarity around 0.5 and up collide with high probability) instead of the
+ * whole catalog. Candidates are ranked by their exact Jaccard similarity.
+ * Immutable once built; safe to query from any thread. Signatures take {@code 4 * HASHES} bytes per recipe.
+ */
+public class SimilarityIndex {
+    static final int HASHES = 64, BANDS = 16, ROWS = HASHES / BANDS;
+
+    /** One similar recipe. */
+    public static final class Match {
+        public final int recipe;
+        public final double similarity;
+        Match(int recipe, double similarity) { this.recipe = recipe; this.similarity = similarity; }
+    }
+
+    private static final long[] SEEDS = new long[2 * HASHES];
+    static {
+        SplittableRandom rnd = new SplittableRandom(0x5EEDL);
+        for (int i = 0; i < SEEDS.length; i++) SEEDS[i] = rnd.nextLong() | 1;
+    }
+
+    private final RecipeColumns catalog;
+    private final int[] signatures;   // HASHES per recipe
+    private final long[][] bands;     // per band: (bucket hash << 32 | recipe), sorted
+
+    private SimilarityIndex(RecipeColumns catalog) {
+        this.catalog = catalog;
+        int n = catalog.size();
+        signatures = new int[n * HASHES];
+        int[] sig = new int[HASHES];
+        long[][] keyed = new long[BANDS][n];
+        int[] counts = new int[BANDS];
+        for (int r = 0; r < n; r++) {
+            int[] ids = distinct(r);
+            if (ids.length == 0) continue; // an empty set is similar to nothing
+            Arrays.fill(sig, Integer.MAX_VALUE);
+            for (int id : ids) {
+                for (int h = 0; h < HASHES; h++) {
+                    int v = hash(id, h);
+                    if (v < sig[h]) sig[h] = v;
+                }
+            }
+            System.arraycopy(sig, 0, signatures, r * HASHES, HASHES);
+            for (int b = 0; b < BANDS; b++) keyed[b][counts[b]++] = ((long) bandHash(sig, b) << 32) | r;
+        }
+        bands = new long[BANDS][];
+        for (int b = 0; b < BANDS; b++) {
+            bands[b] = Arrays.copyOf(keyed[b], counts[b]);
+            Arrays.sort(bands[b]);
+        }
+    }
+
+    public static SimilarityIndex of(RecipeColumns catalog) { return new SimilarityIndex(catalog); }
+
+    public RecipeColumns catalog() { return catalog; }
+
+    /** Up to {@code limit} recipes most similar to {@code recipe} (excluding itself), most similar first. */
+    public List<Match> similar(int recipe, int limit) {
+        int[] self = distinct(recipe);
+        if (self.length == 0) return List.of();
+        Set<Integer> seen = new HashSet<>();
+        List<Match> out = new ArrayList<>();
+        int[] sig = Arrays.copyOfRange(signatures, recipe * HASHES, (recipe + 1) * HASHES);
+        for (int b = 0; b < BANDS; b++) {
+            long[] band = bands[b];
+            long key = (long) bandHash(sig, b) << 32;
+            for (int i = lowerBound(band, key); i < band.length && (band[i] & 0xFFFFFFFF00000000L) == key; i++) {
+                int r = (int) band[i];
+                if (r == recipe || !seen.add(r)) continue;
+                double j = jaccard(self, distinct(r));
+                if (j > 0) out.add(new Match(r, j));
+            }
+        }
+        out.sort(Comparator.comparingDouble((Match m) -> -m.similarity).thenComparingInt(m -> m.recipe));
+        return out.size() > limit ? new ArrayList<>(out.subList(0, limit)) : out;
+    }
+
+    /** Exact Jaccard similarity of two recipes' ingredient sets. */
+    public double similarity(int a, int b) { return jaccard(distinct(a), distinct(b)); }
+
+    /** MinHash estimate of {@link #similarity}, from the signatures alone. */
+    public double estimate(int a, int b) {
+        if (catalog.end(a) == catalog.start(a) || catalog.end(b) == catalog.start(b)) return 0;
+        int same = 0;
+        for (int h = 0; h < HASHES; h++) if (signatures[a * HASHES + h] == signatures[b * HASHES + h]) same++;
+        return (double) same / HASHES;
+    }
+
+    /** Sorted distinct ingredient ids of recipe {@code r}. */
+    private int[] distinct(int r) {
+        int[] ids = new int[catalog.end(r) - catalog.start(r)];
+        for (int k = catalog.start(r), i = 0; k < catalog.end(r); k++) ids[i++] = catalog.ingredientId(k);
+        Arrays.sort(ids);
+        int n = 0;
+        for (int i = 0; i < ids.length; i++) if (n == 0 || ids[i] != ids[n - 1]) ids[n++] = ids[i];
+        return n == ids.length ? ids : Arrays.copyOf(ids, n);
+    }
+
+    private static double jaccard(int[] a, int[] b) {
+        int i = 0, j = 0, both = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) { both++; i++; j++; } else if (a[i] < b[j]) i++; else j++;
+        }
+        int union = a.length + b.length - both;
+        return union == 0 ? 0 : (double) both / union;
+    }
+
+    private static int hash(int id, int h) {
+        long x = id * SEEDS[2 * h] + SEEDS[2 * h + 1];
+        x ^= x >>> 33; x *= 0xff51afd7ed558ccdL; x ^= x >>> 33;
+        return (int) (x >>> 33); // non-negative
+    }
+
+    private static int bandHash(int[] sig, int band) {
+        int h = band;
+        for (int i = band * ROWS; i < (band + 1) * ROWS; i++) h = 31 * h + sig[i];
+        return h;
+    }
+
+    private static int lowerBound(long[] a, long key) {
+        int lo = 0, hi = a.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < key) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+}
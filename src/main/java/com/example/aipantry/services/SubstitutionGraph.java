@@ -0,0 +1,119 @@
+package com.example.aipantry.services;
+
+import com.example.aipantry.model.*;
+import java.util.*;
+
+/**
+ * Ingredient substitutions ("cheddar" can be made with "mozzarella") and their transitive closure.
+ * Closure is computed once, at construction: for every ingredient, each reachable substitute keeps
+ * its least-penalized path, penalties compounding as {@code 1 - (1-p1)(1-p2)} and ratios multiplying.
+ * Lookups are then one hash probe to a small array ordered best first. Names are lowercased.
+ * Immutable, so safe to share across threads.
+ */
+public class SubstitutionGraph {
+    public static final SubstitutionGraph EMPTY = new SubstitutionGraph(Map.of());
+    private static final Substitute[] NONE = new Substitute[0];
+
+    /** A substitute reachable from some ingredient. */
+    public static final class Substitute {
+        public final String name;
+        public final double ratio;
+        public final double penalty;
+        Substitute(String name, double ratio, double penalty) { this.name = name; this.ratio = ratio; this.penalty = penalty; }
+        /** Fraction of a real match's coverage this substitute earns. */
+        public double credit() { return 1 - penalty; }
+        @Override public String toString() { return name + " ×" + round2(ratio) + " (−" + Math.round(penalty * 100) + "%)"; }
+    }
+
+    private final Map<String, Substitute[]> closure = new HashMap<>();
+
+    /** {@code edges}: ingredient -> substitutes for it; edges with penalty 1 are useless and dropped. */
+    public SubstitutionGraph(Map<String, List<Substitution>> edges) {
+        Map<String, List<Substitution>> graph = new HashMap<>();
+        if (edges != null) for (var e : edges.entrySet()) {
+            if (e.getKey() == null || e.getValue() == null) continue;
+            List<Substitution> out = graph.computeIfAbsent(e.getKey().toLowerCase(), k -> new ArrayList<>());
+            for (Substitution s : e.getValue()) if (s != null && s.with() != null && s.penalty() < 1) out.add(new Substitution(s.with().toLowerCase(), s.ratio(), s.penalty()));
+        }
+        for (String from : graph.keySet()) {
+            Substitute[] best = reachable(from, graph);
+            if (best.length > 0) closure.put(from, best);
+        }
+    }
+
+    /** Everything that can stand in for {@code ingredient}, least penalized first; never null. */
+    public Substitute[] candidates(String ingredient) {
+        Substitute[] c = ingredient == null ? null : closure.get(ingredient.toLowerCase());
+        return c == null ? NONE : c;
+    }
+
+    public boolean isEmpty() { return closure.isEmpty(); }
+
+    /**
+     * First substitute the pantry holds enough of for {@code amount} (in {@code unit}, same unit rule
+     * as {@link RuleEngine#explain}), or null.
+     */
+    public Substitute find(String ingredient, double amount, String unit, Map<String, PantryItem> pantry) {
+        for (Substitute s : candidates(ingredient)) {
+            PantryItem item = pantry.get(s.name);
+            if (item == null) continue;
+            if ((item.unit == null || unit == null || item.unit.equalsIgnoreCase(unit)) && item.quantity >= amount * s.ratio) return s;
+        }
+        return null;
+    }
+
+    /**
+     * Projects the substitutes the pantry holds onto {@code catalog}'s ingredient ids and attaches
+     * them to {@code stock}, so catalog scoring checks them with array reads only.
+     */
+    public void bind(RecipeColumns catalog, Map<String, PantryItem> pantry, RecipeColumns.Stock stock) {
+        if (closure.isEmpty()) return;
+        int n = catalog.distinctIngredients();
+        int[] start = new int[n + 1];
+        List<PantryItem> items = new ArrayList<>();
+        List<Substitute> subs = new ArrayList<>();
+        for (int id = 0; id < n; id++) {
+            start[id] = subs.size();
+            for (Substitute s : candidates(catalog.ingredientName(id))) {
+                PantryItem item = pantry.get(s.name);
+                if (item != null) { items.add(item); subs.add(s); }
+            }
+        }
+        start[n] = subs.size();
+        if (subs.isEmpty()) return;
+        int m = subs.size();
+        double[] quantity = new double[m], ratio = new double[m], credit = new double[m];
+        int[] unit = new int[m];
+        for (int j = 0; j < m; j++) {
+            PantryItem item = items.get(j);
+            quantity[j] = item.quantity;
+            int u = item.unit == null ? RecipeColumns.NO_UNIT : catalog.unitId(item.unit.toLowerCase());
+            unit[j] = item.unit == null ? RecipeColumns.NO_UNIT : u < 0 ? RecipeColumns.OTHER_UNIT : u;
+            ratio[j] = subs.get(j).ratio;
+            credit[j] = subs.get(j).credit();
+        }
+        stock.substitutes = new RecipeColumns.Substitutes(start, quantity, unit, ratio, credit);
+    }
+
+    /** Dijkstra over -log(1 - penalty), which makes compounded penalties additive. */
+    private static Substitute[] reachable(String from, Map<String, List<Substitution>> graph) {
+        List<Substitute> out = new ArrayList<>();
+        PriorityQueue<Step> queue = new PriorityQueue<>(Comparator.comparingDouble(Step::cost));
+        queue.add(new Step(from, 0, 1));
+        Set<String> done = new HashSet<>();
+        while (!queue.isEmpty()) {
+            Step step = queue.poll();
+            if (!done.add(step.name())) continue;
+            if (!step.name().equals(from)) out.add(new Substitute(step.name(), step.ratio(), -Math.expm1(-step.cost())));
+            for (Substitution s : graph.getOrDefault(step.name(), List.of())) {
+                if (!done.contains(s.with())) queue.add(new Step(s.with(), step.cost() - Math.log1p(-s.penalty()), step.ratio() * s.ratio()));
+            }
+        }
+        out.sort(Comparator.comparingDouble((Substitute s) -> s.penalty).thenComparing(s -> s.name));
+        return out.toArray(NONE);
+    }
+
+    private record Step(String name, double cost, double ratio) {}
+
+    private static double round2(double v) { return Math.round(v * 100.0) / 100.0; }
+}
@@ -0,0 +1,291 @@
+package com.example.aipantry.services;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Ranked full-text search (BM25) over each item's text: recipe titles, tags, ingredients and, for
+ * generated recipes, their steps. Words are lowercased and lightly stemmed ("tomatoes" finds
+ * "tomato", "chopped" finds "chop"). Each term's postings are delta-encoded doc ids and term
+ * frequencies packed as varints in one byte array, with a skip entry every {@link #BLOCK} postings.
+ * A query adds up BM25 weights term at a time, rarest (highest-scoring) term first; once the terms
+ * left cannot lift an unseen doc past the current k-th score, they only update the remaining
+ * candidates, skipping whole blocks to reach them (MaxScore pruning), so common words stay cheap.
+ * <p>
+ * Items are tracked by identity and can be added and removed at any time. Removal only marks the
+ * doc deleted; the index is rebuilt from the live items once deleted docs outnumber them.
+ * Not thread-safe: use from the thread that owns the view (the FX thread).
+ */
+public class TextSearch<T> {
+    private static final double K1 = 1.2, B = 0.75;
+    static final int BLOCK = 128;
+
+    /** One ranked result. */
+    public static final class Hit<T> {
+        public final T item;
+        public final double score;
+        Hit(T item, double score) { this.item = item; this.score = score; }
+    }
+
+    private final Function<T, String> text;
+    private final Map<T, Integer> ids = new IdentityHashMap<>();
+    private final Map<String, Postings> terms = new HashMap<>();
+    private final List<T> docs = new ArrayList<>();
+    private int[] lengths = new int[64];
+    private final BitSet deleted = new BitSet();
+    private int deletedCount; // deleted.cardinality(), kept so remove() stays O(1)
+    private long liveLength;
+    private float[] acc = new float[0];
+    private int[] touched = new int[0];
+
+    public TextSearch(Function<T, String> text) { this.text = text; }
+
+    public int size() { return ids.size(); }
+    public boolean contains(T item) { return ids.containsKey(item); }
+    /** Live items, in no particular order. */
+    public Set<T> items() { return Collections.unmodifiableSet(ids.keySet()); }
+
+    public void add(T item) {
+        if (item == null || ids.containsKey(item)) return;
+        int doc = docs.size();
+        Map<String, Integer> tf = new HashMap<>();
+        int len = 0;
+        for (String term : analyze(text.apply(item))) { tf.merge(term, 1, Integer::sum); len++; }
+        docs.add(item);
+        if (doc == lengths.length) lengths = Arrays.copyOf(lengths, doc * 2);
+        lengths[doc] = len;
+        liveLength += len;
+        ids.put(item, doc);
+        for (var e : tf.entrySet()) terms.computeIfAbsent(e.getKey(), k -> new Postings()).add(doc, e.getValue(), len);
+    }
+
+    public void addAll(Collection<? extends T> items) { for (T t : items) add(t); }
+
+    public void remove(T item) {
+        Integer doc = item == null ? null : ids.remove(item);
+        if (doc == null) return;
+        deleted.set(doc);
+        deletedCount++;
+        docs.set(doc, null);
+        liveLength -= lengths[doc];
+        if (deletedCount > 1024 && deletedCount > ids.size()) compact();
+    }
+
+    public void clear() {
+        ids.clear(); terms.clear(); docs.clear(); deleted.clear();
+        deletedCount = 0; // compact() goes through here too
+        lengths = new int[64];
+        liveLength = 0;
+    }
+
+    /** Best {@code k} items for the query, highest BM25 score first; empty for a query without words. */
+    public List<Hit<T>> search(String query, int k) {
+        Set<String> words = new LinkedHashSet<>(analyze(query));
+        int n = docs.size(), live = ids.size();
+        if (words.isEmpty() || live == 0 || k <= 0) return List.of();
+        k = Math.min(k, live);
+        if (acc.length < n) { acc = new float[n]; touched = new int[n]; }
+        double avg = Math.max(1.0, (double) liveLength / live);
+        List<Postings> lists = new ArrayList<>();
+        for (String w : words) { Postings p = terms.get(w); if (p != null) lists.add(p); }
+        int m = lists.size();
+        double[] idf = new double[m], bound = new double[m];
+        for (int i = 0; i < m; i++) {
+            Postings p = lists.get(i);
+            // df counts deleted docs until the next rebuild, as a segment-based index would
+            idf[i] = Math.max(1e-6, Math.log(1 + (live - p.df + 0.5) / (p.df + 0.5)));
+            bound[i] = idf[i] * p.maxWeight(avg);
+        }
+        Integer[] order = new Integer[m];
+        for (int i = 0; i < m; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(bound[b], bound[a]));
+        double[] rest = new double[m + 1]; // rest[i]: most the terms from order[i] on can still add
+        for (int i = m - 1; i >= 0; i--) rest[i] = rest[i + 1] + bound[order[i]];
+
+        int count = 0, i = 0;
+        for (; i < m; i++) {
+            if (count >= k && rest[i] < kth(count, k)) break;
+            count = scan(lists.get(order[i]), idf[order[i]], avg, count);
+        }
+        int[] pool = touched;
+        if (i < m) {
+            // no unseen doc can reach the top k now: finish scoring only the candidates that still can
+            double threshold = kth(count, k);
+            int c = 0;
+            for (int j = 0; j < count; j++) if (acc[touched[j]] + rest[i] >= threshold) c++;
+            pool = new int[c];
+            c = 0;
+            for (int j = 0; j < count; j++) if (acc[touched[j]] + rest[i] >= threshold) pool[c++] = touched[j];
+            Arrays.sort(pool);
+            for (; i < m; i++) advance(lists.get(order[i]), idf[order[i]], avg, pool);
+        }
+        int size = pool == touched ? count : pool.length;
+        Planner.TopK top = new Planner.TopK(Math.min(k, size));
+        for (int j = 0; j < size; j++) top.offer(pool[j], acc[pool[j]]);
+        List<Hit<T>> out = new ArrayList<>();
+        for (int doc : top.result()) out.add(new Hit<>(docs.get(doc), acc[doc]));
+        for (int j = 0; j < count; j++) acc[touched[j]] = 0;
+        return out;
+    }
+
+    /** Adds one term's weight to every live doc in its postings; returns the new candidate count. */
+    private int scan(Postings p, double idf, double avg, int count) {
+        byte[] data = p.data;
+        float[] acc = this.acc;
+        int[] touched = this.touched, lengths = this.lengths;
+        boolean anyDeleted = !deleted.isEmpty();
+        double c = idf * (K1 + 1), fixed = K1 * (1 - B), perWord = K1 * B / avg;
+        for (int pos = 0, doc = 0, end = p.size; pos < end; ) {
+            int delta = data[pos++], tf;
+            if (delta < 0) { delta &= 0x7F; int shift = 7, b; do { b = data[pos++]; delta |= (b & 0x7F) << shift; shift += 7; } while (b < 0); }
+            tf = data[pos++];
+            if (tf < 0) { tf &= 0x7F; int shift = 7, b; do { b = data[pos++]; tf |= (b & 0x7F) << shift; shift += 7; } while (b < 0); }
+            doc += delta;
+            if (anyDeleted && deleted.get(doc)) continue;
+            if (acc[doc] == 0) touched[count++] = doc;
+            acc[doc] += (float) (c * tf / (tf + fixed + perWord * lengths[doc]));
+        }
+        return count;
+    }
+
+    /** Adds one term's weight to the given docs (ascending) only, jumping over blocks that cannot hold them. */
+    private void advance(Postings p, double idf, double avg, int[] targets) {
+        byte[] data = p.data;
+        int block = 0, pos = 0, doc = 0, t = 0;
+        while (t < targets.length) {
+            int target = targets[t];
+            int b = block;
+            while (b + 1 < p.blocks && p.blockBase[b + 1] < target) b++;
+            if (b != block) { block = b; pos = p.blockPos[b]; doc = p.blockBase[b]; }
+            if (pos >= p.size) return;
+            int delta = 0, shift = 0, x;
+            do { x = data[pos++]; delta |= (x & 0x7F) << shift; shift += 7; } while (x < 0);
+            int tf = 0; shift = 0;
+            do { x = data[pos++]; tf |= (x & 0x7F) << shift; shift += 7; } while (x < 0);
+            doc += delta;
+            if ((pos >= p.blockEnd(block)) && block + 1 < p.blocks) block++;
+            while (t < targets.length && targets[t] < doc) t++;
+            if (t < targets.length && targets[t] == doc) { acc[doc] += weight(idf, tf, lengths[doc], avg); t++; }
+        }
+    }
+
+    private static float weight(double idf, int tf, int length, double avg) {
+        return (float) (idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / avg)));
+    }
+
+    /** k-th best score among the current candidates (a lower bound on the final k-th score). */
+    private double kth(int count, int k) {
+        float[] heap = new float[k];
+        int size = 0;
+        for (int j = 0; j < count; j++) {
+            float v = acc[touched[j]];
+            if (size < k) {
+                int c = size++;
+                heap[c] = v;
+                while (c > 0 && heap[(c - 1) / 2] > heap[c]) { float s = heap[c]; heap[c] = heap[(c - 1) / 2]; heap[(c - 1) / 2] = s; c = (c - 1) / 2; }
+            } else if (v > heap[0]) {
+                heap[0] = v;
+                for (int c = 0; ; ) {
+                    int l = 2 * c + 1, r = l + 1, w = c;
+                    if (l < size && heap[l] < heap[w]) w = l;
+                    if (r < size && heap[r] < heap[w]) w = r;
+                    if (w == c) break;
+                    float s = heap[c]; heap[c] = heap[w]; heap[w] = s; c = w;
+                }
+            }
+        }
+        return heap[0];
+    }
+
+    /** Lowercased, lightly stemmed words of {@code s}. */
+    public static List<String> analyze(String s) {
+        List<String> out = new ArrayList<>();
+        if (s == null) return out;
+        String lower = s.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean word = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (word && start < 0) start = i;
+            else if (!word && start >= 0) { out.add(stem(lower.substring(start, i))); start = -1; }
+        }
+        return out;
+    }
+
+    /**
+     * Light English stemmer: plurals, then -ing/-ed, an undoubled final consonant, a silent final e and
+     * a final consonant-y as i, so "cookie", "cookies", "berry" and "berries" meet at -i.
+     */
+    static String stem(String w) {
+        if (w.length() > 4 && w.endsWith("ies")) w = w.substring(0, w.length() - 2);
+        else if (w.length() > 3 && (w.endsWith("ches") || w.endsWith("shes") || w.endsWith("sses") || w.endsWith("xes") || w.endsWith("oes"))) w = w.substring(0, w.length() - 2);
+        else if (w.length() > 3 && w.endsWith("s") && !w.endsWith("ss") && !w.endsWith("us") && !w.endsWith("is")) w = w.substring(0, w.length() - 1);
+        String base = null;
+        if (w.length() > 5 && w.endsWith("ing")) base = w.substring(0, w.length() - 3);
+        else if (w.length() > 4 && w.endsWith("ed")) base = w.substring(0, w.length() - 2);
+        if (base != null && hasVowel(base)) {
+            w = base;
+            int n = w.length();
+            char c = w.charAt(n - 1);
+            if (n > 2 && c == w.charAt(n - 2) && !isVowel(c) && c != 'l' && c != 's' && c != 'z') w = w.substring(0, n - 1);
+        }
+        if (w.length() > 3 && w.endsWith("e") && !w.endsWith("ee")) w = w.substring(0, w.length() - 1);
+        int n = w.length();
+        if (n > 2 && w.charAt(n - 1) == 'y' && !isVowel(w.charAt(n - 2))) w = w.substring(0, n - 1) + "i";
+        return w;
+    }
+
+    private static boolean isVowel(char c) { return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u'; }
+
+    private static boolean hasVowel(String s) {
+        for (int i = 0; i < s.length(); i++) if (isVowel(s.charAt(i)) || s.charAt(i) == 'y') return true;
+        return false;
+    }
+
+    private void compact() {
+        List<T> live = new ArrayList<>(ids.keySet());
+        live.sort(Comparator.comparingInt(ids::get)); // keep insertion order, so ties rank the same
+        clear();
+        addAll(live);
+    }
+
+    /**
+     * Varint-packed (doc delta, tf) pairs in ascending doc order. Block {@code b} starts at byte
+     * {@code blockPos[b]}, decoding deltas from doc {@code blockBase[b]} (the last doc before it).
+     */
+    private static final class Postings {
+        byte[] data = new byte[8];
+        int size, df, lastDoc;
+        int[] blockPos = new int[1], blockBase = new int[1];
+        int blocks;
+        int maxTf, minLength = Integer.MAX_VALUE; // for the term's score bound
+
+        void add(int doc, int tf, int length) {
+            if (df % BLOCK == 0) {
+                if (blocks == blockPos.length) { blockPos = Arrays.copyOf(blockPos, blocks * 2); blockBase = Arrays.copyOf(blockBase, blocks * 2); }
+                blockPos[blocks] = size;
+                blockBase[blocks] = lastDoc;
+                blocks++;
+            }
+            if (data.length - size < 10) data = Arrays.copyOf(data, Math.max(data.length * 2, size + 10));
+            size = put(data, size, doc - lastDoc);
+            size = put(data, size, tf);
+            lastDoc = doc;
+            df++;
+            maxTf = Math.max(maxTf, tf);
+            minLength = Math.min(minLength, length);
+        }
+
+        int blockEnd(int b) { return b + 1 < blocks ? blockPos[b + 1] : size; }
+
+        /** Upper bound of the BM25 term-frequency factor over this term's docs. */
+        double maxWeight(double avg) {
+            return maxTf * (K1 + 1) / (maxTf + K1 * (1 - B + B * minLength / avg));
+        }
+
+        private static int put(byte[] a, int pos, int v) {
+            while ((v & ~0x7F) != 0) { a[pos++] = (byte) ((v & 0x7F) | 0x80); v >>>= 7; }
+            a[pos++] = (byte) v;
+            return pos;
+        }
+    }
+}
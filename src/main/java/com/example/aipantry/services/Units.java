@@ -47,6 +47,18 @@ public class Units {
         return amount;
     }
 
+    /** True if an amount in {@code from} can be expressed in {@code to}: the same unit, or both defined against a shared base. */
+    public boolean canConvert(String from, String to) {
+        String nf = normalizeUnit(from), nt = normalizeUnit(to);
+        if (nf == null || nt == null) return false;
+        if (nf.equalsIgnoreCase(nt)) return true;
+        var f = units.get(nf);
+        var t = units.get(nt);
+        if (f == null || t == null) return false;
+        for (var k : f.keySet()) if (t.containsKey(k)) return true;
+        return false;
+    }
+
     /** Returns true if the unit string is known in the conversion table. */
     public boolean isKnownUnit(String unit) {
     String u = normalizeUnit(unit);
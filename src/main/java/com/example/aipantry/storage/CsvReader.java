@@ -0,0 +1,310 @@
+package com.example.aipantry.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Streaming RFC 4180 reader over a {@link FileChannel}.
+ * Each record is unescaped into a reusable byte buffer and fields are only decoded
+ * to Strings when a column is asked for. Quoted fields may contain delimiters,
+ * doubled quotes and newlines.
+ */
+public class CsvReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /** Work done on one chunk of a file by {@link #readParallel}. */
+    public interface ChunkHandler<R> {
+        R handle(int chunk, CsvReader reader) throws IOException;
+    }
+
+    private final FileChannel ch;
+    private final boolean ownsChannel;
+    private final byte delimiter;
+    private final long end;
+    private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private long filePos;
+
+    private byte[] rec = new byte[256];
+    private int recLen;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int fields;
+
+    /** Reads records starting in [start, end) of the channel. The channel stays open on close. */
+    public CsvReader(FileChannel ch, long start, long end, char delimiter) {
+        this(ch, false, start, end, delimiter);
+    }
+
+    private CsvReader(FileChannel ch, boolean ownsChannel, long start, long end, char delimiter) {
+        this.ch = ch; this.ownsChannel = ownsChannel; this.end = end;
+        this.delimiter = (byte) delimiter;
+        this.filePos = start;
+        buf.limit(0);
+    }
+
+    public static CsvReader open(Path file) throws IOException { return open(file, ','); }
+
+    public static CsvReader open(Path file, char delimiter) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+        return new CsvReader(ch, true, 0, Long.MAX_VALUE, delimiter);
+    }
+
+    /** Advances to the next record. Returns false at the end of the file or chunk. */
+    public boolean next() throws IOException {
+        if (filePos - buf.remaining() >= end) return false;
+        recLen = 0; fields = 0;
+        int fieldStart = 0;
+        boolean quoted = false, any = false;
+        while (true) {
+            if (!buf.hasRemaining() && !fill()) {
+                if (!any) return false;
+                break;
+            }
+            byte b = buf.get();
+            any = true;
+            if (quoted) {
+                if (b == '"') {
+                    if (peek() == '"') { buf.get(); append(b); }
+                    else quoted = false;
+                } else append(b);
+            } else if (b == '"') {
+                quoted = true;
+            } else if (b == delimiter) {
+                endField(fieldStart); fieldStart = recLen;
+            } else if (b == '\n') {
+                break;
+            } else if (b == '\r') {
+                if (peek() == '\n') buf.get();
+                break;
+            } else append(b);
+        }
+        endField(fieldStart);
+        return true;
+    }
+
+    /** Number of fields in the current record. */
+    public int size() { return fields; }
+
+    /** True for an empty line (a single zero-length, unquoted-or-blank field). */
+    public boolean isBlank() {
+        if (fields > 1) return false;
+        for (int i = starts[0]; i < ends[0]; i++) if (rec[i] != ' ' && rec[i] != '\t') return false;
+        return true;
+    }
+
+    /** Returns the unescaped field, or null when the record has fewer columns. */
+    public String get(int i) {
+        if (i < 0 || i >= fields) return null;
+        return new String(rec, starts[i], ends[i] - starts[i], StandardCharsets.UTF_8);
+    }
+
+    /** Returns the trimmed field, or the default when it is missing or blank. */
+    public String get(int i, String def) {
+        String s = get(i);
+        if (s == null) return def;
+        s = s.trim();
+        return s.isEmpty() ? def : s;
+    }
+
+    /** Compares a field with a string without decoding it; lets callers reuse the String of a repeated value. */
+    public boolean fieldEquals(int i, String s) {
+        if (s == null || i < 0 || i >= fields) return false;
+        int len = ends[i] - starts[i];
+        if (len != s.length()) return len >= s.length() && s.equals(get(i));
+        for (int k = 0; k < len; k++) {
+            char c = s.charAt(k);
+            if (c >= 0x80) return s.equals(get(i));
+            if (rec[starts[i] + k] != c) return false;
+        }
+        return true;
+    }
+
+    public boolean isEmpty(int i) {
+        if (i < 0 || i >= fields) return true;
+        for (int k = starts[i]; k < ends[i]; k++) if (rec[k] != ' ' && rec[k] != '\t') return false;
+        return true;
+    }
+
+    /** Parses a number straight from the record bytes; falls back to Double.parseDouble for exotic forms. */
+    public double getDouble(int i, double def) {
+        if (i < 0 || i >= fields) return def;
+        int s = starts[i], e = ends[i];
+        while (s < e && rec[s] == ' ') s++;
+        while (e > s && rec[e - 1] == ' ') e--;
+        if (s == e) return def;
+        boolean neg = false;
+        int k = s;
+        if (rec[k] == '-' || rec[k] == '+') { neg = rec[k] == '-'; k++; }
+        long mant = 0; int digits = 0, scale = 0; boolean dot = false;
+        for (; k < e; k++) {
+            byte b = rec[k];
+            if (b >= '0' && b <= '9') {
+                if (digits >= 15) break;
+                mant = mant * 10 + (b - '0'); digits++;
+                if (dot) scale++;
+            } else if (b == '.' && !dot) dot = true;
+            else break;
+        }
+        if (k == e && digits > 0) {
+            double v = mant / POW10[scale];
+            return neg ? -v : v;
+        }
+        try { return Double.parseDouble(new String(rec, s, e - s, StandardCharsets.US_ASCII)); }
+        catch (NumberFormatException ex) { return def; }
+    }
+
+    public int getInt(int i, int def) {
+        double d = getDouble(i, Double.NaN);
+        return Double.isNaN(d) ? def : (int) d;
+    }
+
+    private static final double[] POW10 = new double[16];
+    static { POW10[0] = 1; for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i - 1] * 10; }
+
+    @Override public void close() throws IOException { if (ownsChannel) ch.close(); }
+
+    private boolean fill() throws IOException {
+        buf.clear();
+        int n = ch.read(buf, filePos);
+        if (n <= 0) { buf.limit(0); return false; }
+        filePos += n;
+        buf.flip();
+        return true;
+    }
+
+    private int peek() throws IOException {
+        if (!buf.hasRemaining() && !fill()) return -1;
+        return buf.get(buf.position());
+    }
+
+    private void append(byte b) {
+        if (recLen == rec.length) rec = Arrays.copyOf(rec, rec.length * 2);
+        rec[recLen++] = b;
+    }
+
+    private void endField(int start) {
+        if (fields == starts.length) {
+            starts = Arrays.copyOf(starts, fields * 2);
+            ends = Arrays.copyOf(ends, fields * 2);
+        }
+        starts[fields] = start; ends[fields] = recLen; fields++;
+    }
+
+    // ---------- Parallel chunking ----------
+
+    /**
+     * Splits a file into up to {@code chunks} byte ranges that each start on a record boundary.
+     * Quote parity is counted per chunk in parallel and prefix-summed, so a newline inside a
+     * quoted field is never mistaken for a boundary. Returns chunk start offsets plus the file size.
+     */
+    public static long[] splitPoints(FileChannel ch, int chunks) throws IOException {
+        return splitPoints(ch, chunks, ForkJoinPool.commonPool());
+    }
+
+    /** {@link #splitPoints(FileChannel, int)} with the scans run on {@code executor}. */
+    public static long[] splitPoints(FileChannel ch, int chunks, ExecutorService executor) throws IOException {
+        long size = ch.size();
+        int n = (int) Math.max(1, Math.min(chunks, size / BUFFER_SIZE + 1));
+        long[] approx = new long[n + 1];
+        for (int k = 0; k <= n; k++) approx[k] = size * k / n;
+
+        List<Callable<Long>> counts = new ArrayList<>();
+        for (int k = 0; k < n; k++) {
+            long from = approx[k], to = approx[k + 1];
+            counts.add(() -> countQuotes(ch, from, to));
+        }
+        List<Long> quoteCounts = runAll(counts, executor);
+
+        List<Callable<Long>> seeks = new ArrayList<>();
+        boolean inQuotes = false;
+        for (int k = 1; k < n; k++) {
+            inQuotes ^= (quoteCounts.get(k - 1) & 1) == 1;
+            long from = approx[k];
+            boolean startQuoted = inQuotes;
+            seeks.add(() -> nextBoundary(ch, from, startQuoted));
+        }
+        List<Long> bounds = runAll(seeks, executor);
+
+        long[] out = new long[n + 1];
+        int m = 0;
+        out[m++] = 0;
+        for (long b : bounds) if (b > out[m - 1] && b < size) out[m++] = b;
+        out[m++] = size;
+        return Arrays.copyOf(out, m);
+    }
+
+    /** Parses a file in parallel chunks; results are returned in file order. Chunk 0 sees the header. */
+    public static <R> List<R> readParallel(Path file, char delimiter, int chunks, ChunkHandler<R> handler) throws IOException {
+        return readParallel(file, delimiter, chunks, handler, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * {@link #readParallel(Path, char, int, ChunkHandler)} on {@code executor}. Handlers that may block
+     * (e.g. on a bounded queue) belong on an executor of their own, never the common pool; the calling
+     * thread waits for all chunks, so it must not be one of {@code executor}'s threads either.
+     */
+    public static <R> List<R> readParallel(Path file, char delimiter, int chunks, ChunkHandler<R> handler, ExecutorService executor) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] points = splitPoints(ch, chunks, executor);
+            List<Callable<R>> tasks = new ArrayList<>();
+            for (int k = 0; k + 1 < points.length; k++) {
+                int chunk = k; long from = points[k], to = points[k + 1];
+                tasks.add(() -> handler.handle(chunk, new CsvReader(ch, from, to, delimiter)));
+            }
+            return runAll(tasks, executor);
+        }
+    }
+
+    private static long countQuotes(FileChannel ch, long from, long to) throws IOException {
+        ByteBuffer b = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        long pos = from, count = 0;
+        while (pos < to) {
+            b.clear();
+            if (to - pos < b.capacity()) b.limit((int) (to - pos));
+            int n = ch.read(b, pos);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) if (b.get(i) == '"') count++;
+            pos += n;
+        }
+        return count;
+    }
+
+    private static long nextBoundary(FileChannel ch, long from, boolean inQuotes) throws IOException {
+        ByteBuffer b = ByteBuffer.allocateDirect(64 * 1024);
+        long pos = from;
+        while (true) {
+            b.clear();
+            int n = ch.read(b, pos);
+            if (n <= 0) return ch.size();
+            for (int i = 0; i < n; i++) {
+                byte c = b.get(i);
+                if (c == '"') inQuotes = !inQuotes;
+                else if (c == '\n' && !inQuotes) return pos + i + 1;
+            }
+            pos += n;
+        }
+    }
+
+    private static <R> List<R> runAll(List<Callable<R>> tasks, ExecutorService executor) throws IOException {
+        List<Future<R>> futures;
+        try { futures = executor.invokeAll(tasks); }
+        catch (InterruptedException ex) { Thread.currentThread().interrupt(); throw new IOException("CSV read interrupted", ex); }
+        List<R> out = new ArrayList<>(tasks.size());
+        for (Future<R> f : futures) {
+            try { out.add(f.get()); }
+            catch (InterruptedException ex) { Thread.currentThread().interrupt(); throw new IOException("CSV read interrupted", ex); }
+            catch (ExecutionException ex) {
+                if (ex.getCause() instanceof IOException io) throw io;
+                throw new IOException("CSV chunk failed", ex.getCause());
+            }
+        }
+        return out;
+    }
+}
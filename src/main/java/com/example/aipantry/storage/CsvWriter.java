@@ -0,0 +1,70 @@
+package com.example.aipantry.storage;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/** Buffered CSV writer; quotes a field only when it contains the delimiter, a quote or a line break. */
+public class CsvWriter implements Closeable, Flushable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Writer out;
+    private final char delimiter;
+    private boolean rowStarted;
+
+    public CsvWriter(Writer out, char delimiter) {
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out, BUFFER_SIZE);
+        this.delimiter = delimiter;
+    }
+
+    public static CsvWriter open(File file) throws IOException { return open(file.toPath()); }
+
+    public static CsvWriter open(Path file) throws IOException {
+        return new CsvWriter(new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), BUFFER_SIZE), ',');
+    }
+
+    public CsvWriter field(String s) throws IOException {
+        if (rowStarted) out.write(delimiter);
+        rowStarted = true;
+        if (s == null || s.isEmpty()) return this;
+        if (needsQuotes(s)) {
+            out.write('"');
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c == '"') out.write('"');
+                out.write(c);
+            }
+            out.write('"');
+        } else out.write(s);
+        return this;
+    }
+
+    public CsvWriter field(double d) throws IOException { return field(String.valueOf(d)); }
+
+    public CsvWriter field(long v) throws IOException { return field(String.valueOf(v)); }
+
+    /** Writes all fields followed by a line break. */
+    public CsvWriter row(String... fields) throws IOException {
+        for (String f : fields) field(f);
+        return endRow();
+    }
+
+    public CsvWriter endRow() throws IOException {
+        out.write('\n');
+        rowStarted = false;
+        return this;
+    }
+
+    @Override public void flush() throws IOException { out.flush(); }
+    @Override public void close() throws IOException { out.close(); }
+
+    private boolean needsQuotes(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == delimiter || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+}
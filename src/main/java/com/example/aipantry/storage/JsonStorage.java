@@ -2,6 +2,8 @@ package com.example.aipantry.storage;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.example.aipantry.model.*;
 import java.io.*;
@@ -21,6 +23,41 @@ public class JsonStorage {
             throw new IOException("Failed to parse recipes JSON. Ensure it is an array of Recipe objects.", ex);
         }
     }
+    /** Same JSON as {@link #loadRecipes}, into compact records with interned names, units and tag sets. */
+    public List<RecipeRecord> loadRecipeRecords(InputStream in) throws IOException {
+        try {
+            return mapper.readValue(in, new TypeReference<List<RecipeRecord>>() {});
+        } catch (IOException ex) {
+            throw new IOException("Failed to parse recipes JSON. Ensure it is an array of Recipe objects.", ex);
+        }
+    }
+    /** Streams a recipes JSON array straight into a columnar catalog without materializing the list. */
+    public RecipeCatalog loadCatalog(InputStream in) throws IOException {
+        RecipeCatalog.Builder b = new RecipeCatalog.Builder();
+        try (JsonParser p = mapper.getFactory().createParser(in)) {
+            if (p.nextToken() != JsonToken.START_ARRAY) throw new IOException("Expected a JSON array");
+            while (p.nextToken() == JsonToken.START_OBJECT) b.add(mapper.readValue(p, Recipe.class));
+        } catch (IOException ex) {
+            throw new IOException("Failed to parse recipes JSON. Ensure it is an array of Recipe objects.", ex);
+        }
+        return b.build();
+    }
+    /** Streams a recipes JSON array into a memory-mapped catalog file; heap use does not grow with the input. */
+    public MappedRecipeCatalog writeMappedCatalog(InputStream in, java.nio.file.Path out) throws IOException {
+        try (MappedRecipeCatalog.Writer w = new MappedRecipeCatalog.Writer(out);
+             JsonParser p = mapper.getFactory().createParser(in)) {
+            try {
+                if (p.nextToken() != JsonToken.START_ARRAY) throw new IOException("Expected a JSON array");
+                while (p.nextToken() == JsonToken.START_OBJECT) w.add(mapper.readValue(p, Recipe.class));
+            } catch (IOException ex) {
+                throw new IOException("Failed to parse recipes JSON. Ensure it is an array of Recipe objects.", ex);
+            }
+            return MappedRecipeCatalog.open(w.finish());
+        }
+    }
+    public void saveRecipeRecords(List<RecipeRecord> recipes, File f) throws IOException {
+        mapper.writeValue(f, recipes);
+    }
     public Map<String, PantryItem> loadPantry(InputStream in) throws IOException {
         byte[] data = readAll(in);
         List<PantryItem> list = null;
@@ -57,6 +94,13 @@ public class JsonStorage {
             throw new IOException("Failed to parse aliases JSON. Expect a map: canonical -> [aliases]", ex);
         }
     }
+    public Map<String, List<Substitution>> loadSubstitutions(InputStream in) throws IOException {
+        try {
+            return mapper.readValue(in, new TypeReference<Map<String, List<Substitution>>>(){});
+        } catch (IOException ex) {
+            throw new IOException("Failed to parse substitutions JSON. Expect a map: ingredient -> [{with, ratio, penalty}]", ex);
+        }
+    }
     public Map<String, Map<String, Double>> loadUnits(InputStream in) throws IOException {
         try {
             return mapper.readValue(in, new TypeReference<Map<String, Map<String, Double>>>(){});
@@ -0,0 +1,242 @@
+package com.example.aipantry.storage;
+
+import com.example.aipantry.model.Ingredient;
+import com.example.aipantry.model.Recipe;
+import com.example.aipantry.services.AliasResolver;
+import com.example.aipantry.services.Units;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Bulk loader for supplier recipe exports shipped as two CSV/TSV files:
+ * recipes (id,title,cook_minutes,tags) and ingredients (recipe_id,name,amount,unit).
+ * The ingredients file is parsed in parallel chunks, on the importer's own threads, that feed a
+ * bounded queue; a single normalizer drains it (canonical names via AliasResolver, units via
+ * Units.normalizeUnit) while the recipes file is read concurrently. The two sides are joined by
+ * id at the end, with each recipe's ingredients in file order.
+ * Tags are separated by ';'. Files ending in .tsv are tab-delimited.
+ */
+public class RecipeCsvImporter {
+    private static final int BATCH_SIZE = 4096;
+    private static final int QUEUE_CAPACITY = 64;
+    private static final long OFFER_WAIT_MS = 100;
+
+    private final Units units;
+    private final AliasResolver aliases;
+    private final int parallelism;
+
+    public RecipeCsvImporter(Units units, AliasResolver aliases) {
+        this(units, aliases, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    /** {@code parallelism}: at most this many ingredient chunks are parsed at once. */
+    public RecipeCsvImporter(Units units, AliasResolver aliases, int parallelism) {
+        this.units = units; this.aliases = aliases; this.parallelism = Math.max(1, parallelism);
+    }
+
+    public List<Recipe> load(Path recipesFile, Path ingredientsFile) throws IOException {
+        List<Recipe> out = new ArrayList<>();
+        load(recipesFile, ingredientsFile, out::add);
+        return out;
+    }
+
+    /** Streams joined recipes into the sink in recipes-file order; returns the number emitted. */
+    public int load(Path recipesFile, Path ingredientsFile, Consumer<Recipe> sink) throws IOException {
+        int[] ingCols = ingredientColumns(ingredientsFile);
+        Pipe pipe = new Pipe();
+        ExecutorService pool = threads(2);
+        ExecutorService chunks = threads(parallelism);
+        try {
+            Future<Map<String, Header>> headers = pool.submit(() -> readRecipes(recipesFile));
+            Future<?> producer = pool.submit(() -> {
+                try {
+                    produceIngredients(ingredientsFile, ingCols, chunks, pipe);
+                } finally {
+                    pipe.put(Batch.END);
+                }
+                return null;
+            });
+
+            Map<String, List<Ingredient>> byRecipe = normalize(pipe.queue);
+            await(producer);
+            Map<String, Header> recipes = await(headers);
+
+            int n = 0;
+            for (var e : recipes.entrySet()) {
+                Header h = e.getValue();
+                List<Ingredient> ings = byRecipe.getOrDefault(e.getKey(), new ArrayList<>());
+                sink.accept(new Recipe(h.title, ings, h.cookMinutes, h.tags));
+                n++;
+            }
+            return n;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Recipe import interrupted", ex);
+        } finally {
+            pipe.aborted = true; // if the normalizer failed, chunks waiting on the full queue give up
+            pool.shutdownNow();
+            chunks.shutdownNow();
+        }
+    }
+
+    private static ExecutorService threads(int n) {
+        return Executors.newFixedThreadPool(n, r -> {
+            Thread t = new Thread(r, "recipe-csv-import"); t.setDaemon(true); return t;
+        });
+    }
+
+    // ---------- Stages ----------
+
+    private Map<String, Header> readRecipes(Path file) throws IOException {
+        Map<String, Header> out = new LinkedHashMap<>();
+        try (CsvReader csv = CsvReader.open(file, delimiterFor(file))) {
+            if (!csv.next()) return out;
+            int id = column(csv, file, "id", "recipe_id", "recipeid");
+            int title = column(csv, file, "title", "name");
+            int minutes = optionalColumn(csv, "cook_minutes", "cookminutes", "minutes");
+            int tags = optionalColumn(csv, "tags");
+            while (csv.next()) {
+                if (csv.isBlank()) continue;
+                String key = csv.get(id, null);
+                if (key == null) continue;
+                Set<String> tagSet = new LinkedHashSet<>();
+                String raw = tags < 0 ? null : csv.get(tags);
+                if (raw != null) for (String t : raw.split(";")) if (!t.isBlank()) tagSet.add(t.trim());
+                out.put(key, new Header(csv.get(title, key), minutes < 0 ? 0 : csv.getInt(minutes, 0), tagSet));
+            }
+        }
+        return out;
+    }
+
+    private void produceIngredients(Path file, int[] cols, ExecutorService chunks, Pipe pipe) throws IOException {
+        CsvReader.readParallel(file, delimiterFor(file), parallelism, (chunk, csv) -> {
+            if (chunk == 0) csv.next(); // header
+            Batch b = new Batch(chunk);
+            String id = null, unit = null;
+            while (csv.next()) {
+                if (csv.isBlank()) continue;
+                // rows are usually grouped by recipe and share a handful of units: reuse the previous Strings
+                if (!csv.fieldEquals(cols[0], id)) id = csv.get(cols[0], null);
+                String name = csv.get(cols[1], null);
+                if (id == null || name == null) continue;
+                if (cols[3] >= 0 && !csv.fieldEquals(cols[3], unit)) unit = csv.get(cols[3], null);
+                b.add(id, name, cols[2] < 0 ? 0 : csv.getDouble(cols[2], 0), cols[3] < 0 ? null : unit);
+                if (b.size == BATCH_SIZE) { pipe.put(b); b = new Batch(chunk); }
+            }
+            if (b.size > 0) pipe.put(b);
+            return null;
+        }, chunks);
+    }
+
+    /**
+     * Batches of one chunk arrive in order but chunks interleave, so rows are grouped per chunk and
+     * the chunks concatenated in file order at the end.
+     */
+    private Map<String, List<Ingredient>> normalize(BlockingQueue<Batch> queue) throws InterruptedException {
+        List<Map<String, List<Ingredient>>> perChunk = new ArrayList<>();
+        Map<String, String> nameCache = new HashMap<>();
+        Map<String, String> unitCache = new HashMap<>();
+        while (true) {
+            Batch b = queue.take();
+            if (b == Batch.END) break;
+            while (perChunk.size() <= b.chunk) perChunk.add(new HashMap<>());
+            Map<String, List<Ingredient>> byRecipe = perChunk.get(b.chunk);
+            for (int i = 0; i < b.size; i++) {
+                String name = nameCache.computeIfAbsent(b.names[i], n -> aliases != null ? aliases.canonical(n) : n.toLowerCase());
+                String unit = b.units[i] == null ? null
+                        : unitCache.computeIfAbsent(b.units[i], u -> units != null ? units.normalizeUnit(u) : u);
+                byRecipe.computeIfAbsent(b.ids[i], k -> new ArrayList<>(8)).add(new Ingredient(name, b.amounts[i], unit));
+            }
+        }
+        if (perChunk.isEmpty()) return new HashMap<>();
+        Map<String, List<Ingredient>> out = perChunk.get(0);
+        for (int c = 1; c < perChunk.size(); c++) {
+            for (var e : perChunk.get(c).entrySet()) {
+                List<Ingredient> before = out.putIfAbsent(e.getKey(), e.getValue());
+                if (before != null) before.addAll(e.getValue()); // a recipe split across a chunk boundary
+            }
+        }
+        return out;
+    }
+
+    // ---------- Helpers ----------
+
+    private int[] ingredientColumns(Path file) throws IOException {
+        try (CsvReader csv = CsvReader.open(file, delimiterFor(file))) {
+            if (!csv.next()) throw new IOException("Ingredients file is empty: " + file);
+            return new int[] {
+                column(csv, file, "recipe_id", "recipeid", "id"),
+                column(csv, file, "name", "ingredient"),
+                optionalColumn(csv, "amount", "quantity", "qty"),
+                optionalColumn(csv, "unit", "units")
+            };
+        }
+    }
+
+    private static int column(CsvReader header, Path file, String... names) throws IOException {
+        int i = optionalColumn(header, names);
+        if (i < 0) throw new IOException("Failed to parse " + file.getFileName() + ". Expected a header with column '" + names[0] + "'.");
+        return i;
+    }
+
+    private static int optionalColumn(CsvReader header, String... names) {
+        for (int i = 0; i < header.size(); i++) {
+            String h = header.get(i, "").toLowerCase(Locale.ROOT);
+            for (String n : names) if (h.equals(n)) return i;
+        }
+        return -1;
+    }
+
+    private static char delimiterFor(Path file) {
+        String n = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return n.endsWith(".tsv") || n.endsWith(".tab") ? '\t' : ',';
+    }
+
+    /** The parser-to-normalizer queue, plus the flag the normalizer raises when it stops draining. */
+    private static final class Pipe {
+        final BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        volatile boolean aborted;
+
+        void put(Batch b) throws IOException {
+            try {
+                while (!queue.offer(b, OFFER_WAIT_MS, TimeUnit.MILLISECONDS)) {
+                    if (aborted) throw new IOException("Recipe import aborted");
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Recipe import interrupted", ex);
+            }
+        }
+    }
+
+    private static <T> T await(Future<T> f) throws IOException, InterruptedException {
+        try { return f.get(); }
+        catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException io) throw io;
+            throw new IOException("Recipe import failed", ex.getCause());
+        }
+    }
+
+    private record Header(String title, int cookMinutes, Set<String> tags) {}
+
+    /** Column-wise batch of raw ingredient rows handed from the parser to the normalizer. */
+    private static final class Batch {
+        static final Batch END = new Batch(-1);
+        final int chunk;
+        final String[] ids = new String[BATCH_SIZE];
+        final String[] names = new String[BATCH_SIZE];
+        final double[] amounts = new double[BATCH_SIZE];
+        final String[] units = new String[BATCH_SIZE];
+        int size;
+
+        Batch(int chunk) { this.chunk = chunk; }
+
+        void add(String id, String name, double amount, String unit) {
+            ids[size] = id; names[size] = name; amounts[size] = amount; units[size] = unit; size++;
+        }
+    }
+}
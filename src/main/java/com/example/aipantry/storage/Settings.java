@@ -9,4 +9,10 @@ public class Settings {
     public String store;
     // Dev convenience: create placeholder images locally if missing
     public Boolean autoGenerateImages;
+    // Keep rendered placeholder cards as PNGs under ~/.ai-pantry/image-cache
+    public Boolean cacheImagesOnDisk;
+    // Remote recipe images are served from here when present (defaults to ~/.ai-pantry/remote-images)
+    public String imageStandInDir;
+    // Never hit the network for images; use stand-ins or placeholders only
+    public Boolean offlineImages;
 }
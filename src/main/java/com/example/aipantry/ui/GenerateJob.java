@@ -0,0 +1,74 @@
+package com.example.aipantry.ui;
+
+import com.example.aipantry.model.PantryItem;
+import com.example.aipantry.services.AutoRecipeGenerator;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Cancellable background run of {@link AutoRecipeGenerator#forEachDetailed}.
+ * Unlimited runs stream variants to the FX thread in batches; at most one
+ * Platform.runLater is pending at a time and it drains everything queued so far.
+ * Limited runs keep only the best {@code limit} variants and publish them at the end.
+ * The task value is the final ranked list.
+ */
+public class GenerateJob extends Task<List<AutoRecipeGenerator.Generated>> {
+    private final AutoRecipeGenerator generator = new AutoRecipeGenerator();
+    private final Map<String, PantryItem> pantry;
+    private final int servings;
+    private final int limit;
+    private final Consumer<List<AutoRecipeGenerator.Generated>> onBatch;
+    private final Queue<AutoRecipeGenerator.Generated> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    /** The pantry should be a snapshot; it is read from the background thread. */
+    public GenerateJob(Map<String, PantryItem> pantry, int servings, int limit,
+                       Consumer<List<AutoRecipeGenerator.Generated>> onBatch) {
+        this.pantry = pantry; this.servings = servings; this.limit = limit; this.onBatch = onBatch;
+    }
+
+    @Override protected List<AutoRecipeGenerator.Generated> call() {
+        Comparator<AutoRecipeGenerator.Generated> ranking = generator.ranking(pantry);
+        if (limit > 0) {
+            // worst kept variant at the head; ties fall back to generation order like the stable sort
+            Comparator<Ranked> order = Comparator.comparing(Ranked::g, ranking).thenComparingLong(Ranked::seq);
+            PriorityQueue<Ranked> top = new PriorityQueue<>(limit + 1, order.reversed());
+            long[] seq = {0};
+            generator.forEachDetailed(pantry, servings, g -> {
+                if (isCancelled()) return false;
+                top.add(new Ranked(seq[0]++, g));
+                if (top.size() > limit) top.poll();
+                return true;
+            });
+            List<Ranked> kept = new ArrayList<>(top);
+            kept.sort(order);
+            List<AutoRecipeGenerator.Generated> out = new ArrayList<>(kept.size());
+            for (Ranked r : kept) out.add(r.g());
+            return out;
+        }
+        List<AutoRecipeGenerator.Generated> all = new ArrayList<>();
+        generator.forEachDetailed(pantry, servings, g -> {
+            if (isCancelled()) return false;
+            all.add(g);
+            pending.add(g);
+            if (drainScheduled.compareAndSet(false, true)) Platform.runLater(this::drain);
+            return true;
+        });
+        all.sort(ranking);
+        return all;
+    }
+
+    private record Ranked(long seq, AutoRecipeGenerator.Generated g) {}
+
+    private void drain() {
+        drainScheduled.set(false);
+        List<AutoRecipeGenerator.Generated> batch = new ArrayList<>();
+        for (AutoRecipeGenerator.Generated g; (g = pending.poll()) != null; ) batch.add(g);
+        if (!batch.isEmpty() && !isCancelled()) onBatch.accept(batch);
+    }
+}
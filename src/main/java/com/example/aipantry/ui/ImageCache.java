@@ -0,0 +1,128 @@
+package com.example.aipantry.ui;
+
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.image.Image;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * LRU cache for rendered placeholder cards keyed by (label, width, height).
+ * The memory tier is bounded by decoded pixel bytes (4 per pixel); the optional disk
+ * tier keeps encoded PNGs so cards survive restarts without being rasterized again.
+ * Concurrent misses on one key share a single load, so a card is never rendered twice at once.
+ */
+public class ImageCache {
+    public record Key(String label, int width, int height) {
+        long bytes() { return 4L * width * height; }
+    }
+
+    private final long maxBytes;
+    private final Path diskDir; // nullable => memory only
+    private final LinkedHashMap<Key, Image> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<Key, CompletableFuture<Image>> loading = new ConcurrentHashMap<>();
+    private long bytes;
+    private long hits, misses;
+
+    public ImageCache(long maxBytes, Path diskDir) {
+        this.maxBytes = Math.max(0, maxBytes);
+        this.diskDir = diskDir;
+    }
+
+    /**
+     * Returns the cached card, loading it from disk or rendering it with the supplier on a miss.
+     * A caller that misses while another is loading the same key waits for that load.
+     */
+    public Image get(String label, int width, int height, Supplier<Image> render) {
+        Key key = new Key(label == null ? "" : label, width, height);
+        synchronized (this) {
+            Image img = memory.get(key);
+            if (img != null) { hits++; return img; }
+            misses++;
+        }
+        CompletableFuture<Image> mine = new CompletableFuture<>();
+        CompletableFuture<Image> other = loading.putIfAbsent(key, mine);
+        if (other != null) {
+            try { return other.join(); }
+            catch (CompletionException ex) { throw ex.getCause() instanceof RuntimeException re ? re : ex; }
+        }
+        try {
+            Image img;
+            synchronized (this) { img = memory.get(key); } // a load may have finished since the miss
+            if (img == null) img = readDisk(key);
+            if (img == null) {
+                img = render.get();
+                writeDisk(key, img);
+            }
+            put(key, img);
+            mine.complete(img);
+            return img;
+        } catch (RuntimeException | Error ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            loading.remove(key, mine);
+        }
+    }
+
+    public synchronized void put(Key key, Image img) {
+        if (img == null || key.bytes() > maxBytes) return;
+        Image prev = memory.put(key, img);
+        if (prev == null) bytes += key.bytes();
+        var it = memory.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            var e = it.next();
+            if (e.getKey().equals(key)) continue;
+            bytes -= e.getKey().bytes();
+            it.remove();
+        }
+    }
+
+    public synchronized long sizeBytes() { return bytes; }
+    public synchronized int size() { return memory.size(); }
+    public synchronized long hits() { return hits; }
+    public synchronized long misses() { return misses; }
+
+    public synchronized void clear() { memory.clear(); bytes = 0; }
+
+    private Image readDisk(Key key) {
+        if (diskDir == null) return null;
+        try {
+            Path f = diskDir.resolve(fileName(key));
+            if (!Files.isRegularFile(f)) return null;
+            // decoded through ImageIO like it was encoded, so no FX toolkit is needed off the FX thread
+            java.awt.image.BufferedImage png = javax.imageio.ImageIO.read(f.toFile());
+            return png == null ? null : SwingFXUtils.toFXImage(png, null);
+        } catch (Exception ex) { return null; }
+    }
+
+    private void writeDisk(Key key, Image img) {
+        if (diskDir == null || img == null) return;
+        try {
+            Files.createDirectories(diskDir);
+            Path tmp = Files.createTempFile(diskDir, "card", ".tmp");
+            javax.imageio.ImageIO.write(SwingFXUtils.fromFXImage(img, null), "png", tmp.toFile());
+            Files.move(tmp, diskDir.resolve(fileName(key)), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        } catch (Exception ignore) {}
+    }
+
+    private static String fileName(Key key) {
+        String size = "_" + key.width() + "x" + key.height() + ".png";
+        try {
+            byte[] d = MessageDigest.getInstance("SHA-256").digest(key.label().getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 12; i++) sb.append(String.format("%02x", d[i]));
+            return sb + size;
+        } catch (Exception ex) {
+            return Integer.toHexString(key.label().hashCode()) + size;
+        }
+    }
+}
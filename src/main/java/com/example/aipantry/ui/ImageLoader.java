@@ -0,0 +1,264 @@
+package com.example.aipantry.ui;
+
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.image.Image;
+
+import java.awt.BasicStroke;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Resolves image references (res:/..., text:..., http(s)://...) on a small worker pool so
+ * decoding and placeholder rendering never run on the FX thread. Concurrent requests for the
+ * same reference share one future. Remote images are served from a stand-in directory when a
+ * file for the URL exists there; otherwise they are downloaded (unless offline) and written back.
+ */
+public class ImageLoader {
+    public static final int CARD_WIDTH = 800, CARD_HEIGHT = 500;
+    private static final int WORKERS = 3;
+    private static final int MAX_PENDING_PREFETCH = 32;
+    private static final long MAX_DECODED_BYTES = 96L << 20; // decoded pixels, 4 bytes each
+
+    private final ImageCache cards;
+    private final Function<String, URL> resources;
+    private final Path standInDir;   // nullable
+    private final boolean offline;
+    private final ExecutorService pool;
+    private final Map<String, CompletableFuture<Image>> inFlight = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, Image> decoded = new LinkedHashMap<>(64, 0.75f, true);
+    private long decodedBytes;
+    private final AtomicInteger pendingPrefetch = new AtomicInteger();
+    private HttpClient http;
+
+    public ImageLoader(ImageCache cards, Function<String, URL> resources, Path standInDir, boolean offline) {
+        this.cards = cards; this.resources = resources; this.standInDir = standInDir; this.offline = offline;
+        this.pool = Executors.newFixedThreadPool(WORKERS, r -> {
+            Thread t = new Thread(r, "image-loader"); t.setDaemon(true); return t;
+        });
+    }
+
+    /** Returns the image if it has already been decoded, else null. Safe on the FX thread. */
+    public Image getIfReady(String ref) {
+        synchronized (decoded) { return decoded.get(ref); }
+    }
+
+    /** Starts (or joins) loading the reference; the future completes off the FX thread. */
+    public CompletableFuture<Image> load(String ref) {
+        String key = ref == null ? "text:Recipe" : ref;
+        Image ready = getIfReady(key);
+        if (ready != null) return CompletableFuture.completedFuture(ready);
+        CompletableFuture<Image> f = inFlight.get(key);
+        if (f != null) return f;
+        CompletableFuture<Image> mine = new CompletableFuture<>();
+        f = inFlight.putIfAbsent(key, mine);
+        if (f != null) return f;
+        try {
+            pool.execute(() -> {
+                try {
+                    Image img = resolve(key);
+                    remember(key, img);
+                    mine.complete(img);
+                } catch (Throwable t) {
+                    mine.completeExceptionally(t);
+                } finally {
+                    inFlight.remove(key, mine);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            inFlight.remove(key, mine);
+            mine.completeExceptionally(ex);
+        }
+        return mine;
+    }
+
+    /** Keeps {@code img} decoded, evicting least recently used images beyond {@link #MAX_DECODED_BYTES}. */
+    private void remember(String key, Image img) {
+        long size = bytes(img);
+        if (img == null || size > MAX_DECODED_BYTES) return;
+        synchronized (decoded) {
+            Image prev = decoded.put(key, img);
+            decodedBytes += size - bytes(prev);
+            var it = decoded.entrySet().iterator();
+            while (decodedBytes > MAX_DECODED_BYTES && it.hasNext()) {
+                var e = it.next();
+                if (e.getKey().equals(key)) continue;
+                decodedBytes -= bytes(e.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    private static long bytes(Image img) {
+        return img == null ? 0 : 4L * (long) img.getWidth() * (long) img.getHeight();
+    }
+
+    /** Best-effort warm-up for rows that just became visible; dropped when the pool is saturated. */
+    public void prefetch(String ref) {
+        if (ref == null || getIfReady(ref) != null || inFlight.containsKey(ref)) return;
+        if (pendingPrefetch.incrementAndGet() > MAX_PENDING_PREFETCH) { pendingPrefetch.decrementAndGet(); return; }
+        load(ref).whenComplete((img, err) -> pendingPrefetch.decrementAndGet());
+    }
+
+    /** Renders (or fetches from cache) a text card; usable from any thread. */
+    public Image placeholder(String label, int w, int h) {
+        return cards.get(label, w, h, () -> SwingFXUtils.toFXImage(renderCard(label, w, h), null));
+    }
+
+    public void shutdown() { pool.shutdownNow(); }
+
+    // ---------- Resolution ----------
+
+    private Image resolve(String ref) {
+        try {
+            if (ref.startsWith("res:")) {
+                String path = ref.substring(4);
+                URL url = resources.apply(path);
+                if (url != null) {
+                    Image img = new Image(url.toExternalForm(), false);
+                    if (!img.isError()) return img;
+                }
+                // classpath resource missing → fall through to category placeholder
+                String name = new File(path).getName();
+                String label = name.contains(".") ? name.substring(0, name.lastIndexOf('.')) : name;
+                return placeholder(label.replace('_', ' '), CARD_WIDTH, CARD_HEIGHT);
+            } else if (ref.startsWith("text:")) {
+                return placeholder(ref.substring(5), CARD_WIDTH, CARD_HEIGHT);
+            } else if (ref.startsWith("http://") || ref.startsWith("https://")) {
+                Image img = new Image(new ByteArrayInputStream(fetchBytes(ref)));
+                if (!img.isError()) return img;
+            }
+        } catch (Exception ignore) { }
+        return placeholder("Recipe", CARD_WIDTH, CARD_HEIGHT);
+    }
+
+    /** Returns the bytes for a remote image, preferring the stand-in directory over the network. */
+    public byte[] fetchBytes(String url) throws IOException {
+        Path local = standInDir == null ? null : standInDir.resolve(standInName(url));
+        if (local != null && Files.isRegularFile(local)) return Files.readAllBytes(local);
+        if (offline) throw new IOException("Offline and no stand-in for " + url);
+        try {
+            HttpRequest req = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(10)).GET().build();
+            HttpResponse<byte[]> res = client().send(req, HttpResponse.BodyHandlers.ofByteArray());
+            if (res.statusCode() / 100 != 2) throw new IOException("HTTP " + res.statusCode() + " for " + url);
+            byte[] body = res.body();
+            if (local != null) {
+                try {
+                    Files.createDirectories(standInDir);
+                    Path tmp = Files.createTempFile(standInDir, "img", ".tmp");
+                    Files.write(tmp, body);
+                    Files.move(tmp, local, StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException ignore) {}
+            }
+            return body;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted fetching " + url, ex);
+        }
+    }
+
+    /** File name a remote URL is stored under in the stand-in directory. */
+    public static String standInName(String url) {
+        try {
+            byte[] d = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 16; i++) sb.append(String.format("%02x", d[i]));
+            return sb + ".img";
+        } catch (Exception ex) {
+            return Integer.toHexString(url.hashCode()) + ".img";
+        }
+    }
+
+    private synchronized HttpClient client() {
+        if (http == null) http = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(5)).build();
+        return http;
+    }
+
+    // ---------- Placeholder card ----------
+
+    static BufferedImage renderCard(String label, int w, int h) {
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            // Background
+            g.setColor(new java.awt.Color(0xe0e7ff));
+            g.fillRect(0, 0, w, h);
+            // Border
+            g.setColor(new java.awt.Color(0x94a3b8));
+            g.setStroke(new BasicStroke(2));
+            g.drawRect(3, 3, w - 6, h - 6);
+            // Text
+            String text = (label == null || label.isBlank()) ? "Recipe" : label;
+            String[] lines = text.split("\\n");
+            g.setColor(new java.awt.Color(0x0f172a));
+            double margin = 24;
+            double maxWidth = w - margin * 2;
+            // Draw title larger, subsequent lines smaller
+            double y = margin * 2;
+            for (int idx = 0; idx < lines.length; idx++) {
+                String ln = lines[idx];
+                double size = idx == 0 ? 36 : 20;
+                // Simple downscale to fit width
+                while (computeTextWidthApprox(ln, size) > maxWidth && size > 12) size -= 1.0;
+                g.setFont(new java.awt.Font(java.awt.Font.SANS_SERIF, java.awt.Font.PLAIN, (int) Math.round(size)));
+                // Wrap long ingredient lines by words
+                for (String wrapped : wrapLine(ln, size, maxWidth)) {
+                    double tx = (w - Math.min(maxWidth, computeTextWidthApprox(wrapped, size))) / 2.0;
+                    g.drawString(wrapped, (float) tx, (float) y);
+                    y += size + 8;
+                }
+                y += (idx == 0 ? 8 : 0);
+            }
+        } finally {
+            g.dispose();
+        }
+        return img;
+    }
+
+    // Approximate width; good enough for centering
+    private static double computeTextWidthApprox(String s, double fontSize) {
+        if (s == null) return 0;
+        return fontSize * 0.55 * s.length();
+    }
+
+    private static List<String> wrapLine(String s, double fontSize, double maxWidth) {
+        List<String> out = new ArrayList<>();
+        if (s == null || s.isBlank()) { out.add(""); return out; }
+        String[] words = s.split(" ");
+        StringBuilder cur = new StringBuilder();
+        for (String w : words) {
+            String trial = cur.length() == 0 ? w : cur + " " + w;
+            if (computeTextWidthApprox(trial, fontSize) > maxWidth && cur.length() > 0) {
+                out.add(cur.toString());
+                cur.setLength(0);
+                cur.append(w);
+            } else {
+                cur.setLength(0);
+                cur.append(trial);
+            }
+        }
+        if (cur.length() > 0) out.add(cur.toString());
+        return out;
+    }
+}
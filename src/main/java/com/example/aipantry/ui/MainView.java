@@ -7,20 +7,20 @@ import javafx.geometry.Insets;
 import javafx.stage.FileChooser;
 import javafx.stage.Window;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import javafx.scene.control.Separator;
 import javafx.scene.control.ProgressBar;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
 import javafx.concurrent.Task;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
-import javafx.scene.image.WritableImage;
-import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.paint.Color;
-import javafx.scene.text.Font;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
@@ -32,7 +32,10 @@ import java.awt.Desktop;
 
 import com.example.aipantry.model.*;
 import com.example.aipantry.services.*;
+import com.example.aipantry.storage.CsvReader;
+import com.example.aipantry.storage.CsvWriter;
 import com.example.aipantry.storage.JsonStorage;
+import com.example.aipantry.storage.RecipeCsvImporter;
 import com.example.aipantry.storage.Settings;
 import com.example.aipantry.storage.SettingsStorage;
 
@@ -44,32 +47,71 @@ public class MainView extends BorderPane {
     // Generator controls
     private final Spinner<Integer> genServingsSpinner = new Spinner<>(1, 20, 4);
     private final Spinner<Integer> genLimitSpinner = new Spinner<>(0, 500, 10); // 0 = unlimited
+    private final Label genStatus = new Label();
+    private GenerateJob generateJob; // running generation; a new click supersedes it
     private final ListView<String> planList = new ListView<>();
     private final TableView<ShoppingListService.Line> shoppingTable = new TableView<>();
 
     private final JsonStorage storage = new JsonStorage();
-    private Map<String, PantryItem> pantry = new LinkedHashMap<>();
+    // Single owner of the pantry; `pantry` is its live read-only view. Writes go through the store.
+    private final PantryStore pantryStore = new PantryStore();
+    private final Map<String, PantryItem> pantry = pantryStore.asMap();
+    private final Map<String, Integer> pantryRows = new HashMap<>(); // key -> row index in pantryItems
+    // Rows matching the pantry search, kept current per change; null while the search is blank (FX thread only)
+    private Set<PantryItem> pantryHits;
+    // Live search: tables/lists show filtered views over these backing lists
+    private final ObservableList<PantryItem> pantryItems = FXCollections.observableArrayList();
+    private final FilteredList<PantryItem> pantryFiltered = new FilteredList<>(pantryItems);
+    private final SearchIndex<PantryItem> pantryIndex = new SearchIndex<>(p -> p.name);
+    private final ExpiryIndex pantryExpiry = new ExpiryIndex(pantry);
+    private final TextField pantrySearch = new TextField();
+    private final ObservableList<Recipe> recipeItems = FXCollections.observableArrayList();
+    private final FilteredList<Recipe> recipeFiltered = new FilteredList<>(recipeItems);
+    private final SortedList<Recipe> recipeRanked = new SortedList<>(recipeFiltered); // best BM25 match first while searching
+    private SearchIndex<Recipe> recipeIndex = new SearchIndex<>(MainView::searchText);
+    private final Map<Recipe, List<String>> recipeSteps = new IdentityHashMap<>(); // steps of generated recipes
+    private TextSearch<Recipe> recipeText = new TextSearch<>(MainView::searchText);
+    private final Map<Recipe, Double> recipeRank = new IdentityHashMap<>(); // BM25 score of the current query's hits
+    private final TextField recipeSearch = new TextField();
+    private final CheckBox cookableOnly = new CheckBox("Cookable now, buying at most");
+    private final Spinner<Integer> maxMissingSpinner = new Spinner<>(0, 5, 0);
+    private final Map<Recipe, List<String>> recipeMissing = new IdentityHashMap<>(); // filled while cookableOnly is on
     private List<Recipe> recipes = new ArrayList<>();
+    private RecipeCatalog recipeCatalog = RecipeCatalog.of(List.of()); // columnar copy of `recipes`, same indices
+    private CookableIndex recipeCookable = CookableIndex.of(recipeCatalog);
+    private boolean cookableFilterPending; // FX thread only
+    private FacetIndex recipeFacets = FacetIndex.of(recipeCatalog);
+    private SimilarityIndex recipeSimilarity = SimilarityIndex.of(recipeCatalog);
+    private Task<RecipeIndexes> recipeIndexJob; // indexes being built for a new recipe list; a newer list supersedes it
     private AliasResolver aliases = new AliasResolver(Map.of());
     private Units units = new Units(Map.of(
         "g", Map.of("to_g", 1.0),
         "piece", Map.of("to_piece", 1.0),
         "ml", Map.of("to_ml", 1.0)
     ));
-    private final Planner planner = new Planner();
-    private final ShoppingListService shopping = new ShoppingListService();
-    private final RuleEngine engine = new RuleEngine();
+    private final RuleEngine engine = new RuleEngine(); // holds the substitution graph the planner and shopping list share
+    private final Planner planner = new Planner(engine);
+    private final CookService cooking = new CookService(pantryStore, () -> units);
     private List<Recipe> lastPlan = new ArrayList<>();
-    private List<ShoppingListService.Line> lastShopping = new ArrayList<>();
+    private ShoppingAggregator shoppingTotals = newShoppingTotals(); // follows lastPlan and the pantry in small deltas
     private final SettingsStorage settingsStorage = new SettingsStorage();
     private Settings settings = new Settings();
     private JsonStorage.Aisles aisles = new JsonStorage.Aisles();
-    private final java.util.Deque<Runnable> undoStack = new java.util.ArrayDeque<>();
+    private AisleClassifier aisleClassifier = new AisleClassifier(aisles.order, aisles.map, null);
+    // Rendered placeholder cards (~40 cards of 800x500), memoized res:/ lookups, background decoding
+    private ImageCache imageCache = new ImageCache(64L << 20, null);
+    private final ImageLoader images;
+    private final Map<String, Optional<java.net.URL>> resourceUrls = new java.util.concurrent.ConcurrentHashMap<>();
 
     // Plan controls
     private final Spinner<Integer> mealsSpinner = new Spinner<>(1, 14, 3);
     private final Spinner<Integer> maxMinSpinner = new Spinner<>(5, 240, 30);
     private final TextField tagsField = new TextField();
+    private final CheckBox requireTags = new CheckBox("Only these tags");
+    private final CheckBox requireTime = new CheckBox("Only within time");
+    private final CheckBox variedPlan = new CheckBox("Varied");
+    private final Spinner<Integer> planDaysSpinner = new Spinner<>(1, 14, 1); // above 1: meals per day, scheduled to waste least
+    private final Label planWasteLabel = new Label();
 
     // Explain panel controls
     private final Label explTitle = new Label("Select a recipe to see why it was chosen");
@@ -81,6 +123,7 @@ public class MainView extends BorderPane {
     private final ListView<String> perishablesList = new ListView<>();
     private final ProgressIndicator planSpinner = new ProgressIndicator();
     private final Label shoppingStatus = new Label();
+    private final ListView<String> nextBuysList = new ListView<>();
 
     // Store selector + servings for shopping links
     private final ComboBox<String> storeBox =
@@ -93,14 +136,24 @@ public class MainView extends BorderPane {
     public MainView() {
         setPadding(new Insets(8));
         storeBox.setValue("Walmart");
+        try { settings = settingsStorage.load(); } catch (Exception ignore) {}
+        if (Boolean.TRUE.equals(settings.cacheImagesOnDisk)) {
+            imageCache = new ImageCache(64L << 20, java.nio.file.Path.of(System.getProperty("user.home"), ".ai-pantry", "image-cache"));
+        }
+        java.nio.file.Path standIn = settings.imageStandInDir != null ? java.nio.file.Path.of(settings.imageStandInDir)
+                : java.nio.file.Path.of(System.getProperty("user.home"), ".ai-pantry", "remote-images");
+        images = new ImageLoader(imageCache, this::resourceUrl, standIn, Boolean.TRUE.equals(settings.offlineImages));
         // Ensure image placeholders exist for quick visual sanity checks (dev convenience)
         // Controlled by settings.autoGenerateImages (defaults to true when unset)
-        try { settings = settingsStorage.load(); } catch (Exception ignore) {}
         if (settings.autoGenerateImages == null || Boolean.TRUE.equals(settings.autoGenerateImages)) {
             ensureDefaultImages();
         }
     planSpinner.setVisible(false);
     planSpinner.setPrefSize(24,24);
+        pantryStore.addListener(pantryExpiry); // before the rows, so cells render against the new dates
+        pantryStore.addListener(this::applyPantryChange);
+        pantryStore.addListener(this::onPantryChangeForShopping);
+        pantryStore.addListener(c -> scheduleCookableFilter());
         TabPane tabs = new TabPane();
         tabs.getTabs().addAll(buildPantryTab(), buildRecipesTab(), buildPlanTab(), buildShoppingTab());
         setCenter(tabs);
@@ -131,20 +184,9 @@ public class MainView extends BorderPane {
         name.setCellFactory(TextFieldTableCell.forTableColumn());
         name.setOnEditCommit(evt -> {
             PantryItem p = evt.getRowValue();
-            String oldKey = p.name == null ? "" : p.name.toLowerCase();
             String newName = evt.getNewValue() == null ? null : evt.getNewValue().trim();
-            if (newName == null || newName.isBlank()) { showError(new IllegalArgumentException("Name cannot be blank.")); refreshPantryTable(); return; }
-            String prevName = p.name;
-            p.name = newName;
-            pantry.remove(oldKey);
-            pantry.put(p.name.toLowerCase(), p);
-            pushUndo(() -> {
-                pantry.remove(p.name.toLowerCase());
-                p.name = prevName;
-                pantry.put(prevName.toLowerCase(), p);
-                refreshPantryTable();
-            });
-            refreshPantryTable();
+            if (newName == null || newName.isBlank()) { showError(new IllegalArgumentException("Name cannot be blank.")); pantryTable.refresh(); return; }
+            pantryStore.rename(p.name, p.withName(newName));
         });
 
         TableColumn<PantryItem, String> qty = new TableColumn<>("Quantity");
@@ -155,11 +197,8 @@ public class MainView extends BorderPane {
             try {
         double val = Double.parseDouble(evt.getNewValue().trim());
                 if (val < 0) throw new IllegalArgumentException("Quantity must be non-negative.");
-                double prev = p.quantity;
-                p.quantity = val;
-                pushUndo(() -> { p.quantity = prev; refreshPantryTable(); });
-            } catch (Exception ex) { showError(new IllegalArgumentException("Quantity must be a non-negative number.")); }
-            refreshPantryTable();
+                pantryStore.put(p.withQuantity(val)); // a decrease uses up the soonest-expiring lots first
+            } catch (Exception ex) { showError(new IllegalArgumentException("Quantity must be a non-negative number.")); pantryTable.refresh(); }
         });
 
         TableColumn<PantryItem, String> unit = new TableColumn<>("Unit");
@@ -167,45 +206,50 @@ public class MainView extends BorderPane {
         unit.setCellFactory(TextFieldTableCell.forTableColumn());
         unit.setOnEditCommit(evt -> {
             String u = evt.getNewValue() == null ? null : evt.getNewValue().trim();
-            if (u == null || u.isBlank()) { showError(new IllegalArgumentException("Unit cannot be blank.")); refreshPantryTable(); return; }
+            if (u == null || u.isBlank()) { showError(new IllegalArgumentException("Unit cannot be blank.")); pantryTable.refresh(); return; }
             String nu = units.normalizeUnit(u);
-            if (!units.isKnownUnit(nu)) { showError(new IllegalArgumentException("Unknown unit: " + u)); refreshPantryTable(); return; }
+            if (!units.isKnownUnit(nu)) { showError(new IllegalArgumentException("Unknown unit: " + u)); pantryTable.refresh(); return; }
             PantryItem row = evt.getRowValue();
-            String prev = row.unit;
-            row.unit = nu;
-            pushUndo(() -> { row.unit = prev; refreshPantryTable(); });
-            refreshPantryTable();
+            pantryStore.put(row.withUnit(nu));
         });
 
         TableColumn<PantryItem, String> exp = new TableColumn<>("Expires");
-        exp.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty(String.valueOf(c.getValue().expiresOn)));
+        exp.setCellValueFactory(c -> {
+            PantryItem p = c.getValue();
+            int more = p.lots().size() - 1;
+            return new javafx.beans.property.SimpleStringProperty(p.expiresOn + (more > 0 ? " (+" + more + " lot" + (more > 1 ? "s" : "") + ")" : ""));
+        });
         exp.setCellFactory(col -> new TableCell<>() {
             @Override protected void updateItem(String item, boolean empty) {
                 super.updateItem(item, empty);
                 if (empty) { setText(null); setStyle(""); return; }
                 setText(item);
                 PantryItem p = getTableView().getItems().get(getIndex());
-                var today = java.time.LocalDate.now();
-                boolean soon = p.expiresOn != null && !p.expiresOn.isBefore(today) && !p.expiresOn.isAfter(today.plusDays(2));
-                boolean past = p.expiresOn != null && p.expiresOn.isBefore(today);
-                if (soon || past) setStyle("-fx-text-fill: red; -fx-font-weight: bold;"); else setStyle("");
+                // expired, or a lot expiring within two days
+                if (pantryExpiry.expiresBy(PantryStore.keyOf(p.name), java.time.LocalDate.now().plusDays(2))) setStyle("-fx-text-fill: red; -fx-font-weight: bold;"); else setStyle("");
             }
         });
 
         pantryTable.getColumns().setAll(List.of(name, qty, unit, exp));
+        SortedList<PantryItem> sorted = new SortedList<>(pantryFiltered);
+        sorted.comparatorProperty().bind(pantryTable.comparatorProperty());
+        pantryTable.setItems(sorted);
+        pantrySearch.setPromptText("Search pantry…");
+        pantrySearch.textProperty().addListener((o, a, q) -> filterPantry(q));
         pantryTable.setEditable(true);
         pantryTable.getSelectionModel().setSelectionMode(SelectionMode.SINGLE);
-        // Keyboard UX: Enter commits edits; Del deletes selected
+        // Keyboard UX: Enter commits edits; Del deletes selected; Ctrl+Z / Ctrl+Y undo and redo
         pantryTable.setOnKeyPressed(e -> {
             switch (e.getCode()) {
+                case Z:
+                    if (e.isShortcutDown()) { if (e.isShiftDown()) pantryStore.redo(); else pantryStore.undo(); e.consume(); }
+                    break;
+                case Y:
+                    if (e.isShortcutDown()) { pantryStore.redo(); e.consume(); }
+                    break;
                 case DELETE:
                     PantryItem sel = pantryTable.getSelectionModel().getSelectedItem();
-                    if (sel != null) {
-                        PantryItem snapshot = new PantryItem(sel.name, sel.quantity, sel.unit, sel.expiresOn);
-                        pantry.remove(sel.name.toLowerCase());
-                        pushUndo(() -> { pantry.put(snapshot.name.toLowerCase(), snapshot); refreshPantryTable(); });
-                        refreshPantryTable();
-                    }
+                    if (sel != null) pantryStore.remove(sel.name);
                     e.consume();
                     break;
                 default:
@@ -220,12 +264,7 @@ public class MainView extends BorderPane {
     Button del = new Button("Delete Selected");
     del.setOnAction(e -> {
             PantryItem sel = pantryTable.getSelectionModel().getSelectedItem();
-            if (sel != null) {
-        PantryItem snapshot = new PantryItem(sel.name, sel.quantity, sel.unit, sel.expiresOn);
-        pantry.remove(sel.name.toLowerCase());
-        pushUndo(() -> { pantry.put(snapshot.name.toLowerCase(), snapshot); refreshPantryTable(); });
-                refreshPantryTable();
-            }
+            if (sel != null) pantryStore.remove(sel.name);
         });
 
         Button save = new Button("Save Pantry JSON…");
@@ -249,8 +288,10 @@ public class MainView extends BorderPane {
     seed.setOnAction(e -> seedSamplePantry());
 
     Button undoBtn = new Button("Undo");
-    undoBtn.setOnAction(e -> doUndo());
-    ToolBar tb = new ToolBar(add, del, undoBtn, new Separator(), save, importCsv, exportCsv, new Separator(), seed);
+    undoBtn.setOnAction(e -> pantryStore.undo());
+    Button redoBtn = new Button("Redo");
+    redoBtn.setOnAction(e -> pantryStore.redo());
+    ToolBar tb = new ToolBar(add, del, undoBtn, redoBtn, new Separator(), save, importCsv, exportCsv, new Separator(), seed, new Separator(), pantrySearch);
         BorderPane box = new BorderPane(pantryTable);
         box.setTop(tb);
         t.setContent(box);
@@ -271,9 +312,7 @@ public class MainView extends BorderPane {
                 new PantryItem("garlic", 4, "piece", java.time.LocalDate.now().plusDays(10)),
                 new PantryItem("cheddar", 150, "g", java.time.LocalDate.now().plusDays(12))
         );
-        for (PantryItem p : demo) pantry.put(p.name.toLowerCase(), p);
-        refreshPantryTable();
-        updateShoppingList();
+        pantryStore.batch(() -> { for (PantryItem p : demo) pantryStore.put(p); });
         showInfo("Seeded", "Added sample pantry items.");
     }
 
@@ -311,8 +350,7 @@ public class MainView extends BorderPane {
         });
         d.showAndWait().ifPresent(p -> {
             if (p.name != null && !p.name.isBlank()) {
-                pantry.put(p.name.toLowerCase(), p);
-                refreshPantryTable();
+                pantryStore.addLot(p); // same item and unit again: keep it as a separate dated lot
             }
         });
     }
@@ -324,27 +362,26 @@ public class MainView extends BorderPane {
             fc.setTitle("Import Pantry CSV");
             fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV", "*.csv"));
             File f = fc.showOpenDialog(getWindow()); if (f == null) return;
-            List<String> lines = java.nio.file.Files.readAllLines(f.toPath(), StandardCharsets.UTF_8);
-            if (lines.isEmpty()) { showInfo("Import", "File is empty."); return; }
             Map<String, PantryItem> loaded = new LinkedHashMap<>();
-            boolean first = true;
-            for (String line : lines) {
-                if (line == null) continue; line = line.trim(); if (line.isEmpty()) continue;
-                if (first && line.toLowerCase(Locale.ROOT).startsWith("name,")) { first = false; continue; }
-                first = false;
-                String[] parts = parseCsvLine(line);
-                String name = parts.length>0 ? parts[0].trim() : "";
-                if (name.isEmpty()) continue;
-                double qty = 1.0; try { qty = Double.parseDouble(parts.length>1? parts[1].trim() : "1"); } catch (Exception ignore) {}
-                String unit = parts.length>2? parts[2].trim() : "piece";
-                String exps = parts.length>3? parts[3].trim() : "";
-                java.time.LocalDate d = null; if (!exps.isBlank()) try { d = java.time.LocalDate.parse(exps); } catch (Exception ignore) {}
-                String nu = units.normalizeUnit(unit);
-                loaded.put(name.toLowerCase(), new PantryItem(name, qty, nu, d));
+            boolean any = false;
+            try (CsvReader csv = CsvReader.open(f.toPath())) {
+                boolean first = true;
+                while (csv.next()) {
+                    if (csv.isBlank()) continue;
+                    any = true;
+                    String name = csv.get(0, "");
+                    if (first) { first = false; if (name.equalsIgnoreCase("name")) continue; }
+                    if (name.isEmpty()) continue;
+                    double qty = csv.getDouble(1, 1.0);
+                    String unit = csv.get(2, "piece");
+                    String exps = csv.get(3, "");
+                    java.time.LocalDate d = null; if (!exps.isBlank()) try { d = java.time.LocalDate.parse(exps); } catch (Exception ignore) {}
+                    String nu = units.normalizeUnit(unit);
+                    loaded.put(name.toLowerCase(), new PantryItem(name, qty, nu, d));
+                }
             }
-            pantry = loaded;
-            refreshPantryTable();
-            updateShoppingList();
+            if (!any) { showInfo("Import", "File is empty."); return; }
+            pantryStore.replaceAll(loaded);
             showInfo("Import", "Pantry loaded: " + pantry.size() + " items.");
         } catch (Exception ex) { showError(ex); }
     }
@@ -356,52 +393,17 @@ public class MainView extends BorderPane {
             fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV", "*.csv"));
             fc.setInitialFileName("pantry.csv");
             File f = fc.showSaveDialog(getWindow()); if (f == null) return;
-            try (Writer w = new OutputStreamWriter(new FileOutputStream(f), StandardCharsets.UTF_8)) {
-                w.write("name,quantity,unit,expires\n");
+            try (CsvWriter w = CsvWriter.open(f)) {
+                w.row("name", "quantity", "unit", "expires");
                 java.time.format.DateTimeFormatter fmt = java.time.format.DateTimeFormatter.ISO_DATE;
                 for (PantryItem p : pantry.values()) {
                     String exp = p.expiresOn==null? "" : fmt.format(p.expiresOn);
-                    w.write(escapeCsv(p.name)); w.write(",");
-                    w.write(String.valueOf(p.quantity)); w.write(",");
-                    w.write(escapeCsv(p.unit)); w.write(",");
-                    w.write(escapeCsv(exp)); w.write("\n");
+                    w.field(p.name).field(p.quantity).field(p.unit).field(exp).endRow();
                 }
             }
         } catch (Exception ex) { showError(ex); }
     }
 
-    private static String escapeCsv(String s) {
-        if (s == null) return "";
-        if (s.contains(",") || s.contains("\"") || s.contains("\n")) {
-            s = s.replace("\"", "\"\"");
-            return "\"" + s + "\"";
-        }
-        return s;
-    }
-
-    private static String[] parseCsvLine(String line) {
-        List<String> out = new ArrayList<>();
-        StringBuilder cur = new StringBuilder();
-        boolean inQuotes = false;
-        for (int i=0; i<line.length(); i++) {
-            char c = line.charAt(i);
-            if (inQuotes) {
-                if (c == '"') {
-                    if (i+1 < line.length() && line.charAt(i+1) == '"') { cur.append('"'); i++; }
-                    else { inQuotes = false; }
-                } else {
-                    cur.append(c);
-                }
-            } else {
-                if (c == '"') { inQuotes = true; }
-                else if (c == ',') { out.add(cur.toString()); cur.setLength(0); }
-                else { cur.append(c); }
-            }
-        }
-        out.add(cur.toString());
-        return out.toArray(new String[0]);
-    }
-
     // (no-op placeholder removed)
 
     // ---------- RECIPES TAB ----------
@@ -412,8 +414,7 @@ public class MainView extends BorderPane {
         Button importBtn = new Button("Import sample recipes");
         importBtn.setOnAction(e -> {
             try (InputStream in = getClass().getResourceAsStream("/sample-data/recipes.json")) {
-                recipes = storage.loadRecipes(in);
-                refreshRecipesList();
+                showRecipes(storage.loadRecipes(in));
             } catch (Exception ex) { showError(ex); }
         });
 
@@ -422,25 +423,24 @@ public class MainView extends BorderPane {
     genLimitSpinner.setTooltip(new Tooltip("0 = unlimited"));
 
     Button genBtn = new Button("Generate from Pantry");
-        genBtn.setOnAction(e -> {
-            try {
-                AutoRecipeGenerator gen = new AutoRecipeGenerator();
-        int servings = Math.max(1, genServingsSpinner.getValue());
-        int limit = genLimitSpinner.getValue(); // 0 => unlimited
-        List<AutoRecipeGenerator.Generated> gens = gen.generateDetailed(pantry, servings, limit);
-                if (gens.isEmpty()) { showInfo("No ideas", "Not enough pantry variety to auto-generate meals."); return; }
-                generatedList.setItems(FXCollections.observableArrayList(gens));
-                // Feed generated recipes into planner source
-                recipes = gens.stream().map(g -> g.recipe).collect(Collectors.toList());
-                refreshRecipesList();
-            } catch (Exception ex) { showError(ex); }
-        });
+        genBtn.setOnAction(e -> startGeneration());
+
+        recipeList.setItems(recipeRanked);
+        recipeSearch.setPromptText("Search title, tag, ingredient, steps…");
+        recipeSearch.textProperty().addListener((o, a, q) -> applyRecipeFilter());
+        cookableOnly.setTooltip(new Tooltip("Only recipes the pantry fully covers"));
+        cookableOnly.selectedProperty().addListener((o, a, b) -> applyRecipeFilter());
+        maxMissingSpinner.setPrefWidth(60);
+        maxMissingSpinner.valueProperty().addListener((o, a, b) -> { if (cookableOnly.isSelected()) applyRecipeFilter(); });
 
         // Show "Title (Xm)" for each recipe
         recipeList.setCellFactory(lv -> new ListCell<>() {
             @Override protected void updateItem(Recipe r, boolean empty) {
                 super.updateItem(r, empty);
-                setText(empty || r==null ? null : r.title + " (" + r.cookMinutes + "m)");
+                List<String> need = empty || r == null ? null : recipeMissing.get(r);
+                setText(empty || r==null ? null : r.title + " (" + r.cookMinutes + "m)"
+                        + (need == null || need.isEmpty() ? "" : " · buy: " + String.join(", ", need)));
+                if (!empty && r != null) images.prefetch(resolveRecipeImage(r));
             }
         });
         // Generated list renderer + double-click handler
@@ -448,6 +448,7 @@ public class MainView extends BorderPane {
             @Override protected void updateItem(AutoRecipeGenerator.Generated g, boolean empty) {
                 super.updateItem(g, empty);
                 setText(empty || g==null ? null : g.recipe.title + " (" + g.recipe.cookMinutes + "m)");
+                if (!empty && g != null) images.prefetch(resolveRecipeImage(g));
             }
         });
         generatedList.setOnMouseClicked(e -> {
@@ -456,6 +457,12 @@ public class MainView extends BorderPane {
                 if (sel != null) showGeneratedRecipe(sel);
             }
         });
+        MenuItem moreLikeThis = new MenuItem("More Like This");
+        moreLikeThis.setOnAction(e -> {
+            Recipe sel = recipeList.getSelectionModel().getSelectedItem();
+            if (sel != null) showSimilarRecipes(sel);
+        });
+        recipeList.setContextMenu(new ContextMenu(moreLikeThis));
         // Open details on double-click
         recipeList.setOnMouseClicked(e -> {
             if (e.getClickCount() == 2) {
@@ -472,14 +479,51 @@ public class MainView extends BorderPane {
         new Separator(),
         new Label("Servings"), genServingsSpinner,
         new Label("Limit"), genLimitSpinner,
-        genBtn,
+        genBtn, genStatus,
+        new Separator(),
+        new Label("(Left: Imported · Right: Generated)"),
         new Separator(),
-        new Label("(Left: Imported · Right: Generated)")
+        recipeSearch, cookableOnly, maxMissingSpinner
     ));
         t.setContent(box);
         return t;
     }
 
+    // Runs the generator in the background; variants stream into generatedList as they are produced
+    private void startGeneration() {
+        if (generateJob != null) generateJob.cancel();
+        int servings = Math.max(1, genServingsSpinner.getValue());
+        int limit = genLimitSpinner.getValue(); // 0 => unlimited
+        generatedList.getItems().clear();
+        genStatus.setText("Generating…");
+        // batches of a superseded job are dropped by the job itself once cancel() has run on this thread
+        GenerateJob job = new GenerateJob(pantryStore.snapshot().asMap(), servings, limit, batch -> {
+            generatedList.getItems().addAll(batch);
+            genStatus.setText("Generating… " + generatedList.getItems().size());
+        });
+        generateJob = job;
+        job.setOnSucceeded(ev -> {
+            if (job != generateJob) return;
+            generateJob = null;
+            List<AutoRecipeGenerator.Generated> gens = job.getValue();
+            genStatus.setText(gens.size() + " ideas");
+            if (gens.isEmpty()) { showInfo("No ideas", "Not enough pantry variety to auto-generate meals."); return; }
+            generatedList.getItems().setAll(gens);
+            for (var g : gens) recipeSteps.put(g.recipe, g.steps);
+            // Feed generated recipes into planner source
+            showRecipes(gens.stream().map(g -> g.recipe).collect(Collectors.toList()));
+        });
+        job.setOnFailed(ev -> {
+            if (job != generateJob) return;
+            generateJob = null;
+            genStatus.setText("");
+            showError(job.getException());
+        });
+        Thread t = new Thread(job, "generator-thread");
+        t.setDaemon(true);
+        t.start();
+    }
+
     // ---------- PLAN TAB ----------
     private Tab buildPlanTab() {
         Tab t = new Tab("Plan");
@@ -498,13 +542,25 @@ public class MainView extends BorderPane {
             planWithControlsAsync();
         });
 
+        Button cookBtn = new Button("Cook Selected");
+        cookBtn.setOnAction(e -> {
+            int i = planList.getSelectionModel().getSelectedIndex();
+            if (i < 0 || i >= lastPlan.size()) { showInfo("Cook", "Select a planned recipe first."); return; }
+            Recipe r = lastPlan.get(i);
+            var res = cooking.cook(r, recipeServingsSpinner.getValue());
+            if (res.cooked) showInfo("Cooked " + r.title, "Deducted " + res.deducted.size() + " pantry items.");
+            else showInfo("Cannot cook " + r.title, "Nothing was deducted:\n" + String.join("\n", res.shortfalls));
+        });
+
     ToolBar bar = new ToolBar(
-                new Label("Meals"), mealsSpinner,
+                new Label("Meals"), mealsSpinner, new Label("Days"), planDaysSpinner,
                 new Label("Max min"), maxMinSpinner,
-                new Label("Tags"), tagsField,
+                new Label("Tags"), tagsField, requireTags, requireTime, variedPlan,
         new Separator(), new Label("Servings"), recipeServingsSpinner,
-        go
+        go, cookBtn, planWasteLabel
         );
+        planDaysSpinner.setPrefWidth(60);
+        planDaysSpinner.setTooltip(new Tooltip("Plan several days: meals per day are assigned to days so the least food expires unused"));
 
         // Right explanation panel
     VBox explBox = new VBox(6,
@@ -565,6 +621,7 @@ public class MainView extends BorderPane {
             boolean have = pantry.containsKey(ing.name.toLowerCase());
             statusLines.add((have ? "✓ " : "✗ ") + ing.name + " – " + intOrDec(ing.amount) + (ing.unit == null? "" : (" " + ing.unit)));
         }
+        for (String sub : ex.substitutes) statusLines.add("↔ " + sub);
         missingList.getItems().setAll(statusLines);
         perishablesList.getItems().setAll(ex.perishablesUsed);
         // Update tooltip text with breakdown
@@ -608,7 +665,7 @@ public class MainView extends BorderPane {
         });
 
     TableColumn<ShoppingListService.Line, String> aisleCol = new TableColumn<>("Aisle");
-    aisleCol.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty(categoryFor(c.getValue().name)));
+    aisleCol.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty(c.getValue().aisle));
     shoppingTable.getColumns().setAll(List.of(item, amt, unit, aisleCol, buy));
 
         Button refresh = new Button("Update from Plan");
@@ -632,7 +689,7 @@ public class MainView extends BorderPane {
         });
 
         // When servings change, re-scale live
-        servingsSpinner.valueProperty().addListener((obs, a, b) -> updateShoppingList());
+        servingsSpinner.valueProperty().addListener((obs, a, b) -> showShoppingList());
 
         ToolBar bar = new ToolBar(
                 new Label("Store"), storeBox,
@@ -647,31 +704,72 @@ public class MainView extends BorderPane {
         shoppingTable.getItems().addListener((javafx.collections.ListChangeListener<? super ShoppingListService.Line>) c -> {
             shoppingStatus.setText((lastPlan==null?0:lastPlan.size()) + " recipes planned · " + shoppingTable.getItems().size() + " items on shopping list");
         });
+        Button suggest = new Button("Suggest Next Buys");
+        suggest.setOnAction(e -> suggestNextBuysAsync());
+        nextBuysList.setPlaceholder(new Label("Which purchase unlocks the most recipes?"));
+        VBox nextBuys = new VBox(6, new Label("Best next buys"), nextBuysList, suggest);
+        nextBuys.setPadding(new Insets(8));
+        nextBuys.setPrefWidth(300);
+        VBox.setVgrow(nextBuysList, Priority.ALWAYS);
+
         BorderPane box = new BorderPane(shoppingTable);
         box.setTop(bar);
+        box.setRight(nextBuys);
         box.setBottom(shoppingStatus);
         t.setContent(box);
         return t;
     }
 
+    /** Brings the shopping totals to the current plan (only the recipes that changed) and shows them. */
     private void updateShoppingList() {
+        shoppingTotals.setPlan(lastPlan);
+        showShoppingList();
+    }
+
+    // scaled by the servings multiplier as a view over the totals; nothing is recomputed here
+    private void showShoppingList() {
         if (lastPlan == null || lastPlan.isEmpty()) {
             shoppingTable.getItems().clear();
             return;
         }
-        // base list from recipes/pantry
-        lastShopping = shopping.compute(lastPlan, pantry, units, aliases);
-    // scale by servings multiplier
-    int mult = Math.max(1, servingsSpinner.getValue());
-    List<ShoppingListService.Line> lines = mult == 1 ? lastShopping : shopping.scale(lastShopping, mult);
-    lines.sort((a,b) -> {
-        int ca = aisleIndex(categoryFor(a.name));
-        int cb = aisleIndex(categoryFor(b.name));
-        if (ca != cb) return Integer.compare(ca, cb);
-        return a.name.compareToIgnoreCase(b.name);
-    });
-    shoppingTable.getItems().setAll(lines);
-    shoppingStatus.setText((lastPlan==null?0:lastPlan.size()) + " recipes planned · " + shoppingTable.getItems().size() + " items on shopping list");
+        List<ShoppingListService.Line> lines = shoppingTotals.view(servingsSpinner.getValue());
+        shoppingTable.getItems().setAll(aisleClassifier.arrange(lines));
+        shoppingStatus.setText(lastPlan.size() + " recipes planned · " + shoppingTable.getItems().size() + " items on shopping list");
+    }
+
+    /** Fresh totals for the current units, aliases and substitutions; call again when those are reloaded. */
+    private ShoppingAggregator newShoppingTotals() {
+        return new ShoppingAggregator(pantry, units, aliases, engine.substitutions());
+    }
+
+    // Marginal-gain purchase suggestions over the whole catalog, computed off the FX thread
+    private void suggestNextBuysAsync() {
+        Set<String> req = Arrays.stream(tagsField.getText().split(","))
+                .map(String::trim).filter(s -> !s.isEmpty()).collect(Collectors.toSet());
+        int meals = mealsSpinner.getValue();
+        int maxMin = maxMinSpinner.getValue();
+        Map<String, PantryItem> stock = pantryStore.snapshot().asMap();
+        CookableIndex index = recipeCookable;
+        Task<List<String>> task = new Task<>() {
+            @Override protected List<String> call() {
+                PurchaseAdvisor advisor = new PurchaseAdvisor(index, engine);
+                var bound = engine.bind(index.catalog(), stock, java.time.LocalDate.now());
+                List<String> out = new ArrayList<>();
+                for (var s : advisor.unlockMost(bound, 5)) {
+                    out.add(s.unlocked > 0 ? s.ingredient + " — unlocks " + s.unlocked + " recipe" + (s.unlocked == 1 ? "" : "s")
+                            : s.ingredient + " — used by " + s.closer + " recipes you are close to");
+                }
+                var plan = advisor.raisePlanScore(bound, req, maxMin, meals, 5);
+                if (!plan.isEmpty()) out.add("Raises your plan most:");
+                for (var s : plan) out.add("  " + s.ingredient + " (+" + round2(s.planGain) + " points)");
+                return out;
+            }
+        };
+        task.setOnSucceeded(ev -> nextBuysList.getItems().setAll(task.getValue()));
+        task.setOnFailed(ev -> showError(task.getException()));
+        Thread th = new Thread(task, "advisor-thread");
+        th.setDaemon(true);
+        th.start();
     }
 
     private void copyShoppingListToClipboard() {
@@ -693,9 +791,12 @@ public class MainView extends BorderPane {
             for (int i : idxs) if (i >= 0 && lastPlan != null && i < lastPlan.size()) subset.add(lastPlan.get(i));
         }
         if (subset == null || subset.isEmpty()) { showInfo("No recipes", "Select recipes in the Plan tab or create a plan first."); return; }
-        List<ShoppingListService.Line> lines = shopping.compute(subset, pantry, units, aliases);
-        int mult = Math.max(1, servingsSpinner.getValue());
-        if (mult != 1) lines = shopping.scale(lines, mult);
+        ShoppingAggregator totals = shoppingTotals;
+        if (subset != lastPlan) {
+            totals = newShoppingTotals();
+            totals.setPlan(subset);
+        }
+        List<ShoppingListService.Line> lines = totals.view(servingsSpinner.getValue());
         if (lines.isEmpty()) { showInfo("Shopping List", "You're all set — nothing missing for the chosen recipes!"); return; }
         StringBuilder sb = new StringBuilder();
         for (var ln : lines) sb.append(" • ").append(ln.name).append(": ").append(intOrDec(ln.amount)).append(" ").append(ln.unit).append("\n");
@@ -710,7 +811,8 @@ public class MainView extends BorderPane {
 
     // ---------- Common ----------
     public void planMeals(int meals, int maxMinutes) {
-        lastPlan = planner.plan(recipes, pantry, meals, Set.of(), maxMinutes);
+        lastPlan = pick(recipes, planner.plan(recipeCatalog, pantry, meals, Set.of(), maxMinutes));
+        planWasteLabel.setText("");
         planList.getItems().setAll(lastPlan.stream()
                 .map(r -> r.title + " (" + r.cookMinutes + "m)").collect(Collectors.toList()));
         if (!lastPlan.isEmpty()) {
@@ -724,17 +826,21 @@ public class MainView extends BorderPane {
         try (InputStream pIn = getClass().getResourceAsStream("/sample-data/pantry.json");
              InputStream rIn = getClass().getResourceAsStream("/sample-data/recipes.json");
              InputStream aIn = getClass().getResourceAsStream("/sample-data/aliases.json");
+             InputStream subIn = getClass().getResourceAsStream("/sample-data/substitutions.json");
              InputStream uIn = getClass().getResourceAsStream("/sample-data/units.json");
              InputStream sIn = getClass().getResourceAsStream("/sample-data/aisles.json")) {
             InputStream pFull = getClass().getResourceAsStream("/sample-data/pantry_full.json");
             InputStream pantryStream = (pFull != null) ? pFull : pIn;
-            pantry = storage.loadPantry(pantryStream);
-            recipes = storage.loadRecipes(rIn);
+            Map<String, PantryItem> loadedPantry = storage.loadPantry(pantryStream);
+            List<Recipe> loadedRecipes = storage.loadRecipes(rIn);
             aliases = new AliasResolver(storage.loadAliases(aIn));
+            if (subIn != null) engine.setSubstitutions(new SubstitutionGraph(storage.loadSubstitutions(subIn)));
             units = new Units(storage.loadUnits(uIn));
+            shoppingTotals = newShoppingTotals();
             if (sIn != null) aisles = storage.loadAisles(sIn);
-            refreshPantryTable();
-            refreshRecipesList();
+            aisleClassifier = new AisleClassifier(aisles.order, aisles.map, aliases);
+            pantryStore.replaceAll(loadedPantry);
+            showRecipes(loadedRecipes);
             updateShoppingList();
         } catch (Exception ex) { showError(ex); }
     }
@@ -751,11 +857,9 @@ public class MainView extends BorderPane {
             }
             File f = fc.showOpenDialog(getWindow()); if (f == null) return;
             try (InputStream in = new FileInputStream(f)) {
-                pantry = storage.loadPantry(in);
+                pantryStore.replaceAll(storage.loadPantry(in));
             }
             settings.lastPantryPath = f.getAbsolutePath(); saveSettingsQuiet();
-            refreshPantryTable();
-            updateShoppingList();
         } catch (Exception ex) { showError(ex); }
     }
 
@@ -770,32 +874,63 @@ public class MainView extends BorderPane {
                 fc.setInitialFileName(prev.getName());
             }
             File f = fc.showOpenDialog(getWindow()); if (f == null) return;
+            List<Recipe> loaded;
             try (InputStream in = new FileInputStream(f)) {
-                recipes = storage.loadRecipes(in);
+                loaded = storage.loadRecipes(in);
             }
             settings.lastRecipesPath = f.getAbsolutePath(); saveSettingsQuiet();
-            refreshRecipesList();
+            showRecipes(loaded);
             updateShoppingList();
         } catch (Exception ex) { showError(ex); }
     }
 
+    /** Bulk import of a supplier recipe export: a recipes CSV/TSV plus an ingredients CSV/TSV keyed by recipe id. */
+    public void importRecipesCSV() {
+        try {
+            FileChooser fc = new FileChooser();
+            fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV/TSV", "*.csv", "*.tsv"));
+            fc.setTitle("Select Recipes CSV (id,title,cook_minutes,tags)");
+            File rf = fc.showOpenDialog(getWindow()); if (rf == null) return;
+            fc.setInitialDirectory(rf.getParentFile());
+            fc.setTitle("Select Ingredients CSV (recipe_id,name,amount,unit)");
+            File inf = fc.showOpenDialog(getWindow()); if (inf == null) return;
+            RecipeCsvImporter importer = new RecipeCsvImporter(units, aliases);
+            Task<RecipeIndexes> task = new Task<>() {
+                @Override protected RecipeIndexes call() throws Exception {
+                    return RecipeIndexes.of(importer.load(rf.toPath(), inf.toPath()), Map.of());
+                }
+            };
+            planSpinner.setVisible(true);
+            task.setOnSucceeded(ev -> {
+                planSpinner.setVisible(false);
+                if (recipeIndexJob != null) { recipeIndexJob.cancel(); recipeIndexJob = null; }
+                swapInRecipes(task.getValue());
+                updateShoppingList();
+                showInfo("Import", "Recipes loaded: " + recipes.size());
+            });
+            task.setOnFailed(ev -> {
+                planSpinner.setVisible(false);
+                showError(task.getException());
+            });
+            new Thread(task, "recipe-import-thread").start();
+        } catch (Exception ex) { showError(ex); }
+    }
+
     public void exportShoppingListCSV() {
         try {
             List<ShoppingListService.Line> lines = new ArrayList<>(shoppingTable.getItems());
             if (lines.isEmpty()) {
                 if (lastPlan == null || lastPlan.isEmpty()) { showInfo("No plan yet", "Click Plan first, then export."); return; }
-                lines = shopping.compute(lastPlan, pantry, units, aliases);
-                int mult = Math.max(1, servingsSpinner.getValue());
-                if (mult != 1) lines = shopping.scale(lines, mult);
+                lines = new ArrayList<>(shoppingTotals.view(servingsSpinner.getValue()));
                 if (lines.isEmpty()) { showInfo("Nothing to export", "Your pantry already covers everything."); return; }
             }
             FileChooser fc = new FileChooser();
             fc.setTitle("Save Shopping List CSV");
             fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV", "*.csv"));
             File f = fc.showSaveDialog(getWindow()); if (f == null) return;
-            try (Writer w = new OutputStreamWriter(new FileOutputStream(f), StandardCharsets.UTF_8)) {
-                w.write("name,amount,unit\n");
-                for (var ln : lines) { w.write(ln.toString()); w.write("\n"); }
+            try (CsvWriter w = CsvWriter.open(f)) {
+                w.row("name", "amount", "unit");
+                for (var ln : lines) w.field(ln.name).field(ln.amount).field(ln.unit).endRow();
             }
         } catch (Exception ex) { showError(ex); }
     }
@@ -808,12 +943,9 @@ public class MainView extends BorderPane {
             fc.setTitle("Save Plan CSV");
             fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV", "*.csv"));
             File f = fc.showSaveDialog(getWindow()); if (f == null) return;
-            try (Writer w = new OutputStreamWriter(new FileOutputStream(f), StandardCharsets.UTF_8)) {
-                w.write("title,cook_minutes,tags\n");
-                for (var r : lastPlan) {
-                    String tags = String.join(";", r.tags);
-                    w.write(r.title.replace(","," ") + "," + r.cookMinutes + "," + tags + "\n");
-                }
+            try (CsvWriter w = CsvWriter.open(f)) {
+                w.row("title", "cook_minutes", "tags");
+                for (var r : lastPlan) w.field(r.title).field(r.cookMinutes).field(String.join(";", r.tags)).endRow();
             }
         } catch (Exception ex) { showError(ex); }
     }
@@ -841,9 +973,161 @@ public class MainView extends BorderPane {
         return s==null? "" : s.replace("&","&amp;").replace("<","&lt;").replace(">","&gt;");
     }
 
-    private void refreshPantryTable() { pantryTable.getItems().setAll(pantry.values()); }
-    private void refreshRecipesList() {
-    recipeList.getItems().setAll(recipes);
+    /** Applies one pantry change to the table: append, replace in place, or remove, instead of re-listing every row. */
+    private void applyPantryChange(PantryStore.Change c) {
+        var rows = pantryItems;
+        if (c.kind == PantryStore.Kind.RESET) { pantryIndex.clear(); pantryIndex.addAll(pantry.values()); }
+        if (c.oldItem != null) pantryIndex.remove(c.oldItem);
+        if (c.newItem != null) pantryIndex.add(c.newItem);
+        // test only the changed item against the search; the FilteredList re-filters just the rows that change
+        if (pantryHits != null) {
+            String q = pantrySearch.getText();
+            if (c.kind == PantryStore.Kind.RESET) { pantryHits.clear(); pantryHits.addAll(pantryIndex.search(q)); }
+            if (c.oldItem != null) pantryHits.remove(c.oldItem);
+            if (c.newItem != null && pantryIndex.matches(c.newItem, q)) pantryHits.add(c.newItem);
+        }
+        switch (c.kind) {
+            case ADDED -> { pantryRows.put(c.key, rows.size()); rows.add(c.newItem); }
+            case UPDATED -> {
+                Integer i = pantryRows.remove(c.previousKey());
+                if (i == null) { pantryRows.put(c.key, rows.size()); rows.add(c.newItem); }
+                else { pantryRows.put(c.key, i); rows.set(i, c.newItem); }
+            }
+            case REMOVED -> {
+                // the last row moves into the gap, so no other row shifts; the table shows its own sort order
+                Integer i = pantryRows.remove(c.key);
+                if (i == null) return;
+                int last = rows.size() - 1;
+                if (i < last) {
+                    PantryItem moved = rows.remove(last);
+                    pantryRows.put(PantryStore.keyOf(moved.name), i);
+                    rows.set(i, moved);
+                } else rows.remove(last);
+            }
+            case RESET -> {
+                rows.setAll(pantry.values());
+                pantryRows.clear();
+                for (int k = 0; k < rows.size(); k++) pantryRows.put(PantryStore.keyOf(rows.get(k).name), k);
+            }
+        }
+    }
+
+    private void filterPantry(String query) {
+        if (SearchIndex.tokenize(query).isEmpty()) { pantryHits = null; pantryFiltered.setPredicate(null); return; }
+        Set<PantryItem> hits = Collections.newSetFromMap(new IdentityHashMap<>());
+        hits.addAll(pantryIndex.search(query));
+        pantryHits = hits;
+        pantryFiltered.setPredicate(hits::contains);
+    }
+
+    /** The shopping list only depends on pantry items the current plan uses; the totals tell whether it changed. */
+    private void onPantryChangeForShopping(PantryStore.Change c) {
+        long before = shoppingTotals.version();
+        shoppingTotals.onChange(c);
+        if (shoppingTotals.version() != before) showShoppingList();
+    }
+
+    private static List<Recipe> pick(List<Recipe> list, int[] indices) {
+        List<Recipe> out = new ArrayList<>(indices.length);
+        for (int i : indices) out.add(list.get(i));
+        return out;
+    }
+
+    /** Everything derived from one recipe list, same indices as {@code recipes}; built off the FX thread. */
+    private record RecipeIndexes(List<Recipe> recipes, RecipeCatalog catalog, CookableIndex cookable, FacetIndex facets,
+                                 SimilarityIndex similarity, SearchIndex<Recipe> prefix, TextSearch<Recipe> text) {
+        static RecipeIndexes of(List<Recipe> recipes, Map<Recipe, List<String>> steps) {
+            RecipeCatalog catalog = RecipeCatalog.of(recipes);
+            SearchIndex<Recipe> prefix = new SearchIndex<>(MainView::searchText);
+            prefix.addAll(recipes);
+            TextSearch<Recipe> text = new TextSearch<>(r -> fullText(r, steps));
+            text.addAll(recipes);
+            return new RecipeIndexes(recipes, catalog, CookableIndex.of(catalog), FacetIndex.of(catalog),
+                    SimilarityIndex.of(catalog), prefix, text);
+        }
+    }
+
+    // Indexes a new recipe list in the background; the list and its indexes replace the old ones together
+    // once built, so `recipes` and the indexes never disagree on recipe positions
+    private void showRecipes(List<Recipe> list) {
+        if (recipeIndexJob != null) recipeIndexJob.cancel();
+        Map<Recipe, List<String>> steps = new IdentityHashMap<>(recipeSteps);
+        Task<RecipeIndexes> job = new Task<>() {
+            @Override protected RecipeIndexes call() { return RecipeIndexes.of(list, steps); }
+        };
+        recipeIndexJob = job;
+        job.setOnSucceeded(ev -> {
+            if (job != recipeIndexJob) return;
+            recipeIndexJob = null;
+            swapInRecipes(job.getValue());
+        });
+        job.setOnFailed(ev -> {
+            if (job != recipeIndexJob) return;
+            recipeIndexJob = null;
+            showError(job.getException());
+        });
+        Thread t = new Thread(job, "recipe-index-thread");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void swapInRecipes(RecipeIndexes ix) {
+        recipes = ix.recipes();
+        recipeCatalog = ix.catalog();
+        recipeCookable = ix.cookable();
+        recipeFacets = ix.facets();
+        recipeSimilarity = ix.similarity();
+        recipeIndex = ix.prefix();
+        recipeText = ix.text();
+        recipeSteps.keySet().retainAll(ix.text().items());
+        recipeItems.setAll(recipes);
+        applyRecipeFilter();
+    }
+
+    // A cook, undo or batch fires one change per item: re-filter "Cookable now" once after all of them
+    private void scheduleCookableFilter() {
+        if (!cookableOnly.isSelected() || cookableFilterPending) return;
+        cookableFilterPending = true;
+        Platform.runLater(() -> {
+            cookableFilterPending = false;
+            if (cookableOnly.isSelected()) applyRecipeFilter();
+        });
+    }
+
+    // Search text (prefix matches plus ranked full-text hits, best first), narrowed to what the pantry
+    // covers (up to k items to buy) when "Cookable now" is ticked
+    private void applyRecipeFilter() {
+        String query = recipeSearch.getText();
+        java.util.function.Predicate<Recipe> prefix = recipeIndex.predicate(query);
+        recipeRanked.setComparator(null);
+        recipeRank.clear();
+        for (var hit : recipeText.search(query, 500)) recipeRank.put(hit.item, hit.score);
+        java.util.function.Predicate<Recipe> text = r -> recipeRank.containsKey(r) || prefix.test(r);
+        recipeMissing.clear();
+        if (!cookableOnly.isSelected()) { recipeFiltered.setPredicate(text); rankRecipes(); return; }
+        var stock = engine.bind(recipeCatalog, pantry, java.time.LocalDate.now());
+        int k = maxMissingSpinner.getValue();
+        if (k == 0) for (int r : recipeCookable.cookable(stock, true)) recipeMissing.put(recipes.get(r), List.of());
+        else for (var near : recipeCookable.missingAtMost(stock, k, true)) recipeMissing.put(recipes.get(near.recipe), near.missing);
+        recipeFiltered.setPredicate(r -> recipeMissing.containsKey(r) && text.test(r));
+        rankRecipes();
+    }
+
+    private void rankRecipes() {
+        if (!recipeRank.isEmpty()) recipeRanked.setComparator(Comparator.comparingDouble(r -> -recipeRank.getOrDefault(r, 0.0)));
+        recipeList.refresh();
+    }
+
+    private static String fullText(Recipe r, Map<Recipe, List<String>> recipeSteps) {
+        List<String> steps = recipeSteps.get(r);
+        return steps == null ? searchText(r) : searchText(r) + ' ' + String.join(" ", steps);
+    }
+
+    private static String searchText(Recipe r) {
+        StringBuilder sb = new StringBuilder(r.title == null ? "" : r.title);
+        if (r.tags != null) for (String t : r.tags) sb.append(' ').append(t);
+        if (r.ingredients != null) for (Ingredient i : r.ingredients) sb.append(' ').append(i.name);
+        return sb.toString();
     }
     private Window getWindow() { return getScene() != null ? getScene().getWindow() : null; }
 
@@ -853,6 +1137,18 @@ public class MainView extends BorderPane {
         a.setHeaderText("Error"); a.showAndWait();
     }
 
+    // Same catalog index as `recipes`; candidates come from the LSH buckets, not a catalog scan
+    private void showSimilarRecipes(Recipe r) {
+        int i = -1;
+        for (int k = 0; k < recipes.size() && i < 0; k++) if (recipes.get(k) == r) i = k;
+        if (i < 0) return;
+        List<String> lines = new ArrayList<>();
+        for (var m : recipeSimilarity.similar(i, 10)) {
+            lines.add(Math.round(m.similarity * 100) + "% · " + recipes.get(m.recipe).title);
+        }
+        showInfo("More like " + r.title, lines.isEmpty() ? "No recipes with a similar ingredient list." : String.join("\n", lines));
+    }
+
     private void showRecipeDetails(Recipe r) {
         try {
             StringBuilder sb = new StringBuilder();
@@ -867,7 +1163,7 @@ public class MainView extends BorderPane {
             }
             // Resolve by tags, fallback to placeholder
             String ref = resolveRecipeImage(r);
-            ImageView imageView = new ImageView(loadImageRef(ref));
+            ImageView imageView = imageViewFor(ref);
             imageView.setPreserveRatio(true);
             imageView.setFitWidth(520);
 
@@ -899,7 +1195,7 @@ public class MainView extends BorderPane {
             int i=1; for (String step : g.steps) sb.append(" ").append(i++).append(". ").append(step).append("\n");
 
             String ref = resolveRecipeImage(g);
-            ImageView img = new ImageView(loadImageRef(ref));
+            ImageView img = imageViewFor(ref);
             img.setPreserveRatio(true); img.setFitWidth(520);
 
             TextArea ta = new TextArea(sb.toString()); ta.setEditable(false); ta.setWrapText(true);
@@ -972,8 +1268,10 @@ public class MainView extends BorderPane {
 
     private boolean resourceExists(String resRef){
         if (resRef == null || !resRef.startsWith("res:")) return false;
-        String p = resRef.substring(4);
-        return getClass().getResource(p) != null;
+        return resourceUrl(resRef.substring(4)) != null;
+    }
+    private java.net.URL resourceUrl(String path){
+        return resourceUrls.computeIfAbsent(path, p -> Optional.ofNullable(getClass().getResource(p))).orElse(null);
     }
     private String chooseResOrText(String resRef, String label){
         return resourceExists(resRef) ? resRef : ("text:" + label);
@@ -1011,100 +1309,20 @@ public class MainView extends BorderPane {
     }
 
 
-    // Load Image from a classpath ref (res:/...) or URL, with safe fallback
-    private Image loadImageRef(String ref) {
-        try {
-            if (ref != null && ref.startsWith("res:")) {
-                String path = ref.substring(4);
-                var url = getClass().getResource(path);
-                if (url != null) return new Image(url.toExternalForm(), true);
-                // classpath resource missing → fall through to category placeholder
-                String name = new File(path).getName();
-                String label = name.contains(".") ? name.substring(0, name.lastIndexOf('.')) : name;
-                String text = label.replace('_', ' ');
-                return generatePlaceholderImage(text, 800, 500);
-            } else if (ref != null && ref.startsWith("text:")) {
-                String text = ref.substring(5);
-                return generatePlaceholderImage(text, 800, 500);
-            } else if (ref != null && (ref.startsWith("http://") || ref.startsWith("https://"))) {
-                Image remote = new Image(ref, true);
-                // If remote fails, show a generic placeholder locally
-                if (remote.isError()) return generatePlaceholderImage("Recipe", 800, 500);
-                return remote;
-            }
-        } catch (Exception ignore) { }
-        // ultimate fallback placeholder
-        return generatePlaceholderImage("Recipe", 800, 500);
+    // Show the image for a ref: immediately when already decoded, else once the loader finishes
+    private ImageView imageViewFor(String ref) {
+        ImageView view = new ImageView(images.getIfReady(ref));
+        if (view.getImage() == null) {
+            images.load(ref).whenComplete((img, err) ->
+                Platform.runLater(() -> view.setImage(img != null ? img : generatePlaceholderImage("Recipe", 800, 500))));
+        }
+        return view;
     }
 
     private Image generatePlaceholderImage(String label, int w, int h) {
-        try {
-            Canvas canvas = new Canvas(w, h);
-            GraphicsContext g = canvas.getGraphicsContext2D();
-            // Background
-            g.setFill(Color.web("#e0e7ff"));
-            g.fillRect(0, 0, w, h);
-            // Border
-            g.setStroke(Color.web("#94a3b8"));
-            g.setLineWidth(2);
-            g.strokeRect(3, 3, w-6, h-6);
-            // Text
-            String text = (label == null || label.isBlank()) ? "Recipe" : label;
-            String[] lines = text.split("\\n");
-            g.setFill(Color.web("#0f172a"));
-            double margin = 24;
-            double maxWidth = w - margin*2;
-            // Draw title larger, subsequent lines smaller
-            double y = margin * 2;
-            for (int idx=0; idx<lines.length; idx++){
-                String ln = lines[idx];
-                double baseSize = idx==0 ? 36 : 20;
-                // Simple downscale to fit width
-                double size = baseSize;
-                g.setFont(Font.font("System", size));
-                while (computeTextWidthApprox(ln, size) > maxWidth && size > 12) {
-                    size -= 1.0; g.setFont(Font.font("System", size));
-                }
-                // Wrap long ingredient lines by words
-                for (String wrapped : wrapLine(ln, size, maxWidth)){
-                    double tx = (w - Math.min(maxWidth, computeTextWidthApprox(wrapped, size))) / 2.0;
-                    g.fillText(wrapped, tx, y);
-                    y += size + 8;
-                }
-                y += (idx==0 ? 8 : 0);
-            }
-            WritableImage img = new WritableImage(w, h);
-            return canvas.snapshot(null, img);
-        } catch (Exception e) {
-            WritableImage img = new WritableImage(1, 1);
-            return img;
-        }
+        return images.placeholder(label, w, h);
     }
 
-    // Approximate width since we don't have FontMetrics; good enough for centering
-    private double computeTextWidthApprox(String s, double fontSize){
-        if (s == null) return 0;
-        return fontSize * 0.55 * s.length();
-    }
-    private List<String> wrapLine(String s, double fontSize, double maxWidth){
-        List<String> out = new ArrayList<>();
-        if (s == null || s.isBlank()) { out.add(""); return out; }
-        String[] words = s.split(" ");
-        StringBuilder cur = new StringBuilder();
-        for (String w : words){
-            String trial = cur.length()==0? w : cur + " " + w;
-            if (computeTextWidthApprox(trial, fontSize) > maxWidth && cur.length()>0){
-                out.add(cur.toString());
-                cur.setLength(0);
-                cur.append(w);
-            } else {
-                cur.setLength(0);
-                cur.append(trial);
-            }
-        }
-        if (cur.length()>0) out.add(cur.toString());
-        return out;
-    }
     private void showInfo(String header, String msg) {
         Alert a = new Alert(Alert.AlertType.INFORMATION, msg, ButtonType.OK);
         a.setHeaderText(header); a.showAndWait();
@@ -1149,16 +1367,44 @@ public class MainView extends BorderPane {
                 .map(String::trim).filter(s -> !s.isEmpty()).collect(Collectors.toSet());
         int meals = mealsSpinner.getValue();
         int maxMin = maxMinSpinner.getValue();
+        Map<String, PantryItem> stock = pantryStore.snapshot().asMap(); // a fixed version: edits made while planning don't race the planner
+        List<Recipe> source = recipes;
+        RecipeCatalog catalog = recipeCatalog;
+        FacetIndex facets = recipeFacets;
+        SimilarityIndex similarity = recipeSimilarity;
+        boolean strictTags = requireTags.isSelected(), strictTime = requireTime.isSelected(), varied = variedPlan.isSelected();
+        int days = planDaysSpinner.getValue(), servings = Math.max(1, recipeServingsSpinner.getValue());
+        HorizonPlanner horizon = new HorizonPlanner(units);
+        List<String> labels = new ArrayList<>(); // filled by the task, read once it has succeeded
+        HorizonPlanner.Schedule[] schedule = new HorizonPlanner.Schedule[1];
         Task<List<Recipe>> task = new Task<>() {
             @Override protected List<Recipe> call() {
-                return planner.plan(recipes, pantry, meals, req, maxMin);
+                // hard filters narrow the catalog through the facet index before anything is scored
+                if (days > 1) {
+                    // schedule from a pool of the best-scoring recipes, a few per slot
+                    int pool = Math.max(meals * days * 3, 32);
+                    int[] picks = varied ? planner.planDiverse(catalog, facets, similarity, stock, pool, req, maxMin, strictTags, strictTime, 0.7)
+                            : planner.plan(catalog, facets, stock, pool, req, maxMin, strictTags, strictTime);
+                    schedule[0] = horizon.plan(pick(source, picks), stock, java.time.LocalDate.now(), days, meals, servings, 20000);
+                    List<Recipe> out = new ArrayList<>();
+                    for (int d = 0; d < days; d++) for (Recipe r : schedule[0].days.get(d)) {
+                        out.add(r);
+                        labels.add("Day " + (d + 1) + ": " + r.title + " (" + r.cookMinutes + "m)");
+                    }
+                    return out;
+                }
+                List<Recipe> out = varied ? pick(source, planner.planDiverse(catalog, facets, similarity, stock, meals, req, maxMin, strictTags, strictTime, 0.7))
+                        : pick(source, planner.plan(catalog, facets, stock, meals, req, maxMin, strictTags, strictTime));
+                for (Recipe r : out) labels.add(r.title + " (" + r.cookMinutes + "m)");
+                return out;
             }
         };
         planSpinner.setVisible(true);
         task.setOnSucceeded(ev -> {
             planSpinner.setVisible(false);
             lastPlan = task.getValue();
-            planList.getItems().setAll(lastPlan.stream().map(r -> r.title + " (" + r.cookMinutes + "m)").collect(Collectors.toList()));
+            planWasteLabel.setText(schedule[0] == null ? "" : String.format("Expires unused: %.0f g  |  To buy: %.0f g", schedule[0].wastedGrams, schedule[0].shortGrams));
+            planList.getItems().setAll(labels);
             if (!lastPlan.isEmpty()) {
                 planList.getSelectionModel().select(0);
                 showExplanation(lastPlan.get(0));
@@ -1197,32 +1443,11 @@ public class MainView extends BorderPane {
         return (Math.abs(d - Math.rint(d)) < 1e-9) ? String.valueOf((int)Math.rint(d)) : String.valueOf(round2(d));
     }
     private double round2(double d){ return Math.round(d*100.0)/100.0; }
-    private int aisleIndex(String cat) {
-        if (aisles == null || aisles.order == null) return Integer.MAX_VALUE/2;
-        int i = aisles.order.indexOf(cat);
-        return i < 0 ? Integer.MAX_VALUE/2 : i;
-    }
-    private String categoryFor(String name) {
-        if (aisles == null || aisles.map == null || name == null) return "Other";
-        String key = name.toLowerCase();
-        return aisles.map.getOrDefault(key, "Other");
-    }
     private void openUrl(String url) {
         try {
             if (Desktop.isDesktopSupported()) Desktop.getDesktop().browse(new URI(url));
             else showInfo("Open this link", url);
         } catch (Exception ex) { showError(ex); }
     }
-
-    // ---------- Undo helpers ----------
-    private void pushUndo(Runnable r) {
-        undoStack.clear();
-        undoStack.push(r);
-    }
-    private void doUndo() {
-        if (undoStack.isEmpty()) return;
-        try { undoStack.pop().run(); }
-        finally { undoStack.clear(); }
-    }
 }
 
@@ -0,0 +1,47 @@
+package com.example.aipantry;
+
+import com.example.aipantry.services.AisleClassifier;
+import com.example.aipantry.services.AliasResolver;
+import com.example.aipantry.services.ShoppingListService.Line;
+import com.example.aipantry.storage.JsonStorage;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AisleClassifierTests {
+    private static AisleClassifier sample(AliasResolver aliases) throws Exception {
+        try (InputStream in = AisleClassifierTests.class.getResourceAsStream("/sample-data/aisles.json")) {
+            var a = new JsonStorage().loadAisles(in);
+            return new AisleClassifier(a.order, a.map, aliases);
+        }
+    }
+
+    @Test
+    void longestWordSuffixWins() throws Exception {
+        var c = sample(new AliasResolver(Map.of("chicken breast", List.of("chicken breasts", "chicken fillet"))));
+        assertEquals("Produce", c.aisleOf("Baby Spinach"));
+        assertEquals("Produce", c.aisleOf("red onions"));
+        assertEquals("Meat", c.aisleOf("boneless chicken breast"));
+        assertEquals("Meat", c.aisleOf("chicken fillet"), "aliases are resolved first");
+        assertEquals("Frozen", c.aisleOf("frozen peas"));
+        assertEquals("Other", c.aisleOf("peas"), "only a whole known suffix counts");
+        assertEquals("Other", c.aisleOf("breast"));
+        assertEquals("Dairy", c.aisleOf("EGGS"));
+        assertEquals("Other", c.aisleOf(null));
+        assertEquals(c.aisles().indexOf("Pantry"), c.rankOf("brown rice"));
+    }
+
+    @Test
+    void arrangesLinesByAisleThenName() throws Exception {
+        var c = new AisleClassifier(List.of("Produce", "Dairy"), Map.of("spinach", "Produce", "milk", "Dairy", "tofu", "Chilled"), null);
+        assertEquals(List.of("Produce", "Dairy", "Chilled", "Other"), c.aisles());
+        List<Line> lines = List.of(new Line("whole milk", 1, "l"), new Line("tofu", 1, "piece"), new Line("soap", 1, null),
+                new Line("spinach", 200, "g"), new Line("Baby spinach", 100, "g"));
+        List<String> order = new ArrayList<>();
+        for (Line l : c.arrange(lines)) order.add(l.name + "/" + l.aisle);
+        assertEquals(List.of("Baby spinach/Produce", "spinach/Produce", "whole milk/Dairy", "tofu/Chilled", "soap/Other"), order);
+    }
+}
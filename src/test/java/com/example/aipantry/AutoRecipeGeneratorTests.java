@@ -0,0 +1,39 @@
+package com.example.aipantry;
+
+import com.example.aipantry.model.*;
+import com.example.aipantry.services.*;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.*;
+
+public class AutoRecipeGeneratorTests {
+    private Map<String, PantryItem> pantry() {
+        Map<String, PantryItem> p = new LinkedHashMap<>();
+        for (String n : List.of("chicken", "beef mince", "tofu", "onion", "broccoli", "carrot", "spinach", "rice", "pasta", "tortilla", "egg", "oil", "garlic"))
+            p.put(n, new PantryItem(n, 500, "g", LocalDate.now().plusDays(n.length() % 5)));
+        return p;
+    }
+
+    @Test
+    void streamingStopsWhenSinkDeclines() {
+        AutoRecipeGenerator gen = new AutoRecipeGenerator();
+        int[] seen = {0};
+        gen.forEachDetailed(pantry(), 2, g -> ++seen[0] < 7);
+        assertEquals(7, seen[0]);
+    }
+
+    @Test
+    void generateDetailedIsTheRankedStream() {
+        AutoRecipeGenerator gen = new AutoRecipeGenerator();
+        List<AutoRecipeGenerator.Generated> streamed = new ArrayList<>();
+        gen.forEachDetailed(pantry(), 2, streamed::add);
+        streamed.sort(gen.ranking(pantry()));
+
+        List<AutoRecipeGenerator.Generated> all = gen.generateDetailed(pantry(), 2, 0);
+        assertEquals(streamed.size(), all.size());
+        for (int i = 0; i < all.size(); i++) assertEquals(streamed.get(i).recipe.title, all.get(i).recipe.title);
+        assertEquals(5, gen.generateDetailed(pantry(), 2, 5).size());
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.aipantry;
+
+import com.example.aipantry.model.Ingredient;
+import com.example.aipantry.model.Lot;
+import com.example.aipantry.model.PantryItem;
+import com.example.aipantry.model.Recipe;
+import com.example.aipantry.services.CookService;
+import com.example.aipantry.services.PantryStore;
+import com.example.aipantry.services.Units;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CookServiceTests {
+    private final Units units = new Units(Map.of("g", Map.of("to_g", 1.0), "ml", Map.of("to_ml", 1.0), "piece", Map.of("to_piece", 1.0)));
+
+    private static Recipe recipe(String title, Ingredient... ings) {
+        return new Recipe(title, List.of(ings), 10, Set.of());
+    }
+
+    @Test
+    void deductsConvertedAmountsFromSoonestLotsFirst() {
+        PantryStore store = new PantryStore();
+        LocalDate d = LocalDate.of(2030, 1, 1);
+        store.put(new PantryItem("flour", 1, "kg", d.plusDays(30)).withLot(new Lot(0.5, d)));
+        store.put(new PantryItem("milk", 1, "l", null));
+        CookService cook = new CookService(store, units);
+
+        var res = cook.cook(recipe("Pancakes", new Ingredient("Flour", 200, "g"), new Ingredient("milk", 1, "cup"), new Ingredient("flour", 100, "grams")), 2);
+        assertTrue(res.cooked, String.valueOf(res.shortfalls));
+        assertEquals(0.9, store.get("flour").quantity, 1e-9);
+        assertEquals(1, store.get("flour").lots().size()); // the older lot went first
+        assertEquals(d.plusDays(30), store.get("flour").expiresOn);
+        assertEquals(1 - 2 * 0.236588, store.get("milk").quantity, 1e-6);
+        assertEquals(1, store.version() - 2);
+    }
+
+    @Test
+    void shortOrMismatchedIngredientDeductsNothing() {
+        PantryStore store = new PantryStore();
+        store.put(new PantryItem("egg", 2, "piece", null));
+        store.put(new PantryItem("butter", 100, "g", null));
+        CookService cook = new CookService(store, units);
+        long v = store.version();
+
+        var res = cook.cook(recipe("Omelette", new Ingredient("egg", 3, "piece"), new Ingredient("butter", 10, "g")), 1);
+        assertFalse(res.cooked);
+        assertEquals(1, res.shortfalls.size());
+        assertFalse(cook.cook(recipe("Odd", new Ingredient("butter", 1, "ml")), 1).cooked);
+        assertFalse(cook.cook(recipe("Toast", new Ingredient("bread", 1, "piece"), new Ingredient("butter", 1, "g")), 1).cooked);
+        assertEquals(v, store.version());
+        assertEquals(100, store.get("butter").quantity);
+    }
+
+    @Test
+    void losingEveryRaceReportsInsteadOfThrowing() {
+        PantryStore store = new PantryStore() {
+            @Override public synchronized boolean compareAndSet(Map<String, PantryItem> expected, Map<String, PantryItem> updates) { return false; }
+        };
+        store.put(new PantryItem("egg", 6, "piece", null));
+        var res = new CookService(store, units).cook(recipe("Boiled egg", new Ingredient("egg", 1, "piece")), 1);
+        assertFalse(res.cooked);
+        assertEquals(List.of("pantry changed concurrently, try again"), res.shortfalls);
+        assertEquals(6, store.get("egg").quantity);
+    }
+
+    @Test
+    void concurrentCooksNeverOverdrawAndAreAllOrNothing() throws Exception {
+        PantryStore store = new PantryStore();
+        String[] names = { "a", "b", "c", "d", "e", "f" };
+        for (String n : names) store.put(new PantryItem(n, 500, "g", null));
+        CookService cook = new CookService(store, units);
+        // every recipe uses two items, so a cook that succeeded on one but not the other would break conservation
+        List<Recipe> menu = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            menu.add(recipe("r" + i, new Ingredient(names[i], 7, "g"), new Ingredient(names[(i + 1) % names.length], 3, "g")));
+        }
+        int threads = 8, perThread = 400;
+        ConcurrentHashMap<String, Double> used = new ConcurrentHashMap<>();
+        AtomicInteger cooked = new AtomicInteger();
+        runAll(threads, t -> {
+            Random rnd = new Random(t);
+            for (int i = 0; i < perThread; i++) {
+                Recipe r = menu.get(rnd.nextInt(menu.size()));
+                var res = cook.cook(r, 1);
+                if (!res.cooked) continue;
+                cooked.incrementAndGet();
+                for (Ingredient ing : r.ingredients) used.merge(ing.name, ing.amount, Double::sum);
+            }
+        });
+        assertTrue(cooked.get() > 0);
+        for (String n : names) {
+            double left = store.get(n).quantity;
+            assertTrue(left >= 0, n);
+            assertEquals(500, left + used.getOrDefault(n, 0.0), 1e-6, n);
+        }
+        // the stock ran out, so each recipe must now be short on something
+        for (Recipe r : menu) assertFalse(cook.cook(r, 1).cooked);
+    }
+
+    @Test
+    void cooksOnDisjointItemsAllSucceed() throws Exception {
+        PantryStore store = new PantryStore();
+        int threads = 6, perThread = 300;
+        for (int t = 0; t < threads; t++) store.put(new PantryItem("item" + t, perThread, "piece", null));
+        CookService cook = new CookService(store, units);
+        AtomicInteger failures = new AtomicInteger();
+        runAll(threads, t -> {
+            Recipe r = recipe("r" + t, new Ingredient("item" + t, 1, "piece"));
+            for (int i = 0; i < perThread; i++) if (!cook.cook(r, 1).cooked) failures.incrementAndGet();
+        });
+        assertEquals(0, failures.get());
+        for (int t = 0; t < threads; t++) assertEquals(0, store.get("item" + t).quantity);
+    }
+
+    @Test
+    void outsideWritesAreNotLost() throws Exception {
+        PantryStore store = new PantryStore();
+        store.put(new PantryItem("rice", 1000, "g", null));
+        CookService cook = new CookService(store, units);
+        Recipe r = recipe("Rice", new Ingredient("rice", 10, "g"));
+        AtomicInteger cooked = new AtomicInteger(), restocked = new AtomicInteger();
+        runAll(4, t -> {
+            for (int i = 0; i < 200; i++) {
+                if (t == 0) {
+                    // a terminal restocking through the store directly
+                    store.batch(() -> store.put(store.get("rice").withLot(new Lot(5, null))));
+                    restocked.incrementAndGet();
+                } else if (cook.cook(r, 1).cooked) cooked.incrementAndGet();
+            }
+        });
+        assertEquals(1000 + 5.0 * restocked.get() - 10.0 * cooked.get(), store.get("rice").quantity, 1e-6);
+    }
+
+    private interface Worker { void run(int thread) throws Exception; }
+
+    private static void runAll(int threads, Worker w) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> done = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            done.add(pool.submit(() -> { start.await(); w.run(id); return null; }));
+        }
+        start.countDown();
+        try {
+            for (Future<?> f : done) f.get(60, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
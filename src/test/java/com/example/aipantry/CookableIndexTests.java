@@ -0,0 +1,84 @@
+package com.example.aipantry;
+
+import com.example.aipantry.model.*;
+import com.example.aipantry.services.CookableIndex;
+import com.example.aipantry.services.RuleEngine;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CookableIndexTests {
+    @Test
+    void matchesFullCoverageFromExplain() {
+        List<Recipe> recipes = RecipeCatalogTests.randomRecipes(new Random(11), 4000);
+        recipes.add(new Recipe("Water", List.of(), 1, Set.of()));
+        RecipeCatalog catalog = RecipeCatalog.of(recipes);
+        CookableIndex index = CookableIndex.of(catalog);
+        RuleEngine engine = new RuleEngine();
+        Random rnd = new Random(3);
+        for (int round = 0; round < 5; round++) {
+            Map<String, PantryItem> pantry = new HashMap<>();
+            // a generous pantry so plenty of recipes qualify
+            for (int id = 0; id < catalog.distinctIngredients(); id++) {
+                if (rnd.nextInt(10) < 7) {
+                    String name = catalog.ingredientName(id);
+                    pantry.put(name, new PantryItem(name, rnd.nextInt(3) == 0 ? 0 : 1000, rnd.nextInt(4) == 0 ? "cup" : "g", null));
+                }
+            }
+            RecipeColumns.Stock stock = catalog.bind(pantry, LocalDate.now());
+            List<Integer> expectFull = new ArrayList<>(), expectPresent = new ArrayList<>();
+            for (int r = 0; r < recipes.size(); r++) {
+                if (engine.explain(recipes.get(r), pantry, null, 999).coverage == 1.0) expectFull.add(r);
+                boolean all = true;
+                for (Ingredient i : recipes.get(r).ingredients) {
+                    PantryItem p = pantry.get(i.name.toLowerCase());
+                    all &= p != null && p.quantity > 0;
+                }
+                if (all) expectPresent.add(r);
+            }
+            assertEquals(expectFull, box(index.cookable(stock, true)), "round " + round);
+            assertEquals(expectPresent, box(index.cookable(stock, false)), "round " + round);
+            assertTrue(expectFull.contains(recipes.size() - 1));
+        }
+    }
+
+    @Test
+    void missingAtMostMatchesExplain() {
+        List<Recipe> recipes = RecipeCatalogTests.randomRecipes(new Random(21), 3000);
+        RecipeCatalog catalog = RecipeCatalog.of(recipes);
+        CookableIndex index = CookableIndex.of(catalog);
+        RuleEngine engine = new RuleEngine();
+        Map<String, PantryItem> pantry = RecipeCatalogTests.samplePantry();
+        RecipeColumns.Stock stock = catalog.bind(pantry, LocalDate.now());
+        for (int k = 0; k <= 3; k++) {
+            Map<Integer, List<String>> expected = new TreeMap<>();
+            for (int r = 0; r < recipes.size(); r++) {
+                List<String> missing = engine.explain(recipes.get(r), pantry, null, 999).missing;
+                if (missing.size() <= k) expected.put(r, missing.stream().map(String::toLowerCase).toList());
+            }
+            List<CookableIndex.Near> got = index.missingAtMost(stock, k, true);
+            Map<Integer, List<String>> actual = new TreeMap<>();
+            for (var near : got) actual.put(near.recipe, near.missing);
+            assertEquals(expected, actual, "k=" + k);
+            for (int i = 1; i < got.size(); i++) assertTrue(got.get(i - 1).missing.size() <= got.get(i).missing.size());
+        }
+        List<Integer> zero = index.missingAtMost(stock, 0, true).stream().map(x -> x.recipe).sorted().toList();
+        assertEquals(box(index.cookable(stock, true)), zero);
+    }
+
+    @Test
+    void emptyPantryOnlyAllowsRecipesWithoutIngredients() {
+        RecipeCatalog catalog = RecipeCatalog.of(List.of(
+                new Recipe("Toast", List.of(new Ingredient("bread", 1, "piece")), 2, Set.of()),
+                new Recipe("Nothing", List.of(), 0, Set.of())));
+        CookableIndex index = CookableIndex.of(catalog);
+        assertArrayEquals(new int[] { 1 }, index.cookable(catalog.bind(Map.of(), LocalDate.now()), true));
+        var stock = catalog.bind(Map.of("bread", new PantryItem("bread", 3, "piece", null)), LocalDate.now());
+        assertArrayEquals(new int[] { 0, 1 }, index.cookable(stock, true));
+    }
+
+    private static List<Integer> box(int[] a) { return Arrays.stream(a).boxed().toList(); }
+}
@@ -0,0 +1,75 @@
+package com.example.aipantry;
+
+import com.example.aipantry.storage.CsvReader;
+import com.example.aipantry.storage.CsvWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+public class CsvTests {
+    @TempDir Path dir;
+
+    @Test
+    void readsQuotedDelimitersEscapesAndNewlines() throws Exception {
+        Path f = dir.resolve("p.csv");
+        Files.writeString(f, "name,quantity,unit\r\n\"Salt, sea\",2.5,g\n\"say \"\"cheese\"\"\",1,piece\n\"two\nlines\",3,\n\n", StandardCharsets.UTF_8);
+        try (CsvReader r = CsvReader.open(f)) {
+            assertTrue(r.next()); assertEquals("name", r.get(0));
+            assertTrue(r.next()); assertEquals("Salt, sea", r.get(0)); assertEquals(2.5, r.getDouble(1, 0), 1e-9);
+            assertTrue(r.next()); assertEquals("say \"cheese\"", r.get(0));
+            assertTrue(r.next()); assertEquals("two\nlines", r.get(0)); assertEquals(3, r.getInt(1, 0));
+            assertEquals("piece", r.get(2, "piece"));
+            assertNull(r.get(3));
+            assertTrue(r.next()); assertTrue(r.isBlank());
+            assertFalse(r.next());
+        }
+    }
+
+    @Test
+    void writerRoundTripsThroughReader() throws Exception {
+        Path f = dir.resolve("out.csv");
+        try (CsvWriter w = CsvWriter.open(f)) {
+            w.row("title", "tags");
+            w.field("Chili, \"hot\"\nstyle").field("a;b").endRow();
+        }
+        try (CsvReader r = CsvReader.open(f)) {
+            assertTrue(r.next());
+            assertTrue(r.next());
+            assertEquals("Chili, \"hot\"\nstyle", r.get(0));
+            assertEquals("a;b", r.get(1));
+            assertFalse(r.next());
+        }
+    }
+
+    @Test
+    void parallelChunksSplitOnRecordBoundaries() throws Exception {
+        Path f = dir.resolve("big.csv");
+        StringBuilder sb = new StringBuilder();
+        int rows = 200_000;
+        for (int i = 0; i < rows; i++) sb.append(i).append(",\"note\n").append(i).append("\",x\n");
+        Files.writeString(f, sb.toString(), StandardCharsets.UTF_8);
+
+        try (FileChannel ch = FileChannel.open(f)) {
+            long[] points = CsvReader.splitPoints(ch, 8);
+            assertTrue(points.length > 2, "file should be split into several chunks");
+        }
+        List<long[]> parts = CsvReader.readParallel(f, ',', 8, (chunk, r) -> {
+            long count = 0, sum = 0;
+            while (r.next()) {
+                int id = r.getInt(0, -1);
+                assertEquals("note\n" + id, r.get(1));
+                count++; sum += id;
+            }
+            return new long[] { count, sum };
+        });
+        long count = 0, sum = 0;
+        for (long[] p : parts) { count += p[0]; sum += p[1]; }
+        assertEquals(rows, count);
+        assertEquals((long) rows * (rows - 1) / 2, sum);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.aipantry;
+
+import com.example.aipantry.model.Lot;
+import com.example.aipantry.model.PantryItem;
+import com.example.aipantry.services.ExpiryIndex;
+import com.example.aipantry.services.PantryStore;
+import com.example.aipantry.storage.JsonStorage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpiryIndexTests {
+    private static final LocalDate D = LocalDate.of(2030, 1, 10);
+
+    @Test
+    void lotsAreConsumedFirstExpiredFirstOut() {
+        PantryItem milk = new PantryItem("milk", 1, "l", D.plusDays(5))
+                .withLot(new Lot(1, D.plusDays(1)))
+                .withLot(new Lot(0.5, null));
+        assertEquals(2.5, milk.quantity, 1e-9);
+        assertEquals(D.plusDays(1), milk.expiresOn);
+        assertEquals(3, milk.lots().size());
+
+        PantryItem left = milk.consume(1.5);
+        assertEquals(1.0, left.quantity, 1e-9);
+        assertEquals(D.plusDays(5), left.expiresOn);
+        assertEquals(List.of(new Lot(0.5, D.plusDays(5)), new Lot(0.5, null)), left.lots());
+
+        PantryItem empty = left.consume(10);
+        assertEquals(0, empty.quantity);
+        assertNull(empty.expiresOn);
+        assertTrue(empty.lots().isEmpty());
+    }
+
+    @Test
+    void storeAddsLotsAndConsumes() {
+        PantryStore store = new PantryStore();
+        store.addLot(new PantryItem("Milk", 1, "l", D.plusDays(5)));
+        store.addLot(new PantryItem("milk", 1, "L", D.plusDays(2)));
+        assertEquals(1, store.size());
+        assertEquals(2, store.get("milk").lots().size());
+        assertEquals(D.plusDays(2), store.get("milk").expiresOn);
+
+        assertEquals(1.2, store.consume("milk", 1.2), 1e-9);
+        assertEquals(D.plusDays(5), store.get("milk").expiresOn);
+        assertEquals(0.8, store.consume("milk", 5), 1e-9);
+        assertTrue(store.undo());
+        assertEquals(0.8, store.get("milk").quantity, 1e-9);
+    }
+
+    @Test
+    void indexFollowsStoreAndAnswersRangeQueries() {
+        PantryStore store = new PantryStore();
+        ExpiryIndex index = new ExpiryIndex(store.asMap());
+        store.addListener(index);
+        store.put(new PantryItem("eggs", 6, "piece", D.plusDays(10)));
+        store.put(new PantryItem("spinach", 1, "bag", D.plusDays(1)));
+        store.put(new PantryItem("rice", 1, "kg", null));
+        store.put(new PantryItem("yogurt", 2, "piece", D.minusDays(1)));
+
+        assertEquals(List.of("yogurt", "spinach"), index.expiringWithin(D, 2));
+        assertTrue(index.expiresBy("spinach", D.plusDays(1)));
+        assertFalse(index.expiresBy("rice", LocalDate.MAX));
+
+        store.consume("spinach", 1); // used up: no dated lot left
+        store.rename("eggs", new PantryItem("Duck eggs", 6, "piece", D));
+        assertEquals(List.of("yogurt", "duck eggs"), index.expiringWithin(D, 2));
+        store.remove("yogurt");
+        assertEquals(List.of("duck eggs"), index.expiringBy(D));
+        store.undo();
+        assertEquals(List.of("yogurt", "duck eggs"), index.expiringBy(D));
+
+        store.replaceAll(Map.of("tofu", new PantryItem("tofu", 1, "piece", D)));
+        assertEquals(List.of("tofu"), index.expiringBy(D));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void lotsSurviveJsonRoundTrip(@TempDir Path dir) throws Exception {
+        PantryItem milk = new PantryItem("milk", 1, "l", D).withLot(new Lot(2, D.plusDays(4)));
+        File f = dir.resolve("pantry.json").toFile();
+        JsonStorage storage = new JsonStorage();
+        storage.savePantry(Map.of("milk", milk, "rice", new PantryItem("rice", 1, "kg", null)), f);
+        Map<String, PantryItem> back;
+        try (FileInputStream in = new FileInputStream(f)) { back = storage.loadPantry(in); }
+        assertEquals(milk.lots(), back.get("milk").lots());
+        assertEquals(3, back.get("milk").quantity, 1e-9);
+        assertNull(back.get("rice").lots);
+    }
+
+    @Test
+    void handEditedLotsAreSortedAndOverrideTheTotals() throws Exception {
+        String json = "[{\"name\":\"milk\",\"quantity\":9,\"unit\":\"l\",\"expiresOn\":\"2030-02-01\","
+                + "\"lots\":[{\"quantity\":2,\"expiresOn\":\"2030-01-20\"},{\"quantity\":0.5},{\"quantity\":1,\"expiresOn\":\"2030-01-12\"}]}]";
+        PantryItem milk = new JsonStorage().loadPantry(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))).get("milk");
+        assertEquals(List.of(new Lot(1, LocalDate.of(2030, 1, 12)), new Lot(2, LocalDate.of(2030, 1, 20)), new Lot(0.5, null)), milk.lots());
+        assertEquals(3.5, milk.quantity, 1e-9);
+        assertEquals(LocalDate.of(2030, 1, 12), milk.expiresOn);
+        assertEquals(List.of(new Lot(1.5, LocalDate.of(2030, 1, 20)), new Lot(0.5, null)), milk.consume(1.5).lots());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.aipantry;
+
+import com.example.aipantry.model.*;
+import com.example.aipantry.services.FacetIndex;
+import com.example.aipantry.services.Planner;
+import com.example.aipantry.services.RuleEngine;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FacetIndexTests {
+    private static List<Recipe> recipes(int n) {
+        Random rnd = new Random(8);
+        List<Recipe> out = RecipeCatalogTests.randomRecipes(rnd, n);
+        // a rare tag (sparse posting) next to the common ones (bitsets)
+        for (int i = 0; i < n; i += 97) out.get(i).tags.add("holiday");
+        return out;
+    }
+
+    @Test
+    void candidatesMatchLinearFilter() {
+        List<Recipe> recipes = recipes(5000);
+        FacetIndex facets = FacetIndex.of(RecipeCatalog.of(recipes));
+        List<Set<String>> tagSets = List.of(Set.of(), Set.of("quick"), Set.of("quick", "spicy"), Set.of("holiday"),
+                Set.of("holiday", "vegetarian"), Set.of("unknown"));
+        for (Set<String> tags : tagSets) {
+            for (int max : new int[] { -1, 4, 5, 12, 30, 64, 1000 }) {
+                int[] expected = IntStream.range(0, recipes.size())
+                        .filter(r -> recipes.get(r).tags.containsAll(tags) && (max < 0 || recipes.get(r).cookMinutes <= max))
+                        .toArray();
+                assertArrayEquals(expected, facets.candidates(tags, max), tags + " max " + max);
+            }
+        }
+        assertEquals(recipes.stream().filter(r -> r.tags.contains("holiday")).count(), facets.count("holiday"));
+        assertEquals(recipes.stream().filter(r -> r.cookMinutes <= 20).count(), facets.countWithin(20));
+    }
+
+    @Test
+    void strictPlanOnlyScoresCandidates() {
+        List<Recipe> recipes = recipes(3000);
+        RecipeCatalog catalog = RecipeCatalog.of(recipes);
+        FacetIndex facets = FacetIndex.of(catalog);
+        Map<String, PantryItem> pantry = RecipeCatalogTests.samplePantry();
+        Set<String> tags = Set.of("holiday");
+        int[] plan = new Planner().plan(catalog, facets, pantry, 5, tags, 30, true, true);
+        assertEquals(5, plan.length);
+
+        // same as ranking the filtered list with the list planner
+        List<Recipe> filtered = recipes.stream().filter(r -> r.tags.containsAll(tags) && r.cookMinutes <= 30).toList();
+        List<Recipe> expected = new Planner().plan(filtered, pantry, 5, tags, 30);
+        for (int i = 0; i < plan.length; i++) assertSame(expected.get(i), recipes.get(plan[i]));
+
+        // soft mode is unchanged
+        assertArrayEquals(new Planner().plan(catalog, pantry, 5, tags, 30), new Planner().plan(catalog, facets, pantry, 5, tags, 30, false, false));
+        assertEquals(0, new Planner().plan(catalog, facets, pantry, 5, Set.of("unknown"), 30, true, false).length);
+
+        List<Double> seen = new ArrayList<>();
+        new RuleEngine().scoreEach(catalog, catalog.bind(pantry, java.time.LocalDate.now()), facets.candidates(tags, 30), tags, 30, (r, s) -> seen.add(s));
+        assertEquals(filtered.size(), seen.size());
+    }
+}
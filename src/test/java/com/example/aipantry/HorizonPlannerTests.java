@@ -0,0 +1,103 @@
+package com.example.aipantry;
+
+import com.example.aipantry.model.*;
+import com.example.aipantry.services.HorizonPlanner;
+import com.example.aipantry.services.Units;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HorizonPlannerTests {
+    private static final LocalDate START = LocalDate.of(2026, 3, 2);
+    private final Units units = new Units(Map.of("g", Map.of("to_g", 1.0), "ml", Map.of("to_ml", 1.0)));
+
+    private static Recipe recipe(String title, Object... nameAmountUnit) {
+        List<Ingredient> ings = new ArrayList<>();
+        for (int i = 0; i < nameAmountUnit.length; i += 3) ings.add(new Ingredient((String) nameAmountUnit[i], ((Number) nameAmountUnit[i + 1]).doubleValue(), (String) nameAmountUnit[i + 2]));
+        return new Recipe(title, ings, 20, Set.of());
+    }
+
+    private static Map<String, PantryItem> pantry(PantryItem... items) {
+        Map<String, PantryItem> m = new HashMap<>();
+        for (PantryItem p : items) m.put(p.name.toLowerCase(), p);
+        return m;
+    }
+
+    @Test
+    void simulatesFefoConsumptionAndExpiry() {
+        var stock = pantry(
+                PantryItem.ofLots("Spinach", "g", List.of(new Lot(200, START.plusDays(1)), new Lot(300, START.plusDays(4)))),
+                new PantryItem("Rice", 1, "kg", null));
+        List<Recipe> recipes = List.of(recipe("Salad", "spinach", 150, "g"), recipe("Rice bowl", "rice", 100, "g", "egg", 2, null));
+        var ev = new HorizonPlanner.Evaluator(recipes, stock, units, START, 3, 1, 1);
+        assertEquals(200, ev.wastedGrams(), 1e-9, "first lot expires after day 1 with nothing planned");
+        assertEquals(200, ev.cost(), 1e-9);
+
+        ev.assign(2, 0); // salad on day 3: too late for the first lot, eats into the second
+        assertEquals(200, ev.wastedGrams(), 1e-9);
+        ev.assign(2, -1);
+        ev.assign(0, 0); // salad on day 1: 150 g of the first lot, 50 g still expire
+        assertEquals(50, ev.wastedGrams(), 1e-9);
+        ev.assign(1, 1); // rice bowl needs eggs the pantry lacks
+        assertEquals(2 * HorizonPlanner.PIECE_GRAMS, ev.shortGrams(), 1e-9);
+        assertEquals(List.of(List.of(recipes.get(0)), List.of(recipes.get(1)), List.of()), ev.schedule().days);
+    }
+
+    @Test
+    void incrementalCostMatchesAFreshEvaluation() {
+        Random rnd = new Random(3);
+        List<PantryItem> items = new ArrayList<>();
+        for (int k = 0; k < 12; k++) {
+            List<Lot> lots = new ArrayList<>();
+            for (int l = rnd.nextInt(3); l >= 0; l--) lots.add(new Lot(50 + rnd.nextInt(400), rnd.nextInt(5) == 0 ? null : START.plusDays(rnd.nextInt(9) - 1)));
+            items.add(PantryItem.ofLots("item" + k, k % 3 == 0 ? "ml" : "g", lots));
+        }
+        var stock = pantry(items.toArray(new PantryItem[0]));
+        List<Recipe> recipes = new ArrayList<>();
+        for (int r = 0; r < 30; r++) {
+            List<Object> spec = new ArrayList<>();
+            for (int i = 1 + rnd.nextInt(4); i > 0; i--) spec.addAll(List.of("item" + rnd.nextInt(14), 20 + rnd.nextInt(200), "g"));
+            recipes.add(recipe("r" + r, spec.toArray()));
+        }
+        var ev = new HorizonPlanner.Evaluator(recipes, stock, units, START, 7, 2, 1);
+        for (int step = 0; step < 2000; step++) ev.assign(rnd.nextInt(ev.slots()), rnd.nextInt(recipes.size() + 1) - 1);
+        var fresh = new HorizonPlanner.Evaluator(recipes, stock, units, START, 7, 2, 1);
+        int[] slots = ev.assignment();
+        for (int s = 0; s < slots.length; s++) fresh.assign(s, slots[s]);
+        assertEquals(fresh.wastedGrams(), ev.wastedGrams(), 1e-6);
+        assertEquals(fresh.shortGrams(), ev.shortGrams(), 1e-6);
+        assertEquals(ev.schedule().wastedGrams, ev.wastedGrams(), 1e-6);
+    }
+
+    @Test
+    void annealingFindsTheLeastWastefulSchedule() {
+        var stock = pantry(
+                new PantryItem("Fish", 300, "g", START),
+                new PantryItem("Berries", 250, "g", START.plusDays(1)),
+                new PantryItem("Kale", 200, "g", START.plusDays(2)),
+                new PantryItem("Oats", 2000, "g", null));
+        List<Recipe> recipes = List.of(
+                recipe("Porridge", "oats", 100, "g"),
+                recipe("Kale chips", "kale", 200, "g"),
+                recipe("Berry oats", "berries", 250, "g", "oats", 80, "g"),
+                recipe("Fish tacos", "fish", 300, "g"),
+                recipe("Fish stew", "fish", 200, "g", "kale", 100, "g"));
+        var plan = new HorizonPlanner(units).plan(recipes, stock, START, 3, 1, 1, 5000);
+        // brute force over every ordered choice of 3 distinct recipes
+        double best = Double.MAX_VALUE;
+        for (int a = 0; a < 5; a++) for (int b = 0; b < 5; b++) for (int c = 0; c < 5; c++) {
+            if (a == b || b == c || a == c) continue;
+            var ev = new HorizonPlanner.Evaluator(recipes, stock, units, START, 3, 1, 1);
+            ev.assign(0, a); ev.assign(1, b); ev.assign(2, c);
+            best = Math.min(best, ev.cost());
+        }
+        assertEquals(best, plan.wastedGrams + plan.shortGrams, 1e-9);
+        assertEquals(0, plan.wastedGrams, 1e-9);
+        assertEquals("Fish tacos", plan.days.get(0).get(0).title);
+        assertEquals("Berry oats", plan.days.get(1).get(0).title);
+        assertEquals("Kale chips", plan.days.get(2).get(0).title);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.aipantry;
+
+import com.example.aipantry.ui.ImageCache;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ImageCacheTests {
+    @TempDir Path dir;
+
+    @Test
+    void evictsLeastRecentlyUsedCardsByBytes() {
+        ImageCache cache = new ImageCache(3 * 4 * 10 * 10, null); // three 10x10 cards
+        AtomicInteger renders = new AtomicInteger();
+        for (String label : List.of("a", "b", "c")) cache.get(label, 10, 10, () -> card(renders));
+        cache.get("a", 10, 10, () -> card(renders)); // hit: "b" is now the eldest
+        cache.get("d", 10, 10, () -> card(renders));
+        assertEquals(4, renders.get());
+        assertEquals(3, cache.size());
+        assertEquals(3 * 400, cache.sizeBytes());
+
+        cache.get("a", 10, 10, () -> card(renders));
+        cache.get("c", 10, 10, () -> card(renders));
+        assertEquals(4, renders.get());
+        cache.get("b", 10, 10, () -> card(renders));
+        assertEquals(5, renders.get());
+
+        cache.get("huge", 100, 100, () -> card(renders)); // larger than the whole cache: returned, not kept
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    void diskTierServesCardsAfterMemoryIsCleared() {
+        ImageCache cache = new ImageCache(1 << 20, dir);
+        AtomicInteger renders = new AtomicInteger();
+        Image first = cache.get("Soup", 12, 8, () -> card(renders, 12, 8));
+        cache.clear();
+        Image again = cache.get("Soup", 12, 8, () -> card(renders, 12, 8));
+        assertEquals(1, renders.get());
+        assertNotSame(first, again);
+        assertEquals(12, again.getWidth());
+        assertEquals(8, again.getHeight());
+    }
+
+    @Test
+    void concurrentMissesRenderOnce() throws Exception {
+        ImageCache cache = new ImageCache(1 << 20, null);
+        AtomicInteger renders = new AtomicInteger();
+        int threads = 8;
+        CyclicBarrier start = new CyclicBarrier(threads);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Image>> got = new ArrayList<>();
+            for (int t = 0; t < threads; t++) got.add(pool.submit(() -> {
+                start.await();
+                return cache.get("Stew", 10, 10, () -> {
+                    try { Thread.sleep(50); } catch (InterruptedException ex) { Thread.currentThread().interrupt(); }
+                    return card(renders);
+                });
+            }));
+            Image one = got.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<Image> f : got) assertSame(one, f.get(5, TimeUnit.SECONDS));
+            assertEquals(1, renders.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Image card(AtomicInteger renders) { return card(renders, 10, 10); }
+
+    private static Image card(AtomicInteger renders, int w, int h) {
+        renders.incrementAndGet();
+        return new WritableImage(w, h);
+    }
+}
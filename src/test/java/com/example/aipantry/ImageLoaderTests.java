@@ -0,0 +1,96 @@
+package com.example.aipantry;
+
+import com.example.aipantry.ui.ImageCache;
+import com.example.aipantry.ui.ImageLoader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class ImageLoaderTests {
+    @TempDir Path dir;
+
+    @Test
+    void remoteUrlsAreServedFromStandInDirectoryWithoutNetwork() throws Exception {
+        String url = "https://placehold.co/600x400?text=Soup";
+        byte[] png = { (byte) 0x89, 'P', 'N', 'G' };
+        Files.write(dir.resolve(ImageLoader.standInName(url)), png);
+
+        ImageLoader loader = new ImageLoader(new ImageCache(1 << 20, null), p -> null, dir, true);
+        try {
+            assertArrayEquals(png, loader.fetchBytes(url));
+            assertThrows(IOException.class, () -> loader.fetchBytes("https://example.invalid/missing.jpg"));
+        } finally {
+            loader.shutdown();
+        }
+    }
+
+    @Test
+    void standInNamesAreStablePerUrl() {
+        assertEquals(ImageLoader.standInName("https://a/b.jpg"), ImageLoader.standInName("https://a/b.jpg"));
+        assertNotEquals(ImageLoader.standInName("https://a/b.jpg"), ImageLoader.standInName("https://a/c.jpg"));
+    }
+
+    /** Card cache whose renders block until released, counting how many loads reach it. */
+    private static final class GatedCache extends ImageCache {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger loads = new AtomicInteger();
+
+        GatedCache() { super(1 << 20, null); }
+
+        @Override public Image get(String label, int width, int height, Supplier<Image> render) {
+            loads.incrementAndGet();
+            try { release.await(5, TimeUnit.SECONDS); } catch (InterruptedException ex) { Thread.currentThread().interrupt(); }
+            return new WritableImage(2, 2);
+        }
+    }
+
+    @Test
+    void concurrentLoadsOfOneReferenceResolveOnce() throws Exception {
+        GatedCache cards = new GatedCache();
+        ImageLoader loader = new ImageLoader(cards, p -> null, null, true);
+        int threads = 8;
+        CyclicBarrier start = new CyclicBarrier(threads);
+        ExecutorService callers = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<CompletableFuture<Image>>> calls = new ArrayList<>();
+            for (int t = 0; t < threads; t++) calls.add(callers.submit(() -> { start.await(); return loader.load("text:Soup"); }));
+            List<CompletableFuture<Image>> loads = new ArrayList<>();
+            for (var c : calls) loads.add(c.get(5, TimeUnit.SECONDS));
+            cards.release.countDown();
+            Image one = loads.get(0).get(5, TimeUnit.SECONDS);
+            for (var f : loads) assertSame(one, f.get(5, TimeUnit.SECONDS));
+            assertEquals(1, cards.loads.get());
+            assertSame(one, loader.getIfReady("text:Soup"));
+        } finally {
+            callers.shutdownNow();
+            loader.shutdown();
+        }
+    }
+
+    @Test
+    void prefetchDropsWorkBeyondThePendingLimit() throws Exception {
+        GatedCache cards = new GatedCache();
+        ImageLoader loader = new ImageLoader(cards, p -> null, null, true);
+        try {
+            for (int i = 0; i < 100; i++) loader.prefetch("text:card " + i);
+            cards.release.countDown();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            for (int i = 0; i < 32; i++) while (loader.getIfReady("text:card " + i) == null && System.nanoTime() < deadline) Thread.sleep(10);
+            for (int i = 0; i < 32; i++) assertNotNull(loader.getIfReady("text:card " + i), "card " + i);
+            for (int i = 32; i < 100; i++) assertNull(loader.getIfReady("text:card " + i), "card " + i);
+            assertEquals(32, cards.loads.get());
+        } finally {
+            loader.shutdown();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.aipantry;
+
+import com.example.aipantry.model.*;
+import com.example.aipantry.services.Planner;
+import com.example.aipantry.services.RuleEngine;
+import com.example.aipantry.storage.JsonStorage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedRecipeCatalogTests {
+    @Test
+    void mappedCatalogScoresLikeHeapCatalog(@TempDir Path dir) throws Exception {
+        List<Recipe> recipes = RecipeCatalogTests.randomRecipes(new Random(5), 3000);
+        // enough distinct tags to need several bitset words
+        for (int i = 0; i < recipes.size(); i += 7) recipes.get(i).tags.add("tag" + (i % 130));
+        Path file = dir.resolve("catalog.bin");
+        try (MappedRecipeCatalog.Writer w = new MappedRecipeCatalog.Writer(file)) {
+            for (Recipe r : recipes) w.add(r);
+            w.finish();
+        }
+        MappedRecipeCatalog mapped = MappedRecipeCatalog.open(file);
+        RecipeCatalog heap = RecipeCatalog.of(recipes);
+        assertEquals(recipes.size(), mapped.size());
+
+        Map<String, PantryItem> pantry = RecipeCatalogTests.samplePantry();
+        RuleEngine engine = new RuleEngine();
+        for (Set<String> req : List.of(Set.<String>of(), Set.of("quick"), Set.of("tag129", "spicy"), Set.of("nope"))) {
+            double[] a = engine.scoreAll(heap, heap.bind(pantry, LocalDate.now()), req, 30);
+            double[] b = engine.scoreAll(mapped, mapped.bind(pantry, LocalDate.now()), req, 30);
+            assertArrayEquals(a, b, 1e-12, "tags " + req);
+        }
+        Planner planner = new Planner();
+        assertArrayEquals(planner.plan(heap, pantry, 9, Set.of("quick"), 20), planner.plan(mapped, pantry, 9, Set.of("quick"), 20));
+
+        RecipeView v = new RecipeView(mapped).at(42);
+        Recipe expected = recipes.get(42);
+        assertEquals(expected.title, v.title());
+        assertEquals(expected.ingredients.size(), v.ingredientCount());
+        if (v.ingredientCount() > 0) assertEquals(expected.ingredients.get(0).name.toLowerCase(), v.ingredientName(0));
+        assertEquals(expected.tags, v.toRecipe().tags);
+    }
+
+    @Test
+    void writesFromJsonAndLeavesNoSpillFiles(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("sample.bin");
+        MappedRecipeCatalog mapped;
+        try (InputStream in = getClass().getResourceAsStream("/sample-data/recipes.json")) {
+            mapped = new JsonStorage().writeMappedCatalog(in, file);
+        }
+        List<Recipe> list;
+        try (InputStream in = getClass().getResourceAsStream("/sample-data/recipes.json")) { list = new JsonStorage().loadRecipes(in); }
+        assertEquals(list.size(), mapped.size());
+        assertEquals(list.get(0).title, mapped.title(0));
+        try (var files = Files.list(dir)) { assertEquals(List.of(file), files.toList()); }
+    }
+
+    @Test
+    void failedFinishLeavesNothingBehind(@TempDir Path dir) throws Exception {
+        Path target = dir.resolve("busy.bin");
+        Files.createDirectory(target);
+        Files.write(target.resolve("keep"), new byte[1]); // a non-empty directory cannot be replaced
+        MappedRecipeCatalog.Writer w = new MappedRecipeCatalog.Writer(target);
+        w.add(new Recipe("Toast", List.of(new Ingredient("bread", 2, "slice")), 5, Set.of("quick")));
+        assertThrows(java.io.IOException.class, w::finish);
+        try (var files = Files.list(dir)) { assertEquals(List.of(target), files.toList()); }
+    }
+
+    @Test
+    void rejectsForeignFiles(@TempDir Path dir) throws Exception {
+        Path f = dir.resolve("junk.bin");
+        Files.write(f, new byte[256]);
+        assertThrows(java.io.IOException.class, () -> MappedRecipeCatalog.open(f));
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.aipantry;
+
+import com.example.aipantry.model.PantryItem;
+import com.example.aipantry.model.PersistentMap;
+import com.example.aipantry.services.PantryStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PantryStoreTests {
+    @Test
+    void putRemoveAndRenameFireOneChangeEach() {
+        PantryStore store = new PantryStore();
+        List<PantryStore.Change> seen = new ArrayList<>();
+        store.addListener(seen::add);
+
+        store.put(new PantryItem("Rice", 2, "cup", null));
+        store.put(new PantryItem("rice", 3, "cup", null));
+        store.rename("rice", new PantryItem("Basmati", 3, "cup", null));
+        store.remove("BASMATI");
+        store.remove("nothing");
+
+        assertEquals(List.of(PantryStore.Kind.ADDED, PantryStore.Kind.UPDATED, PantryStore.Kind.UPDATED, PantryStore.Kind.REMOVED),
+                seen.stream().map(c -> c.kind).toList());
+        assertEquals("rice", seen.get(2).previousKey());
+        assertEquals("basmati", seen.get(2).key);
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void renameOntoExistingNameReplacesIt() {
+        PantryStore store = new PantryStore();
+        store.put(new PantryItem("egg", 6, "piece", null));
+        store.put(new PantryItem("eggs", 2, "piece", null));
+        List<PantryStore.Change> seen = new ArrayList<>();
+        store.addListener(seen::add);
+
+        store.rename("eggs", new PantryItem("Egg", 2, "piece", null));
+
+        assertEquals(1, store.size());
+        assertEquals(2, store.get("egg").quantity);
+        assertEquals(PantryStore.Kind.REMOVED, seen.get(0).kind);
+        assertEquals(PantryStore.Kind.UPDATED, seen.get(1).kind);
+    }
+
+    @Test
+    void viewIsLiveAndReadOnly() {
+        PantryStore store = new PantryStore();
+        Map<String, PantryItem> view = store.asMap();
+        store.replaceAll(Map.of("x", new PantryItem("Flour", 500, "g", null)));
+        assertTrue(view.containsKey("flour"));
+        assertThrows(UnsupportedOperationException.class, () -> view.remove("flour"));
+    }
+
+    @Test
+    void namelessItemsAreRejectedWithoutAnEdit() {
+        PantryStore store = new PantryStore();
+        store.put(new PantryItem("rice", 1, "kg", null));
+        long v = store.version();
+        assertThrows(IllegalArgumentException.class, () -> store.put(new PantryItem(null, 1, "g", null)));
+        assertEquals(v, store.version());
+        assertEquals(1, store.size());
+        assertNull(store.get(null));
+        assertThrows(NullPointerException.class, () -> PersistentMap.<String, Integer>empty().plus(null, 1));
+    }
+
+    @Test
+    void undoAndRedoWalkEveryVersion() {
+        PantryStore store = new PantryStore();
+        store.put(new PantryItem("rice", 2, "cup", null));
+        store.put(new PantryItem("rice", 1, "cup", null));
+        store.rename("rice", new PantryItem("Basmati", 1, "cup", null));
+        store.remove("basmati");
+        var afterAll = store.snapshot().items;
+
+        List<PantryStore.Change> seen = new ArrayList<>();
+        store.addListener(seen::add);
+        assertTrue(store.undo());
+        assertEquals(1, store.get("basmati").quantity);
+        assertTrue(store.undo());
+        assertNull(store.get("basmati"));
+        assertEquals(PantryStore.Kind.UPDATED, seen.get(1).kind); // undone rename keeps its row
+        assertEquals("basmati", seen.get(1).previousKey());
+        assertTrue(store.undo());
+        assertEquals(2, store.get("rice").quantity);
+        assertTrue(store.undo());
+        assertEquals(0, store.size());
+        assertFalse(store.undo());
+
+        while (store.redo()) { }
+        assertSame(afterAll, store.snapshot().items);
+        store.put(new PantryItem("salt", 1, "g", null));
+        assertFalse(store.canRedo());
+    }
+
+    @Test
+    void snapshotIsUnaffectedByLaterEdits() {
+        PantryStore store = new PantryStore();
+        store.put(new PantryItem("egg", 6, "piece", null));
+        var snap = store.snapshot();
+        store.put(new PantryItem("egg", 2, "piece", null));
+        store.remove("egg");
+        assertEquals(6, snap.get("egg").quantity);
+        assertEquals(1, snap.size());
+    }
+
+    @Test
+    void batchPublishesOneVersionAndOneUndoStep() {
+        PantryStore store = new PantryStore();
+        long v0 = store.version();
+        store.batch(() -> {
+            store.put(new PantryItem("flour", 500, "g", null));
+            store.put(new PantryItem("sugar", 200, "g", null));
+            assertEquals(v0, store.version()); // not visible to readers yet
+        });
+        assertEquals(v0 + 1, store.version());
+        assertEquals(2, store.snapshot().size());
+        store.undo();
+        assertEquals(0, store.size());
+        assertEquals(v0 + 2, store.version());
+    }
+
+    @Test
+    void readersSeeWholeBatchesWhileWriting() throws Exception {
+        PantryStore store = new PantryStore();
+        java.util.concurrent.atomic.AtomicBoolean done = new java.util.concurrent.atomic.AtomicBoolean();
+        java.util.concurrent.atomic.AtomicReference<String> failure = new java.util.concurrent.atomic.AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                PantryStore.Snapshot s = store.snapshot();
+                int n = 0;
+                for (PantryItem p : s.asMap().values()) n++;
+                // items are always added and removed in pairs
+                if (n % 2 != 0 || n != s.size()) failure.set("torn snapshot v" + s.version + ": " + n);
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 5000; i++) {
+            int k = i;
+            store.batch(() -> {
+                store.put(new PantryItem("a" + k, k, "g", null));
+                store.put(new PantryItem("b" + k, k, "g", null));
+            });
+            if (k >= 10) store.batch(() -> { store.remove("a" + (k - 10)); store.remove("b" + (k - 10)); });
+        }
+        done.set(true);
+        reader.join();
+        assertNull(failure.get());
+        assertEquals(20, store.snapshot().size());
+    }
+}
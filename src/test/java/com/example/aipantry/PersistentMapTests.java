@@ -0,0 +1,66 @@
+package com.example.aipantry;
+
+import com.example.aipantry.model.PersistentMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistentMapTests {
+    /** Key with a chosen hash so collisions can be forced. */
+    record K(String s, int h) {
+        @Override public int hashCode() { return h; }
+    }
+
+    @Test
+    void randomEditsMatchHashMapAndOldVersionsStayIntact() {
+        Random rnd = new Random(7);
+        Map<Object, Integer> expected = new HashMap<>();
+        PersistentMap<Object, Integer> m = PersistentMap.empty();
+        List<PersistentMap<Object, Integer>> versions = new ArrayList<>();
+        List<Map<Object, Integer>> copies = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            // small hash range mixes normal keys with full collisions
+            Object key = rnd.nextBoolean() ? "k" + rnd.nextInt(3000) : new K("c" + rnd.nextInt(200), rnd.nextInt(50));
+            if (rnd.nextInt(3) == 0) { expected.remove(key); m = m.minus(key); }
+            else { int v = rnd.nextInt(); expected.put(key, v); m = m.plus(key, v); }
+            if (i % 2000 == 0) { versions.add(m); copies.add(new HashMap<>(expected)); }
+        }
+        assertEquals(expected, m.asMap());
+        for (int i = 0; i < versions.size(); i++) assertEquals(copies.get(i), versions.get(i).asMap());
+    }
+
+    @Test
+    void diffReportsOnlyTheEdits() {
+        PersistentMap<String, String> a = PersistentMap.empty();
+        for (int i = 0; i < 1000; i++) a = a.plus("item" + i, "v" + i);
+        PersistentMap<String, String> b = a.minus("item1").plus("item2", "changed").plus("new", "x");
+
+        List<String> seen = new ArrayList<>();
+        a.diff(b, new PersistentMap.Differ<>() {
+            @Override public void added(String k, String v) { seen.add("+" + k); }
+            @Override public void removed(String k, String v) { seen.add("-" + k); }
+            @Override public void changed(String k, String o, String n) { seen.add("~" + k + ":" + o + ">" + n); }
+        });
+        assertEquals(Set.of("-item1", "~item2:v2>changed", "+new"), new HashSet<>(seen));
+        assertEquals(3, seen.size());
+    }
+
+    @Test
+    void collidingKeysDiffAndRemoveCleanly() {
+        K x = new K("x", 42), y = new K("y", 42), z = new K("z", 42);
+        PersistentMap<K, Integer> a = PersistentMap.<K, Integer>empty().plus(x, 1).plus(y, 2);
+        PersistentMap<K, Integer> b = a.plus(z, 3).minus(x);
+        assertEquals(Map.of(y, 2, z, 3), b.asMap());
+        List<String> seen = new ArrayList<>();
+        a.diff(b, new PersistentMap.Differ<>() {
+            @Override public void added(K k, Integer v) { seen.add("+" + k.s()); }
+            @Override public void removed(K k, Integer v) { seen.add("-" + k.s()); }
+            @Override public void changed(K k, Integer o, Integer n) { seen.add("~" + k.s()); }
+        });
+        assertEquals(Set.of("+z", "-x"), new HashSet<>(seen));
+        assertEquals(0, b.minus(y).minus(z).size());
+        assertSame(a, a.plus(x, a.get(x)));
+    }
+}
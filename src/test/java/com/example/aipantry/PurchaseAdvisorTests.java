@@ -0,0 +1,128 @@
+package com.example.aipantry;
+
+import com.example.aipantry.model.*;
+import com.example.aipantry.services.CookableIndex;
+import com.example.aipantry.services.PurchaseAdvisor;
+import com.example.aipantry.services.RuleEngine;
+import com.example.aipantry.services.SubstitutionGraph;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PurchaseAdvisorTests {
+    private static List<Recipe> recipes() {
+        Random rnd = new Random(17);
+        String[] names = { "egg", "rice", "milk", "flour", "basil", "tofu", "leek", "lime", "feta", "corn", "kale", "oats" };
+        List<Recipe> out = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            List<Ingredient> ings = new ArrayList<>();
+            for (int k = 1 + rnd.nextInt(5); k > 0; k--) ings.add(new Ingredient(names[rnd.nextInt(names.length)], 1 + rnd.nextInt(200), "g"));
+            out.add(new Recipe("r" + i, ings, 5 + rnd.nextInt(40), rnd.nextBoolean() ? Set.of("quick") : Set.of()));
+        }
+        return out;
+    }
+
+    private static Map<String, PantryItem> pantry() {
+        Map<String, PantryItem> p = new HashMap<>();
+        for (String n : List.of("egg", "rice", "milk", "flour")) p.put(n, new PantryItem(n, 150, "g", null));
+        return p;
+    }
+
+    /** Stock as if the ingredients had been bought in plenty. */
+    private static RecipeColumns.Stock buy(RecipeCatalog c, RecipeColumns.Stock base, Collection<String> names) {
+        RecipeColumns.Stock s = new RecipeColumns.Stock(c.distinctIngredients());
+        System.arraycopy(base.quantity, 0, s.quantity, 0, s.quantity.length);
+        System.arraycopy(base.unit, 0, s.unit, 0, s.unit.length);
+        for (String n : names) { int id = c.ingredientId(n); s.quantity[id] = Double.MAX_VALUE; s.unit[id] = RecipeColumns.NO_UNIT; }
+        return s;
+    }
+
+    private static int fullyCovered(CookableIndex index, RecipeColumns.Stock stock) { return index.cookable(stock, true).length; }
+
+    @Test
+    void greedyUnlockCountsMatchBruteForce() {
+        RecipeCatalog catalog = RecipeCatalog.of(recipes());
+        CookableIndex index = CookableIndex.of(catalog);
+        RecipeColumns.Stock stock = catalog.bind(pantry(), LocalDate.now());
+        List<PurchaseAdvisor.Suggestion> picks = new PurchaseAdvisor(index).unlockMost(stock, 4);
+        assertEquals(4, picks.size());
+
+        List<String> bought = new ArrayList<>();
+        for (PurchaseAdvisor.Suggestion s : picks) {
+            int before = fullyCovered(index, buy(catalog, stock, bought));
+            int bestGain = -1;
+            for (int id = 0; id < catalog.distinctIngredients(); id++) {
+                String name = catalog.ingredientName(id);
+                if (bought.contains(name)) continue;
+                List<String> trial = new ArrayList<>(bought);
+                trial.add(name);
+                bestGain = Math.max(bestGain, fullyCovered(index, buy(catalog, stock, trial)) - before);
+            }
+            bought.add(s.ingredient);
+            assertEquals(bestGain, s.unlocked, "step " + bought.size());
+            assertEquals(before + s.unlocked, fullyCovered(index, buy(catalog, stock, bought)));
+        }
+    }
+
+    @Test
+    void planGainsMatchRescoring() {
+        RecipeCatalog catalog = RecipeCatalog.of(recipes());
+        CookableIndex index = CookableIndex.of(catalog);
+        RecipeColumns.Stock stock = catalog.bind(pantry(), LocalDate.now());
+        Set<String> tags = Set.of("quick");
+        int meals = 40; // more than the recipes already at 100
+        List<PurchaseAdvisor.Suggestion> ranked = new PurchaseAdvisor(index).raisePlanScore(stock, tags, 20, meals, 100);
+        assertFalse(ranked.isEmpty());
+        double base = topSum(new RuleEngine().scoreAll(catalog, stock, tags, 20), meals);
+        for (PurchaseAdvisor.Suggestion s : ranked) {
+            double after = topSum(new RuleEngine().scoreAll(catalog, buy(catalog, stock, List.of(s.ingredient)), tags, 20), meals);
+            assertEquals(after - base, s.planGain, 1e-9, s.ingredient);
+        }
+        for (int i = 1; i < ranked.size(); i++) assertTrue(ranked.get(i - 1).planGain >= ranked.get(i).planGain);
+    }
+
+    @Test
+    void substitutesCountTowardGainsAndUnlocks() {
+        RecipeCatalog catalog = RecipeCatalog.of(recipes());
+        CookableIndex index = CookableIndex.of(catalog);
+        // oats stand in for flour at a 30% penalty, feta for basil at none
+        RuleEngine engine = new RuleEngine(new SubstitutionGraph(Map.of(
+                "flour", List.of(new Substitution("oats", 1, 0.3)),
+                "basil", List.of(new Substitution("feta", 1, 0)))));
+        Map<String, PantryItem> pantry = pantry();
+        pantry.remove("flour");
+        pantry.put("oats", new PantryItem("oats", 1000, "g", null));
+        pantry.put("feta", new PantryItem("feta", 1000, "g", null));
+        RecipeColumns.Stock stock = engine.bind(catalog, pantry, LocalDate.now());
+        PurchaseAdvisor advisor = new PurchaseAdvisor(index, engine);
+
+        assertTrue(advisor.unlockMost(stock, 12).stream().noneMatch(s -> s.ingredient.equals("basil")));
+        Set<String> tags = Set.of("quick");
+        int meals = 40;
+        List<PurchaseAdvisor.Suggestion> ranked = advisor.raisePlanScore(stock, tags, 20, meals, 100);
+        assertTrue(ranked.stream().noneMatch(s -> s.ingredient.equals("basil")));
+        int flour = catalog.ingredientId("flour");
+        for (int r = 0; r < catalog.size(); r++) for (int k = catalog.start(r); k < catalog.end(r); k++) {
+            if (catalog.ingredientId(k) == flour && catalog.amount(k) <= 1000) // oats cover it, at 70% credit
+                assertEquals(0.3 * RuleEngine.COVERAGE_POINTS / (catalog.end(r) - catalog.start(r)), RuleEngine.rowGain(catalog, r, k, stock), 1e-9);
+        }
+        double base = topSum(engine.scoreAll(catalog, stock, tags, 20), meals);
+        for (PurchaseAdvisor.Suggestion s : ranked) {
+            RecipeColumns.Stock bought = buy(catalog, stock, List.of(s.ingredient));
+            bought.substitutes = stock.substitutes;
+            double after = topSum(engine.scoreAll(catalog, bought, tags, 20), meals);
+            assertEquals(after - base, s.planGain, 1e-9, s.ingredient);
+        }
+    }
+
+    private static double topSum(double[] scores, int k) {
+        double[] s = scores.clone();
+        Arrays.sort(s);
+        double sum = 0;
+        for (int i = 0; i < k; i++) sum += s[s.length - 1 - i];
+        return sum;
+    }
+}
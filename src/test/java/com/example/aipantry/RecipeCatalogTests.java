@@ -0,0 +1,83 @@
+package com.example.aipantry;
+
+import com.example.aipantry.model.*;
+import com.example.aipantry.services.Planner;
+import com.example.aipantry.services.RuleEngine;
+import com.example.aipantry.storage.JsonStorage;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecipeCatalogTests {
+    static List<Recipe> randomRecipes(Random rnd, int n) {
+        String[] names = {"Egg", "spinach", "rice", "Chicken Breast", "tortilla", "garlic", "milk", "flour"};
+        String[] units = {"g", "G", "piece", "ml", null};
+        String[] tags = {"quick", "vegetarian", "spicy"};
+        List<Recipe> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            List<Ingredient> ings = new ArrayList<>();
+            for (int k = rnd.nextInt(6); k > 0; k--) ings.add(new Ingredient(names[rnd.nextInt(names.length)], 1 + rnd.nextInt(300), units[rnd.nextInt(units.length)]));
+            Set<String> t = new HashSet<>();
+            for (String tag : tags) if (rnd.nextBoolean()) t.add(tag);
+            out.add(new Recipe("r" + i, ings, 5 + rnd.nextInt(60), t));
+        }
+        return out;
+    }
+
+    static Map<String, PantryItem> samplePantry() {
+        Map<String, PantryItem> pantry = new LinkedHashMap<>();
+        for (PantryItem p : List.of(
+                new PantryItem("egg", 6, "piece", LocalDate.now().plusDays(1)),
+                new PantryItem("Spinach", 200, "g", LocalDate.now().plusDays(10)),
+                new PantryItem("rice", 500, null, null),
+                new PantryItem("chicken breast", 150, "oz", LocalDate.now()),
+                new PantryItem("milk", 250, "ML", null))) pantry.put(p.name.toLowerCase(), p);
+        return pantry;
+    }
+
+    @Test
+    void columnarScoresMatchRuleEngine() {
+        List<Recipe> recipes = randomRecipes(new Random(3), 2000);
+        Map<String, PantryItem> pantry = samplePantry();
+        RecipeCatalog catalog = RecipeCatalog.of(recipes);
+        RuleEngine engine = new RuleEngine();
+        for (Set<String> req : List.of(Set.<String>of(), Set.of("quick"), Set.of("quick", "spicy"), Set.of("unknown"))) {
+            double[] fast = engine.scoreAll(catalog, catalog.bind(pantry, LocalDate.now()), req, 30);
+            for (int i = 0; i < recipes.size(); i++) {
+                assertEquals(engine.score(recipes.get(i), pantry, req, 30), fast[i], 1e-9, "recipe " + i + " tags " + req);
+            }
+        }
+    }
+
+    @Test
+    void catalogPlanPicksSameRecipesAsListPlan() {
+        List<Recipe> recipes = randomRecipes(new Random(11), 500);
+        Map<String, PantryItem> pantry = samplePantry();
+        Planner planner = new Planner();
+        List<Recipe> expected = planner.plan(recipes, pantry, 7, Set.of("vegetarian"), 25);
+        int[] got = planner.plan(RecipeCatalog.of(recipes), pantry, 7, Set.of("vegetarian"), 25);
+        List<Recipe> picked = new ArrayList<>();
+        for (int i : got) picked.add(recipes.get(i));
+        assertEquals(expected, picked);
+    }
+
+    @Test
+    void loadsCatalogFromJsonStream() throws Exception {
+        JsonStorage storage = new JsonStorage();
+        List<Recipe> list;
+        RecipeCatalog catalog;
+        try (InputStream in = getClass().getResourceAsStream("/sample-data/recipes.json")) { list = storage.loadRecipes(in); }
+        try (InputStream in = getClass().getResourceAsStream("/sample-data/recipes.json")) { catalog = storage.loadCatalog(in); }
+        assertEquals(list.size(), catalog.size());
+        for (int i = 0; i < list.size(); i++) {
+            Recipe r = catalog.recipe(i);
+            assertEquals(list.get(i).title, r.title);
+            assertEquals(list.get(i).ingredients.size(), r.ingredients.size());
+            assertEquals(list.get(i).tags, r.tags);
+        }
+    }
+}
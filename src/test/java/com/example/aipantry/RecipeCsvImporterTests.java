@@ -0,0 +1,84 @@
+package com.example.aipantry;
+
+import com.example.aipantry.model.*;
+import com.example.aipantry.services.*;
+import com.example.aipantry.storage.RecipeCsvImporter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+public class RecipeCsvImporterTests {
+    @TempDir Path dir;
+
+    private final Units units = new Units(Map.of("g", Map.of("to_g", 1.0), "piece", Map.of("to_piece", 1.0)));
+    private final AliasResolver aliases = new AliasResolver(Map.of("bell pepper", List.of("capsicum")));
+
+    @Test
+    void joinsRecipesWithIngredientsAndNormalizes() throws Exception {
+        Path r = dir.resolve("recipes.csv");
+        Path i = dir.resolve("ingredients.csv");
+        Files.writeString(r, "id,title,cook_minutes,tags\n1,\"Pepper Stir-fry, quick\",15,quick;stir-fry\n2,Plain Rice,20,\n3,Empty,5,\n");
+        Files.writeString(i, "recipe_id,name,amount,unit\n1,Capsicum,2,pieces\n2,rice,150,grams\n1,rice,75,gram\n9,orphan,1,g\n");
+
+        List<Recipe> out = new RecipeCsvImporter(units, aliases).load(r, i);
+        assertEquals(3, out.size());
+        Recipe stir = out.get(0);
+        assertEquals("Pepper Stir-fry, quick", stir.title);
+        assertEquals(15, stir.cookMinutes);
+        assertEquals(Set.of("quick", "stir-fry"), stir.tags);
+        assertEquals(2, stir.ingredients.size());
+        assertTrue(stir.ingredients.stream().anyMatch(g -> g.name.equals("bell pepper") && g.unit.equals("piece") && g.amount == 2));
+        assertTrue(stir.ingredients.stream().anyMatch(g -> g.name.equals("rice") && g.unit.equals("g")));
+        assertTrue(out.get(2).ingredients.isEmpty());
+    }
+
+    @Test
+    void readsTsvAndLargeIngredientFiles() throws Exception {
+        Path r = dir.resolve("recipes.tsv");
+        Path i = dir.resolve("ingredients.tsv");
+        int recipes = 20_000, perRecipe = 10;
+        StringBuilder rs = new StringBuilder("id\ttitle\tcook_minutes\ttags\n");
+        StringBuilder is = new StringBuilder("recipe_id\tname\tamount\tunit\n");
+        for (int k = 0; k < recipes; k++) {
+            rs.append(k).append("\tRecipe ").append(k).append('\t').append(k % 60).append("\tquick\n");
+            for (int j = 0; j < perRecipe; j++) is.append(k).append("\tingredient ").append(j).append("\t1.5\tg\n");
+        }
+        Files.writeString(r, rs);
+        Files.writeString(i, is);
+
+        List<Recipe> out = new RecipeCsvImporter(units, aliases).load(r, i);
+        assertEquals(recipes, out.size());
+        assertTrue(out.stream().allMatch(x -> x.ingredients.size() == perRecipe));
+        assertEquals("Recipe 42", out.get(42).title);
+    }
+
+    @Test
+    void keepsIngredientOrderAcrossChunksAndStopsOnFailure() throws Exception {
+        Path r = dir.resolve("recipes.csv");
+        Path i = dir.resolve("ingredients.csv");
+        Files.writeString(r, "id,title\n0,Long\n1,Filler\n");
+        StringBuilder is = new StringBuilder("recipe_id,name,amount,unit\n");
+        int steps = 0;
+        for (int k = 0; k < 300_000; k++) {
+            if (k % 1000 == 0) is.append("0,step ").append(steps++).append(",1,g\n"); // spread over every chunk
+            else is.append("1,filler ingredient,1,g\n");
+        }
+        Files.writeString(i, is);
+
+        Recipe first = new RecipeCsvImporter(units, aliases, 4).load(r, i).get(0);
+        assertEquals(steps, first.ingredients.size());
+        for (int k = 0; k < steps; k++) assertEquals("step " + k, first.ingredients.get(k).name);
+
+        AliasResolver failing = new AliasResolver(Map.of()) {
+            @Override public String canonical(String name) { throw new IllegalStateException("bad alias"); }
+        };
+        assertThrows(IllegalStateException.class, () -> new RecipeCsvImporter(units, failing, 4).load(r, i));
+        // no chunk is left parked on the queue: the common pool is not involved and import threads wind down
+        assertTrue(ForkJoinPool.commonPool().awaitQuiescence(5, TimeUnit.SECONDS));
+    }
+}
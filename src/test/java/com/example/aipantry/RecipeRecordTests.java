@@ -0,0 +1,77 @@
+package com.example.aipantry;
+
+import com.example.aipantry.model.*;
+import com.example.aipantry.storage.JsonStorage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecipeRecordTests {
+    @Test
+    void jacksonMapsRecordsAndInternsSharedStrings() throws Exception {
+        String json = "[{\"title\":\"A\",\"cookMinutes\":10,\"tags\":[\"quick\",\"vegetarian\"],"
+                + "\"ingredients\":[{\"name\":\"spinach\",\"amount\":100,\"unit\":\"g\"}]},"
+                + "{\"title\":\"B\",\"cookMinutes\":20,\"tags\":[\"vegetarian\",\"quick\"],"
+                + "\"ingredients\":[{\"name\":\"spinach\",\"amount\":50,\"unit\":\"g\"},{\"name\":\"egg\",\"amount\":2,\"unit\":null}]}]";
+        List<RecipeRecord> rs = new JsonStorage().loadRecipeRecords(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        RecipeRecord a = rs.get(0), b = rs.get(1);
+        assertEquals(2, b.ingredientCount());
+        assertSame(a.name(0), b.name(0));
+        assertSame(a.unit(0), b.unit(0));
+        assertNull(b.unit(1));
+        assertSame(a.tags(), b.tags()); // same tags in any order share one set
+        assertTrue(a.tags().containsAll(List.of("quick")));
+        assertFalse(a.tags().contains("vegan"));
+
+        Recipe pojo = b.toRecipe();
+        assertEquals("egg", pojo.ingredients.get(1).name);
+        assertEquals(Set.of("quick", "vegetarian"), pojo.tags);
+    }
+
+    @Test
+    void recordsRoundTripThroughJson(@TempDir Path dir) throws Exception {
+        JsonStorage storage = new JsonStorage();
+        List<RecipeRecord> sample;
+        try (InputStream in = getClass().getResourceAsStream("/sample-data/recipes.json")) {
+            sample = storage.loadRecipeRecords(in);
+        }
+        File f = dir.resolve("out.json").toFile();
+        storage.saveRecipeRecords(sample, f);
+        List<Recipe> back;
+        try (InputStream in = new FileInputStream(f)) { back = storage.loadRecipes(in); }
+        assertEquals(sample.size(), back.size());
+        for (int i = 0; i < back.size(); i++) {
+            assertEquals(sample.get(i).title(), back.get(i).title);
+            assertEquals(sample.get(i).ingredientCount(), back.get(i).ingredients.size());
+            assertEquals(sample.get(i).tags().toSet(), back.get(i).tags);
+        }
+    }
+
+    @Test
+    void tagSetSubsetSpansMultipleWords() {
+        TagDictionary dict = new TagDictionary();
+        List<String> many = new ArrayList<>();
+        for (int i = 0; i < 100; i++) many.add("t" + i);
+        TagSet all = dict.of(many);
+        TagSet some = dict.of(List.of("t3", "t99"));
+        assertTrue(all.containsAll(some));
+        assertFalse(some.containsAll(all));
+        assertEquals(2, some.size());
+        assertSame(some, dict.of(List.of("t99", "t3")));
+    }
+
+    @Test
+    void pantryRecordInternsNameAndUnit() {
+        PantryRecord a = new PantryRecord(new String("rice"), 1, new String("cup"), null);
+        PantryRecord b = PantryRecord.from(new PantryItem(new String("rice"), 2, new String("cup"), null));
+        assertSame(a.name(), b.name());
+        assertSame(a.unit(), b.unit());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.aipantry;
+
+import com.example.aipantry.model.PantryItem;
+import com.example.aipantry.services.SearchIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchIndexTests {
+    private static Set<String> names(List<PantryItem> items) {
+        Set<String> out = new HashSet<>();
+        for (PantryItem p : items) out.add(p.name);
+        return out;
+    }
+
+    @Test
+    void prefixWordsAreAndedAcrossTokens() {
+        SearchIndex<PantryItem> idx = new SearchIndex<>(p -> p.name);
+        idx.addAll(List.of(
+                new PantryItem("Tomato Paste", 1, "can", null),
+                new PantryItem("Cherry tomatoes", 200, "g", null),
+                new PantryItem("Tortilla", 8, "piece", null),
+                new PantryItem("Soy sauce", 100, "ml", null)));
+
+        assertEquals(Set.of("Tomato Paste", "Cherry tomatoes", "Tortilla"), names(idx.search("to")));
+        assertEquals(Set.of("Tomato Paste", "Cherry tomatoes"), names(idx.search("TOMAT")));
+        assertEquals(Set.of("Cherry tomatoes"), names(idx.search("tom ch")));
+        assertTrue(idx.search("tomx").isEmpty());
+        assertEquals(4, idx.search("  ").size());
+    }
+
+    @Test
+    void removedItemsStopMatchingAndIdsAreReused() {
+        SearchIndex<PantryItem> idx = new SearchIndex<>(p -> p.name);
+        PantryItem rice = new PantryItem("rice", 2, "cup", null);
+        PantryItem beans = new PantryItem("black beans", 1, "can", null);
+        idx.add(rice); idx.add(beans);
+        idx.remove(rice);
+        assertTrue(idx.search("ri").isEmpty());
+        PantryItem basmati = new PantryItem("basmati rice", 2, "cup", null);
+        idx.add(basmati);
+        assertEquals(2, idx.size());
+        assertEquals(Set.of("basmati rice"), names(idx.search("rice")));
+        assertTrue(idx.predicate("bla").test(beans));
+        assertFalse(idx.predicate("bla").test(rice));
+    }
+
+    @Test
+    void singleItemMatchAgreesWithSearch() {
+        SearchIndex<PantryItem> idx = new SearchIndex<>(p -> p.name);
+        PantryItem paste = new PantryItem("Tomato Paste", 1, "can", null);
+        idx.add(paste);
+        assertTrue(idx.matches(paste, "past TOM"));
+        assertFalse(idx.matches(paste, "tom ch"));
+        assertTrue(idx.matches(paste, " "));
+        PantryItem unindexed = new PantryItem("Cherry tomatoes", 200, "g", null);
+        assertTrue(idx.matches(unindexed, "tom ch"));
+        assertFalse(idx.matches(unindexed, "paste"));
+    }
+
+    @Test
+    void tokenizeSplitsOnPunctuation() {
+        assertEquals(List.of("mac", "n", "cheese", "2"), SearchIndex.tokenize("Mac-n'Cheese (2)"));
+    }
+}
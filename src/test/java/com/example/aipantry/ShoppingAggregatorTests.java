@@ -0,0 +1,76 @@
+package com.example.aipantry;
+
+import com.example.aipantry.model.*;
+import com.example.aipantry.services.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShoppingAggregatorTests {
+    private final Units units = new Units(Map.of("g", Map.of("to_g", 1.0), "piece", Map.of("to_piece", 1.0), "ml", Map.of("to_ml", 1.0)));
+
+    private static Map<String, Double> amounts(List<ShoppingListService.Line> lines) {
+        Map<String, Double> m = new LinkedHashMap<>();
+        for (var l : lines) m.put(l.name, l.amount);
+        return m;
+    }
+
+    @Test
+    void deltasMatchAFullRecompute() {
+        Random rnd = new Random(9);
+        String[] names = { "spinach", "Spinach", "rice", "egg", "eggs", "milk", "flour", "garlic" };
+        String[][] unitNames = { { "g", "kg" }, { "g", "kg" }, { "kg" }, { "piece" }, { "piece" }, { "ml", "l" }, { "g" }, { null } }; // one family per item
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            List<Ingredient> ings = new ArrayList<>();
+            for (int k = 1 + rnd.nextInt(4); k > 0; k--) {
+                int n = rnd.nextInt(names.length);
+                ings.add(new Ingredient(names[n], 1 + rnd.nextInt(300), unitNames[n][rnd.nextInt(unitNames[n].length)]));
+            }
+            recipes.add(new Recipe("r" + i, ings, 10, Set.of()));
+        }
+        PantryStore store = new PantryStore();
+        store.put(new PantryItem("spinach", 150, "g", null));
+        store.put(new PantryItem("rice", 1, "kg", null));
+        AliasResolver aliases = new AliasResolver(Map.of("egg", List.of("eggs")));
+        ShoppingAggregator totals = new ShoppingAggregator(store.asMap(), units, aliases, null);
+        store.addListener(totals);
+        List<Recipe> plan = new ArrayList<>();
+        for (int step = 0; step < 300; step++) {
+            switch (rnd.nextInt(4)) {
+                case 0 -> plan.add(recipes.get(rnd.nextInt(recipes.size())));
+                case 1 -> { if (!plan.isEmpty()) plan.remove(rnd.nextInt(plan.size())); }
+                case 2 -> { int n = rnd.nextInt(names.length); store.put(new PantryItem(names[n].toLowerCase(), rnd.nextInt(500), unitNames[n][0], null)); }
+                default -> store.remove(names[rnd.nextInt(names.length)]);
+            }
+            totals.setPlan(plan);
+            var expected = new ShoppingListService().compute(plan, store.asMap(), units, aliases);
+            assertEquals(amounts(expected).keySet(), amounts(totals.view(1)).keySet(), "step " + step);
+            for (var e : amounts(expected).entrySet()) assertEquals(e.getValue(), amounts(totals.view(1)).get(e.getKey()), 0.011, e.getKey());
+        }
+    }
+
+    @Test
+    void viewIsLiveAndScalesRequirementsNotShortfalls() {
+        Map<String, PantryItem> pantry = new HashMap<>();
+        pantry.put("spinach", new PantryItem("spinach", 150, "g", null));
+        ShoppingAggregator totals = new ShoppingAggregator(pantry, units, null, null);
+        Recipe wrap = new Recipe("Wrap", List.of(new Ingredient("spinach", 100, "g"), new Ingredient("tortilla", 2, "piece")), 10, Set.of());
+        List<ShoppingListService.Line> once = totals.view(1), twice = totals.view(2);
+        assertTrue(once.isEmpty());
+
+        totals.add(wrap);
+        assertEquals(Map.of("tortilla", 2.0), amounts(once));
+        assertEquals(Map.of("spinach", 50.0, "tortilla", 4.0), amounts(twice)); // 200 g needed, 150 g on hand
+
+        totals.add(wrap); // the same recipe twice is counted twice
+        assertEquals(50.0, amounts(once).get("spinach"), 1e-9);
+        totals.remove(wrap);
+        totals.remove(wrap);
+        assertTrue(once.isEmpty());
+        assertTrue(totals.keys().isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> once.add(null));
+    }
+}
@@ -35,4 +35,46 @@ public class ShoppingListServiceTests {
     assertEquals("g",    map.get("spinach").unit);
     assertEquals(2.0,   map.get("tortilla").amount, 1e-6);  // 4 - 2
   }
+
+  @Test
+  void batchMatchesOneCallPerHousehold() {
+    ShoppingListService s = new ShoppingListService();
+    Units units = new Units(Map.of("g", Map.of("to_g",1.0), "piece", Map.of("to_piece",1.0), "ml", Map.of("to_ml",1.0)));
+    AliasResolver alias = new AliasResolver(Map.of("egg", List.of("eggs")));
+    Random rnd = new Random(50);
+    String[] names = { "spinach", "Spinach", "rice", "egg", "eggs", "milk", "garlic" };
+    String[][] unitNames = { {"g","kg"}, {"g","kg"}, {"kg","g"}, {"piece"}, {"piece"}, {"ml","l"}, {null} };
+    List<Recipe> recipes = new ArrayList<>();
+    for (int i = 0; i < 30; i++) {
+      List<Ingredient> ings = new ArrayList<>();
+      for (int k = 1 + rnd.nextInt(4); k > 0; k--) {
+        int n = rnd.nextInt(names.length);
+        ings.add(new Ingredient(names[n], 1 + rnd.nextInt(300), unitNames[n][rnd.nextInt(unitNames[n].length)]));
+      }
+      recipes.add(new Recipe("r" + i, ings, 10, Set.of()));
+    }
+    List<ShoppingListService.Household> households = new ArrayList<>();
+    for (int h = 0; h < 100; h++) {
+      List<Recipe> plan = new ArrayList<>();
+      for (int k = rnd.nextInt(8); k > 0; k--) plan.add(recipes.get(rnd.nextInt(recipes.size())));
+      Map<String,PantryItem> pantry = new HashMap<>();
+      for (int k = rnd.nextInt(4); k > 0; k--) {
+        int n = rnd.nextInt(names.length);
+        pantry.put(names[n].toLowerCase(), new PantryItem(names[n].toLowerCase(), rnd.nextInt(500), unitNames[n][0], null));
+      }
+      households.add(new ShoppingListService.Household(plan, pantry));
+    }
+
+    var batch = s.computeAll(households, units, alias);
+    assertEquals(households.size(), batch.size());
+    for (int h = 0; h < households.size(); h++) {
+      var expected = s.compute(households.get(h).plan, households.get(h).pantry, units, alias);
+      assertEquals(expected.size(), batch.get(h).size(), "household " + h);
+      for (int i = 0; i < expected.size(); i++) {
+        assertEquals(expected.get(i).name, batch.get(h).get(i).name);
+        assertEquals(expected.get(i).unit, batch.get(h).get(i).unit);
+        assertEquals(expected.get(i).amount, batch.get(h).get(i).amount, 1e-9);
+      }
+    }
+  }
 }
@@ -0,0 +1,81 @@
+package com.example.aipantry;
+
+import com.example.aipantry.model.*;
+import com.example.aipantry.services.Planner;
+import com.example.aipantry.services.SimilarityIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimilarityIndexTests {
+    private static Recipe recipe(String title, String... names) {
+        List<Ingredient> ings = new ArrayList<>();
+        for (String n : names) ings.add(new Ingredient(n, 100, "g"));
+        return new Recipe(title, ings, 20, Set.of());
+    }
+
+    /** Random recipes over a wide vocabulary plus a family of near-identical stir-fries. */
+    private static List<Recipe> catalog() {
+        Random rnd = new Random(4);
+        List<Recipe> out = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            String[] names = new String[3 + rnd.nextInt(5)];
+            for (int k = 0; k < names.length; k++) names[k] = "ing" + rnd.nextInt(400);
+            out.add(recipe("r" + i, names));
+        }
+        String[] base = { "rice", "soy sauce", "garlic", "ginger", "onion", "pepper", "egg", "oil" };
+        for (int v = 0; v < 6; v++) {
+            List<String> names = new ArrayList<>(List.of(base));
+            names.add("extra" + v); // each variant adds its own ingredient: Jaccard 8/10 between any two
+            out.add(recipe("Stir-fry " + v, names.toArray(new String[0])));
+        }
+        return out;
+    }
+
+    @Test
+    void findsNearDuplicatesWithoutScanningAndRanksByJaccard() {
+        List<Recipe> recipes = catalog();
+        RecipeCatalog catalog = RecipeCatalog.of(recipes);
+        SimilarityIndex index = SimilarityIndex.of(catalog);
+        int first = recipes.size() - 6;
+        List<SimilarityIndex.Match> found = index.similar(first, 10);
+        Set<Integer> hits = new HashSet<>();
+        for (var m : found) hits.add(m.recipe);
+        for (int v = 1; v < 6; v++) assertTrue(hits.contains(first + v), "variant " + v);
+        for (int i = 1; i < found.size(); i++) assertTrue(found.get(i - 1).similarity >= found.get(i).similarity);
+        for (var m : found) assertEquals(index.similarity(first, m.recipe), m.similarity, 1e-12);
+        assertFalse(hits.contains(first));
+
+        // the estimate tracks the exact value for a similar pair
+        assertEquals(index.similarity(first, first + 1), index.estimate(first, first + 1), 0.2);
+    }
+
+    @Test
+    void diversePlanTradesScoreForVariety() {
+        List<Recipe> recipes = new ArrayList<>(catalog());
+        RecipeCatalog catalog = RecipeCatalog.of(recipes);
+        SimilarityIndex index = SimilarityIndex.of(catalog);
+        Map<String, PantryItem> pantry = new HashMap<>();
+        for (String n : List.of("rice", "soy sauce", "garlic", "ginger", "onion", "pepper", "egg", "oil", "extra0", "extra1", "extra2"))
+            pantry.put(n, new PantryItem(n, 1000, "g", null));
+        for (int i = 0; i < 40; i++) pantry.put("ing" + i, new PantryItem("ing" + i, 1000, "g", null));
+        Planner planner = new Planner();
+
+        int[] plain = planner.plan(catalog, pantry, 4, Set.of(), 30);
+        int[] same = planner.planDiverse(catalog, null, index, pantry, 4, Set.of(), 30, false, false, 1.0);
+        assertArrayEquals(plain, same);
+
+        int[] varied = planner.planDiverse(catalog, null, index, pantry, 4, Set.of(), 30, false, false, 0.5);
+        assertEquals(4, varied.length);
+        assertTrue(maxPairSimilarity(index, varied) < maxPairSimilarity(index, plain), "varied plan should be less redundant");
+        assertEquals(4, Arrays.stream(varied).distinct().count());
+    }
+
+    private static double maxPairSimilarity(SimilarityIndex index, int[] plan) {
+        double max = 0;
+        for (int i = 0; i < plan.length; i++) for (int j = i + 1; j < plan.length; j++) max = Math.max(max, index.similarity(plan[i], plan[j]));
+        return max;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.aipantry;
+
+import com.example.aipantry.model.*;
+import com.example.aipantry.services.*;
+import com.example.aipantry.storage.JsonStorage;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SubstitutionGraphTests {
+    private static SubstitutionGraph cheeses() {
+        return new SubstitutionGraph(Map.of(
+                "Cheddar", List.of(new Substitution("mozzarella", 1, 0.2), new Substitution("provolone", 1, 0.7)),
+                "mozzarella", List.of(new Substitution("provolone", 1.5, 0.5), new Substitution("cheddar", 1, 0.2)),
+                "milk", List.of(new Substitution("oat milk", 1, 1.0))));
+    }
+
+    @Test
+    void closureKeepsTheLeastPenalizedPath() {
+        var c = cheeses().candidates("CHEDDAR");
+        assertEquals(2, c.length);
+        assertEquals("mozzarella", c[0].name);
+        assertEquals(0.2, c[0].penalty, 1e-9);
+        assertEquals("provolone", c[1].name); // via mozzarella: 1 - 0.8 * 0.5 beats the direct 0.7
+        assertEquals(0.6, c[1].penalty, 1e-9);
+        assertEquals(1.5, c[1].ratio, 1e-9);
+        assertEquals(0, cheeses().candidates("milk").length, "a full penalty is no substitute");
+        assertEquals(0, cheeses().candidates("provolone").length);
+    }
+
+    @Test
+    void scoringCountsSubstitutesAndRecordsThem() {
+        Map<String, PantryItem> pantry = new HashMap<>();
+        pantry.put("mozzarella", new PantryItem("Mozzarella", 150, "g", null));
+        pantry.put("tortilla", new PantryItem("tortilla", 4, "piece", null));
+        Recipe quesadilla = new Recipe("Quesadilla", List.of(new Ingredient("Cheddar", 100, "g"), new Ingredient("tortilla", 2, "piece")), 10, Set.of());
+        RuleEngine engine = new RuleEngine(cheeses());
+
+        RuleExplanation ex = engine.explain(quesadilla, pantry, Set.of(), 30);
+        assertEquals(1, ex.haveCount);
+        assertEquals(0.8, ex.substitutionCredit, 1e-9);
+        assertEquals(0.9, ex.coverage, 1e-9);
+        assertEquals(List.of("cheddar → mozzarella ×1.0 (−20%)"), ex.substitutes);
+        assertTrue(ex.missing.isEmpty());
+        assertEquals(0.5, new RuleEngine().explain(quesadilla, pantry, Set.of(), 30).coverage, 1e-9);
+
+        // columnar scoring agrees, substitutes included
+        List<Recipe> recipes = RecipeCatalogTests.randomRecipes(new Random(5), 1000);
+        recipes.add(quesadilla);
+        Map<String, PantryItem> stock = RecipeCatalogTests.samplePantry();
+        stock.putAll(pantry);
+        RuleEngine wide = new RuleEngine(new SubstitutionGraph(Map.of(
+                "flour", List.of(new Substitution("rice", 2, 0.4)),
+                "garlic", List.of(new Substitution("spinach", 0.5, 0.5)),
+                "cheddar", List.of(new Substitution("mozzarella", 1, 0.2)))));
+        RecipeCatalog catalog = RecipeCatalog.of(recipes);
+        double[] fast = wide.scoreAll(catalog, wide.bind(catalog, stock, LocalDate.now()), Set.of("quick"), 30);
+        for (int i = 0; i < recipes.size(); i++) assertEquals(wide.score(recipes.get(i), stock, Set.of("quick"), 30), fast[i], 1e-9, "recipe " + i);
+    }
+
+    @Test
+    void shoppingDrawsOnSubstitutesTheRestOfThePlanLeaves() {
+        Map<String, PantryItem> pantry = new HashMap<>();
+        pantry.put("mozzarella", new PantryItem("mozzarella", 150, "g", null));
+        List<Recipe> plan = List.of(
+                new Recipe("Mac", List.of(new Ingredient("cheddar", 200, "g")), 20, Set.of()),
+                new Recipe("Pizza", List.of(new Ingredient("mozzarella", 100, "g")), 20, Set.of()));
+        Units units = new Units(Map.of("g", Map.of("to_g", 1.0)));
+        var lines = new ShoppingListService().compute(plan, pantry, units, null, cheeses());
+        assertEquals(1, lines.size());
+        assertEquals("cheddar", lines.get(0).name);
+        assertEquals(150, lines.get(0).amount, 1e-9); // only 50 g of mozzarella is spare
+        assertEquals(200, new ShoppingListService().compute(plan, pantry, units, null).get(0).amount, 1e-9);
+    }
+
+    @Test
+    void loadsFromJsonWithDefaultRatio() throws Exception {
+        String json = "{\"cheddar\": [{\"with\": \"gouda\", \"penalty\": 0.1}]}";
+        var graph = new SubstitutionGraph(new JsonStorage().loadSubstitutions(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))));
+        assertEquals(1.0, graph.candidates("cheddar")[0].ratio, 1e-9);
+        try (InputStream in = getClass().getResourceAsStream("/sample-data/substitutions.json")) {
+            assertFalse(new SubstitutionGraph(new JsonStorage().loadSubstitutions(in)).isEmpty());
+        }
+    }
+}
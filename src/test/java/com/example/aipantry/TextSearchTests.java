@@ -0,0 +1,80 @@
+package com.example.aipantry;
+
+import com.example.aipantry.services.TextSearch;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TextSearchTests {
+    private static List<String> items(List<TextSearch.Hit<String>> hits) {
+        List<String> out = new ArrayList<>();
+        for (var h : hits) out.add(h.item);
+        return out;
+    }
+
+    @Test
+    void stemsAndRanksByBm25() {
+        TextSearch<String> index = new TextSearch<>(s -> s);
+        String soup = "Tomato soup with tomatoes, simmered and blended";
+        String salad = "Green salad with a sliced tomato";
+        String pasta = "Garlic pasta, chopped parsley";
+        index.addAll(List.of(soup, salad, pasta));
+
+        assertEquals(List.of(soup, salad), items(index.search("TOMATOES", 10)), "repeated term ranks first");
+        assertEquals(List.of(pasta), items(index.search("chopping", 10)));
+        assertEquals(List.of(salad), items(index.search("slice", 10)));
+        assertEquals(List.of(soup), items(index.search("tomato soup", 1)));
+        assertTrue(index.search("  ,. ", 10).isEmpty());
+        assertTrue(index.search("bread", 10).isEmpty());
+        assertEquals(TextSearch.analyze("berry"), TextSearch.analyze("Berries"));
+        assertEquals(TextSearch.analyze("cookie brownie"), TextSearch.analyze("cookies brownies"));
+
+        String cookies = "Oat cookies and chocolate brownies";
+        index.add(cookies);
+        assertEquals(List.of(cookies), items(index.search("cookie", 10)));
+        assertEquals(List.of(cookies), items(index.search("brownie", 10)));
+    }
+
+    @Test
+    void prunedTopKMatchesExhaustiveRanking() {
+        Random rnd = new Random(7);
+        TextSearch<String> index = new TextSearch<>(s -> s);
+        for (int d = 0; d < 20000; d++) {
+            StringBuilder sb = new StringBuilder("recipe");
+            for (int w = 3 + rnd.nextInt(20); w > 0; w--) sb.append(" w").append((int) Math.pow(rnd.nextDouble(), 3) * 300).append('x');
+            index.add(sb.toString());
+        }
+        for (String q : List.of("recipe w1x", "w0x w2x w150x", "w5x recipe w299x", "recipe")) {
+            List<TextSearch.Hit<String>> all = index.search(q, Integer.MAX_VALUE);
+            List<TextSearch.Hit<String>> top = index.search(q, 10);
+            assertEquals(items(all.subList(0, 10)), items(top), q);
+            assertEquals(all.get(0).score, top.get(0).score, 1e-9);
+        }
+    }
+
+    @Test
+    void addAndRemoveAreIncrementalAndSurviveCompaction() {
+        TextSearch<String> index = new TextSearch<>(s -> s);
+        List<String> docs = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) docs.add(new String("stew number" + i + (i % 10 == 0 ? " lentil" : "")));
+        index.addAll(docs);
+        assertEquals(500, index.search("lentils", 1000).size());
+
+        String first = docs.get(0);
+        index.remove(first);
+        assertFalse(index.contains(first));
+        assertFalse(items(index.search("lentil", 1000)).contains(first));
+        index.add(first);
+        assertTrue(items(index.search("number0", 5)).contains(first));
+
+        // removing most docs triggers a rebuild; the survivors still rank the same way
+        for (int i = 0; i < 4000; i++) index.remove(docs.get(i));
+        assertEquals(1000, index.size());
+        List<String> lentils = items(index.search("lentil stew", 100)); // any word matches; lentil docs score higher
+        assertTrue(lentils.stream().allMatch(d -> d.endsWith("lentil")));
+        assertEquals(docs.get(4000), lentils.get(0), "ties keep insertion order");
+        assertEquals(List.of(docs.get(4999)), items(index.search("number4999", 3)));
+    }
+}